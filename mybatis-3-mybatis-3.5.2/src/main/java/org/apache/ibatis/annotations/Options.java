@@ -63,4 +63,11 @@ public @interface Options {
   String keyColumn() default "";
 
   String resultSets() default "";
+
+  /**
+   * The comma separated tables the statement reads or writes, used when caches are invalidated by table.
+   *
+   * @since 3.5.3
+   */
+  String tables() default "";
 }
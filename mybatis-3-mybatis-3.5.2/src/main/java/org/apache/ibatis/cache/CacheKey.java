@@ -16,8 +16,7 @@
 package org.apache.ibatis.cache;
 
 import java.io.Serializable;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Arrays;
 import java.util.StringJoiner;
 
 import org.apache.ibatis.reflection.ArrayUtil;
@@ -27,25 +26,38 @@ import org.apache.ibatis.reflection.ArrayUtil;
  */
 public class CacheKey implements Cloneable, Serializable {
 
-  private static final long serialVersionUID = 1146682552656046210L;
+  private static final long serialVersionUID = 6425917433536472102L;
 
   public static final CacheKey NULL_CACHE_KEY = new NullCacheKey();
 
   private static final int DEFAULT_MULTIPLYER = 37;
   private static final int DEFAULT_HASHCODE = 17;
+  private static final int DEFAULT_CAPACITY = 8;
+  private static final long FINGERPRINT_MULTIPLIER = 0x9E3779B97F4A7C15L;
+
+  /**
+   * The type of a value stored in the primitive values instead of the objects.
+   */
+  private enum Primitive {
+    INT, LONG, SHORT, BYTE, CHAR, BOOLEAN, FLOAT, DOUBLE
+  }
 
   private final int multiplier;
   private int hashcode;
   private long checksum;
+  // a 64 bit hash of all the values that rules out most unequal keys before they are compared value by value
+  private long fingerprint;
   private int count;
   // 8/21/2017 - Sonarlint flags this as needing to be marked transient.  While true if content is not serializable, this is not always true and thus should not be marked transient.
-  private List<Object> updateList;
+  // the updated objects, or the type of the primitive value at the same index
+  private Object[] objects;
+  private long[] primitives;
 
   public CacheKey() {
     this.hashcode = DEFAULT_HASHCODE;
     this.multiplier = DEFAULT_MULTIPLYER;
     this.count = 0;
-    this.updateList = new ArrayList<>();
+    this.objects = new Object[DEFAULT_CAPACITY];
   }
 
   public CacheKey(Object[] objects) {
@@ -54,24 +66,126 @@ public class CacheKey implements Cloneable, Serializable {
   }
 
   public int getUpdateCount() {
-    return updateList.size();
+    return count;
   }
 
   public void update(Object object) {
-    int baseHashCode = object == null ? 1 : ArrayUtil.hashCode(object);
+    if (object instanceof Integer) {
+      updatePrimitive(Primitive.INT, (Integer) object, object.hashCode());
+    } else if (object instanceof Long) {
+      updatePrimitive(Primitive.LONG, (Long) object, object.hashCode());
+    } else if (object instanceof Short) {
+      updatePrimitive(Primitive.SHORT, (Short) object, object.hashCode());
+    } else if (object instanceof Byte) {
+      updatePrimitive(Primitive.BYTE, (Byte) object, object.hashCode());
+    } else if (object instanceof Character) {
+      updatePrimitive(Primitive.CHAR, (Character) object, object.hashCode());
+    } else if (object instanceof Boolean) {
+      updatePrimitive(Primitive.BOOLEAN, (Boolean) object ? 1 : 0, object.hashCode());
+    } else if (object instanceof Float) {
+      updatePrimitive(Primitive.FLOAT, Float.floatToIntBits((Float) object), object.hashCode());
+    } else if (object instanceof Double) {
+      updatePrimitive(Primitive.DOUBLE, Double.doubleToLongBits((Double) object), object.hashCode());
+    } else {
+      int baseHashCode = object == null ? 1 : ArrayUtil.hashCode(object);
+      add(object, 0L, baseHashCode, baseHashCode);
+    }
+  }
+
+  /**
+   * Same as {@code update(Integer.valueOf(value))}, without boxing the value.
+   *
+   * @since 3.5.3
+   */
+  public void update(int value) {
+    updatePrimitive(Primitive.INT, value, Integer.hashCode(value));
+  }
+
+  /**
+   * Same as {@code update(Long.valueOf(value))}, without boxing the value.
+   *
+   * @since 3.5.3
+   */
+  public void update(long value) {
+    updatePrimitive(Primitive.LONG, value, Long.hashCode(value));
+  }
+
+  public void updateAll(Object[] objects) {
+    for (Object o : objects) {
+      update(o);
+    }
+  }
+
+  /**
+   * Updates this key with all the values of another key, one by one, so that this key does not reference the
+   * other one and the other one can be reset afterwards.
+   *
+   * @since 3.5.3
+   */
+  public void updateAll(CacheKey cacheKey) {
+    for (int i = 0; i < cacheKey.count; i++) {
+      Object object = cacheKey.objects[i];
+      if (object instanceof Primitive) {
+        long value = cacheKey.primitives[i];
+        updatePrimitive((Primitive) object, value, primitiveHashCode((Primitive) object, value));
+      } else {
+        update(object);
+      }
+    }
+  }
+
+  /**
+   * Removes all the values of this key, so that the same instance can be updated again, e.g. to build the key of
+   * each row of a result set. A key that is reset must not be used in a map or a cache anymore.
+   *
+   * @since 3.5.3
+   */
+  public void reset() {
+    Arrays.fill(objects, 0, count, null);
+    hashcode = DEFAULT_HASHCODE;
+    checksum = 0;
+    fingerprint = 0;
+    count = 0;
+  }
+
+  private void updatePrimitive(Primitive type, long value, int baseHashCode) {
+    if (primitives == null) {
+      primitives = new long[objects.length];
+    }
+    add(type, value, baseHashCode, value ^ ((long) (type.ordinal() + 1) << 56));
+  }
+
+  private void add(Object object, long value, int baseHashCode, long bits) {
+    if (count == objects.length) {
+      objects = Arrays.copyOf(objects, count * 2);
+      if (primitives != null) {
+        primitives = Arrays.copyOf(primitives, count * 2);
+      }
+    }
+    objects[count] = object;
+    if (primitives != null) {
+      primitives[count] = value;
+    }
 
     count++;
     checksum += baseHashCode;
     baseHashCode *= count;
 
     hashcode = multiplier * hashcode + baseHashCode;
-
-    updateList.add(object);
+    fingerprint = Long.rotateLeft(fingerprint, 27) ^ (bits * FINGERPRINT_MULTIPLIER);
   }
 
-  public void updateAll(Object[] objects) {
-    for (Object o : objects) {
-      update(o);
+  // the hash code of the boxed value, which is what update(Object) uses
+  private static int primitiveHashCode(Primitive type, long value) {
+    switch (type) {
+      case LONG:
+        return Long.hashCode(value);
+      case BOOLEAN:
+        return Boolean.hashCode(value != 0);
+      case DOUBLE:
+        return Long.hashCode(value);
+      default:
+        return (int) value;
     }
   }
 
@@ -86,6 +200,9 @@ public class CacheKey implements Cloneable, Serializable {
 
     final CacheKey cacheKey = (CacheKey) object;
 
+    if (fingerprint != cacheKey.fingerprint) {
+      return false;
+    }
     if (hashcode != cacheKey.hashcode) {
       return false;
     }
@@ -96,10 +213,14 @@ public class CacheKey implements Cloneable, Serializable {
       return false;
     }
 
-    for (int i = 0; i < updateList.size(); i++) {
-      Object thisObject = updateList.get(i);
-      Object thatObject = cacheKey.updateList.get(i);
-      if (!ArrayUtil.equals(thisObject, thatObject)) {
+    for (int i = 0; i < count; i++) {
+      Object thisObject = objects[i];
+      Object thatObject = cacheKey.objects[i];
+      if (thisObject instanceof Primitive) {
+        if (thisObject != thatObject || primitives[i] != cacheKey.primitives[i]) {
+          return false;
+        }
+      } else if (!ArrayUtil.equals(thisObject, thatObject)) {
         return false;
       }
     }
@@ -116,14 +237,45 @@ public class CacheKey implements Cloneable, Serializable {
     StringJoiner returnValue = new StringJoiner(":");
     returnValue.add(String.valueOf(hashcode));
     returnValue.add(String.valueOf(checksum));
-    updateList.stream().map(ArrayUtil::toString).forEach(returnValue::add);
+    for (int i = 0; i < count; i++) {
+      returnValue.add(ArrayUtil.toString(getObject(i)));
+    }
     return returnValue.toString();
   }
 
+  private Object getObject(int index) {
+    Object object = objects[index];
+    if (!(object instanceof Primitive)) {
+      return object;
+    }
+    long value = primitives[index];
+    switch ((Primitive) object) {
+      case INT:
+        return (int) value;
+      case LONG:
+        return value;
+      case SHORT:
+        return (short) value;
+      case BYTE:
+        return (byte) value;
+      case CHAR:
+        return (char) value;
+      case BOOLEAN:
+        return value != 0;
+      case FLOAT:
+        return Float.intBitsToFloat((int) value);
+      default:
+        return Double.longBitsToDouble(value);
+    }
+  }
+
   @Override
   public CacheKey clone() throws CloneNotSupportedException {
     CacheKey clonedCacheKey = (CacheKey) super.clone();
-    clonedCacheKey.updateList = new ArrayList<>(updateList);
+    clonedCacheKey.objects = objects.clone();
+    if (primitives != null) {
+      clonedCacheKey.primitives = primitives.clone();
+    }
     return clonedCacheKey;
   }
 
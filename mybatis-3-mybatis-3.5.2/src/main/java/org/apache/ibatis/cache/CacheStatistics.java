@@ -0,0 +1,151 @@
+/**
+ *    Copyright ${license.git.copyrightYears} the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Statistics of a second level cache. The counters are striped, so that recording an event is cheap enough to
+ * be always enabled, and the size is read from the cache only when it is asked for.
+ * <p>
+ * Hits, misses and puts are recorded by the {@link org.apache.ibatis.cache.decorators.LoggingCache} of the cache,
+ * evictions by the decorators that have a <code>statistics</code> property and load times by the executor.
+ * Statistics are registered by cache id in the configuration, from where they can be published to a metrics
+ * system, or registered with an <code>MBeanServer</code>.
+ *
+ * @since 3.5.3
+ * @see org.apache.ibatis.session.Configuration#getCacheStatistics()
+ */
+public class CacheStatistics implements CacheStatisticsMXBean {
+
+  private final String id;
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder puts = new LongAdder();
+  private final LongAdder evictions = new LongAdder();
+  private final LongAdder loads = new LongAdder();
+  private final LongAdder loadTime = new LongAdder();
+  private final LongAdder weight = new LongAdder();
+  private volatile Cache cache;
+
+  public CacheStatistics(String id) {
+    this.id = id;
+  }
+
+  /**
+   * Sets the cache whose size is reported.
+   *
+   * @param cache - the cache, with all its decorators
+   */
+  public void setCache(Cache cache) {
+    this.cache = cache;
+  }
+
+  public void recordHit() {
+    hits.increment();
+  }
+
+  public void recordMiss() {
+    misses.increment();
+  }
+
+  public void recordPut() {
+    puts.increment();
+  }
+
+  public void recordEviction() {
+    evictions.increment();
+  }
+
+  /**
+   * Records a result loaded from the database after a miss.
+   *
+   * @param time - the time it took, in nanoseconds
+   */
+  public void recordLoad(long time) {
+    loads.increment();
+    loadTime.add(time);
+  }
+
+  /**
+   * Adds to the weight of the cache.
+   *
+   * @param delta - the weight of the entries that were added, or minus the weight of those that were removed
+   */
+  public void addWeight(long delta) {
+    weight.add(delta);
+  }
+
+  @Override
+  public String getId() {
+    return id;
+  }
+
+  @Override
+  public long getHits() {
+    return hits.sum();
+  }
+
+  @Override
+  public long getMisses() {
+    return misses.sum();
+  }
+
+  @Override
+  public double getHitRatio() {
+    long hitCount = hits.sum();
+    long requests = hitCount + misses.sum();
+    return requests == 0 ? 0 : (double) hitCount / requests;
+  }
+
+  @Override
+  public long getPuts() {
+    return puts.sum();
+  }
+
+  @Override
+  public long getEvictions() {
+    return evictions.sum();
+  }
+
+  @Override
+  public long getLoads() {
+    return loads.sum();
+  }
+
+  @Override
+  public long getTotalLoadTime() {
+    return loadTime.sum();
+  }
+
+  @Override
+  public int getSize() {
+    Cache target = cache;
+    return target == null ? 0 : target.getSize();
+  }
+
+  @Override
+  public long getWeight() {
+    return weight.sum();
+  }
+
+  @Override
+  public String toString() {
+    return "CacheStatistics [id=" + id + ", hits=" + getHits() + ", misses=" + getMisses() + ", puts=" + getPuts()
+        + ", evictions=" + getEvictions() + ", loads=" + getLoads() + ", totalLoadTime=" + getTotalLoadTime() + "]";
+  }
+
+}
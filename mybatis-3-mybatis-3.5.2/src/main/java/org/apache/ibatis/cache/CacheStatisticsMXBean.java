@@ -0,0 +1,66 @@
+/**
+ *    Copyright ${license.git.copyrightYears} the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache;
+
+/**
+ * Management interface of the statistics of a second level cache, so that they can be registered as an MXBean.
+ * All the counters are cumulative since the cache was built.
+ *
+ * @since 3.5.3
+ * @see CacheStatistics
+ */
+public interface CacheStatisticsMXBean {
+
+  /**
+   * @return The id of the cache, usually the namespace that declares it
+   */
+  String getId();
+
+  long getHits();
+
+  long getMisses();
+
+  double getHitRatio();
+
+  long getPuts();
+
+  /**
+   * @return The number of entries removed by the cache to stay within its bounds, or because they expired or
+   *     were garbage collected
+   */
+  long getEvictions();
+
+  /**
+   * @return The number of results loaded from the database after a miss
+   */
+  long getLoads();
+
+  /**
+   * @return The total time spent loading results after a miss, in nanoseconds
+   */
+  long getTotalLoadTime();
+
+  /**
+   * @return The number of entries of the cache
+   */
+  int getSize();
+
+  /**
+   * @return The weight of the entries, an estimate of their size in bytes, or zero if the cache does not weigh them
+   */
+  long getWeight();
+
+}
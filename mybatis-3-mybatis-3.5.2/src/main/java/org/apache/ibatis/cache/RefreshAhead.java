@@ -0,0 +1,70 @@
+/**
+ *    Copyright ${license.git.copyrightYears} the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache;
+
+/**
+ * Passes the refresh ahead requests of the caches on to the executor that read the entry, and marks the puts of the
+ * values it reloads in the background.
+ *
+ * @since 3.5.3
+ */
+public final class RefreshAhead {
+
+  private static final ThreadLocal<Boolean> requested = new ThreadLocal<>();
+  private static final ThreadLocal<Boolean> refreshing = new ThreadLocal<>();
+
+  private RefreshAhead() {
+    // Prevent Instantiation
+  }
+
+  /**
+   * Asks the reader of the entry that is being returned to reload it in the background.
+   */
+  public static void request() {
+    requested.set(Boolean.TRUE);
+  }
+
+  /**
+   * Returns whether the last read of this thread asked for a reload, and resets the request.
+   */
+  public static boolean takeRequest() {
+    if (requested.get() == null) {
+      return false;
+    }
+    requested.remove();
+    return true;
+  }
+
+  /**
+   * Runs the put of a value that has been reloaded in the background.
+   */
+  public static void putRefreshed(Runnable put) {
+    refreshing.set(Boolean.TRUE);
+    try {
+      put.run();
+    } finally {
+      refreshing.remove();
+    }
+  }
+
+  /**
+   * Returns whether the put that is running is the one of a value reloaded in the background.
+   */
+  public static boolean isRefreshing() {
+    return refreshing.get() != null;
+  }
+
+}
@@ -0,0 +1,146 @@
+/**
+ *    Copyright ${license.git.copyrightYears} the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.apache.ibatis.cache.decorators.BlockingCache;
+
+/**
+ * Records which tables the entries of the second level caches were read from, so that a statement writing
+ * to a table invalidates only the entries that depend on it, in any namespace.
+ * <p>
+ * Keys are not removed when a cache evicts them, so once a cache has more than the maximum number of keys
+ * depending on a table, a write to that table clears the whole cache instead.
+ *
+ * @since 3.5.3
+ */
+public class TableDependencyIndex {
+
+  /**
+   * The table of the entries whose tables are unknown, which are invalidated by any write.
+   */
+  public static final String ANY_TABLE = "*";
+
+  private static final Set<Object> ALL_KEYS = Collections.unmodifiableSet(new HashSet<>());
+
+  private final ConcurrentHashMap<String, ConcurrentHashMap<Cache, Set<Object>>> dependents = new ConcurrentHashMap<>();
+  // an entry is put and recorded atomically with regard to invalidations, so that none is left unrecorded
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+  private volatile int maximumKeys = 10000;
+
+  public int getMaximumKeys() {
+    return maximumKeys;
+  }
+
+  /**
+   * Sets the maximum number of keys of a cache recorded for a table.
+   *
+   * @param maximumKeys - the maximum number of keys
+   */
+  public void setMaximumKeys(int maximumKeys) {
+    this.maximumKeys = maximumKeys;
+  }
+
+  /**
+   * Puts an entry to a cache and records the tables it was read from.
+   *
+   * @param cache - the cache
+   * @param key - the key
+   * @param value - the value, null when a missed entry is released
+   * @param tables - the tables the value was read from
+   */
+  public void putObject(Cache cache, Object key, Object value, Collection<String> tables) {
+    lock.readLock().lock();
+    try {
+      cache.putObject(key, value);
+      if (value != null) {
+        for (String table : tables) {
+          record(table, cache, key);
+        }
+      }
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Invalidates the entries read from any of the given tables, and the entries whose tables are unknown.
+   *
+   * @param tables - the tables that have been written
+   */
+  public void invalidate(Collection<String> tables) {
+    List<Map<Cache, Set<Object>>> detached = new ArrayList<>();
+    lock.writeLock().lock();
+    try {
+      detach(ANY_TABLE, detached);
+      for (String table : tables) {
+        detach(table, detached);
+      }
+    } finally {
+      lock.writeLock().unlock();
+    }
+    // evicted outside the lock, as a cache may block on the entry while another thread loads it
+    for (Map<Cache, Set<Object>> caches : detached) {
+      for (Map.Entry<Cache, Set<Object>> entry : caches.entrySet()) {
+        evict(entry.getKey(), entry.getValue());
+      }
+    }
+  }
+
+  private void record(String table, Cache cache, Object key) {
+    Map<Cache, Set<Object>> caches = dependents.computeIfAbsent(table, t -> new ConcurrentHashMap<>());
+    Set<Object> keys = caches.computeIfAbsent(cache, c -> ConcurrentHashMap.newKeySet());
+    if (keys != ALL_KEYS) {
+      keys.add(key);
+      if (keys.size() > maximumKeys) {
+        caches.put(cache, ALL_KEYS);
+      }
+    }
+  }
+
+  private void detach(String table, List<Map<Cache, Set<Object>>> detached) {
+    Map<Cache, Set<Object>> caches = dependents.remove(table);
+    if (caches != null) {
+      detached.add(caches);
+    }
+  }
+
+  private void evict(Cache cache, Set<Object> keys) {
+    if (keys == ALL_KEYS) {
+      cache.clear();
+    } else if (cache instanceof BlockingCache) {
+      for (Object key : keys) {
+        // its removeObject() and putObject() would end the load of the entry by another thread
+        ((BlockingCache) cache).evictObject(key);
+      }
+    } else {
+      for (Object key : keys) {
+        cache.removeObject(key);
+      }
+    }
+  }
+
+}
@@ -0,0 +1,30 @@
+/**
+ *    Copyright ${license.git.copyrightYears} the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache;
+
+/**
+ * Marker for caches and cache decorators that can be used by several threads at the same time.
+ * <p>
+ * A decorator must only be marked when its own state is safe to share; it does not need to
+ * guard its delegate. When the base cache and every decorator of a chain are marked,
+ * {@link org.apache.ibatis.mapping.CacheBuilder} does not wrap the chain in a
+ * {@link org.apache.ibatis.cache.decorators.SynchronizedCache}.
+ *
+ * @since 3.5.3
+ */
+public interface ThreadSafeCache {
+
+}
@@ -15,8 +15,12 @@
  */
 package org.apache.ibatis.cache;
 
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
 
 import org.apache.ibatis.cache.decorators.TransactionalCache;
 
@@ -26,6 +30,19 @@ import org.apache.ibatis.cache.decorators.TransactionalCache;
 public class TransactionalCacheManager {
 
   private final Map<Cache, TransactionalCache> transactionalCaches = new HashMap<>();
+  private final TableDependencyIndex tableIndex;
+  private final Set<String> invalidatedTables = new HashSet<>();
+
+  public TransactionalCacheManager() {
+    this(null);
+  }
+
+  /**
+   * @since 3.5.3
+   */
+  public TransactionalCacheManager(TableDependencyIndex tableIndex) {
+    this.tableIndex = tableIndex;
+  }
 
   public void clear(Cache cache) {
     getTransactionalCache(cache).clear();
@@ -39,20 +56,62 @@ public class TransactionalCacheManager {
     getTransactionalCache(cache).putObject(key, value);
   }
 
+  /**
+   * @since 3.5.3
+   */
+  public void putObject(Cache cache, CacheKey key, Object value, Collection<String> tables) {
+    getTransactionalCache(cache).putObject(key, value, tables);
+  }
+
+  /**
+   * Invalidates on commit the entries read from any of the given tables, in all the caches.
+   *
+   * @since 3.5.3
+   */
+  public void invalidate(Collection<String> tables) {
+    invalidatedTables.add(TableDependencyIndex.ANY_TABLE);
+    invalidatedTables.addAll(tables);
+    for (TransactionalCache txCache : transactionalCaches.values()) {
+      txCache.invalidate(tables);
+    }
+  }
+
+  /**
+   * Returns whether an entry read from the given tables has been invalidated by this transaction.
+   *
+   * @since 3.5.3
+   */
+  public boolean isInvalidated(Collection<String> tables) {
+    return !invalidatedTables.isEmpty()
+        && (tables.contains(TableDependencyIndex.ANY_TABLE) || !Collections.disjoint(invalidatedTables, tables));
+  }
+
+  /**
+   * @since 3.5.3
+   */
+  public boolean hasInvalidations() {
+    return !invalidatedTables.isEmpty();
+  }
+
   public void commit() {
+    if (!invalidatedTables.isEmpty()) {
+      tableIndex.invalidate(invalidatedTables);
+      invalidatedTables.clear();
+    }
     for (TransactionalCache txCache : transactionalCaches.values()) {
       txCache.commit();
     }
   }
 
   public void rollback() {
+    invalidatedTables.clear();
     for (TransactionalCache txCache : transactionalCaches.values()) {
       txCache.rollback();
     }
   }
 
   private TransactionalCache getTransactionalCache(Cache cache) {
-    return transactionalCaches.computeIfAbsent(cache, TransactionalCache::new);
+    return transactionalCaches.computeIfAbsent(cache, c -> new TransactionalCache(c, tableIndex));
   }
 
 }
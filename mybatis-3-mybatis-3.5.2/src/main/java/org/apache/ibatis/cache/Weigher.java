@@ -0,0 +1,35 @@
+/**
+ *    Copyright ${license.git.copyrightYears} the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache;
+
+/**
+ * Estimates the memory retained by a cache entry, for caches bounded by a weight instead of a number of entries.
+ *
+ * @since 3.5.3
+ * @see org.apache.ibatis.cache.decorators.WeightedCache
+ */
+public interface Weigher {
+
+  /**
+   * Returns the weight of an entry, usually its approximate size in bytes.
+   *
+   * @param key - the key of the entry
+   * @param value - the cached value, serialized when the cache is read-write
+   * @return The weight of the entry, zero or more
+   */
+  long weigh(Object key, Object value);
+
+}
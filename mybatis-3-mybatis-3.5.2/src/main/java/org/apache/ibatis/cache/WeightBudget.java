@@ -0,0 +1,102 @@
+/**
+ *    Copyright ${license.git.copyrightYears} the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache;
+
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Weight shared by all the weighted caches of a configuration. When the total weight grows beyond the maximum,
+ * the least recently used entries of the heaviest caches are evicted until the total is back within the budget,
+ * whichever cache grew it.
+ *
+ * @since 3.5.3
+ * @see org.apache.ibatis.cache.decorators.WeightedCache
+ */
+public class WeightBudget {
+
+  private final AtomicLong weight = new AtomicLong();
+  private final Set<Member> members = new CopyOnWriteArraySet<>();
+  private volatile long maximumWeight;
+
+  /**
+   * Returns the maximum total weight.
+   *
+   * @return The maximum weight, or zero if the total weight is not bounded
+   */
+  public long getMaximumWeight() {
+    return maximumWeight;
+  }
+
+  public void setMaximumWeight(long maximumWeight) {
+    this.maximumWeight = maximumWeight;
+  }
+
+  public long getWeight() {
+    return weight.get();
+  }
+
+  public void add(long delta) {
+    weight.addAndGet(delta);
+  }
+
+  public boolean isExceeded() {
+    long maximum = maximumWeight;
+    return maximum > 0 && weight.get() > maximum;
+  }
+
+  public void join(Member member) {
+    members.add(member);
+  }
+
+  public void leave(Member member) {
+    members.remove(member);
+  }
+
+  /**
+   * Evicts entries from the heaviest members until the total weight is within the budget.
+   */
+  public void evict() {
+    while (isExceeded()) {
+      Member heaviest = null;
+      for (Member member : members) {
+        if (heaviest == null || member.getWeight() > heaviest.getWeight()) {
+          heaviest = member;
+        }
+      }
+      if (heaviest == null || !heaviest.evictEldest()) {
+        return;
+      }
+    }
+  }
+
+  /**
+   * A cache whose weight is counted against the budget.
+   */
+  public interface Member {
+
+    long getWeight();
+
+    /**
+     * Evicts the least recently used entry.
+     *
+     * @return False if there was no entry to evict
+     */
+    boolean evictEldest();
+  }
+
+}
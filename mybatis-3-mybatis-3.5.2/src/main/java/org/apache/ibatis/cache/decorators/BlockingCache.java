@@ -15,13 +15,22 @@
  */
 package org.apache.ibatis.cache.decorators;
 
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 
 import org.apache.ibatis.cache.Cache;
 import org.apache.ibatis.cache.CacheException;
+import org.apache.ibatis.cache.Serializer;
+import org.apache.ibatis.cache.ThreadSafeCache;
 
 /**
  * Simple blocking decorator
@@ -29,19 +38,42 @@ import org.apache.ibatis.cache.CacheException;
  * Simple and inefficient version of EhCache's BlockingCache decorator.
  * It sets a lock over a cache key when the element is not found in cache.
  * This way, other threads will wait until this element is filled instead of hitting the database.
+ * <p>
+ * In single flight mode the first thread that misses a key becomes its loader and the other threads wait on a
+ * shared future that is removed once the loader puts the value or gives up, so nothing is retained per key.
+ * Threads that time out get the last value put for the key if it is still softly reachable. When a
+ * {@link #setSerializer(Serializer) serializer} is set, as for read-write caches, that value is kept serialized and
+ * each of these threads gets its own copy.
  *
  * @author Eduardo Macarron
  *
  */
-public class BlockingCache implements Cache {
+public class BlockingCache implements Cache, ThreadSafeCache {
 
   private long timeout;
+  private boolean singleFlight;
+  private int staleSize = 1024;
+  private volatile Serializer serializer;
   private final Cache delegate;
   private final ConcurrentHashMap<Object, ReentrantLock> locks;
+  private final ConcurrentHashMap<Object, Flight> flights;
+  private final ReentrantLock staleLock = new ReentrantLock();
+  private final Map<Object, StaleEntry> staleValues;
+  private final ReferenceQueue<Object> queueOfGarbageCollectedEntries;
 
   public BlockingCache(Cache delegate) {
     this.delegate = delegate;
     this.locks = new ConcurrentHashMap<>();
+    this.flights = new ConcurrentHashMap<>();
+    this.staleValues = new LinkedHashMap<Object, StaleEntry>(16, .75F, true) {
+      private static final long serialVersionUID = 1L;
+
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Object, StaleEntry> eldest) {
+        return size() > staleSize;
+      }
+    };
+    this.queueOfGarbageCollectedEntries = new ReferenceQueue<>();
   }
 
   @Override
@@ -56,6 +88,15 @@ public class BlockingCache implements Cache {
 
   @Override
   public void putObject(Object key, Object value) {
+    if (singleFlight) {
+      try {
+        delegate.putObject(key, value);
+        keepStaleValue(key, value);
+      } finally {
+        completeFlight(key, true);
+      }
+      return;
+    }
     try {
       delegate.putObject(key, value);
     } finally {
@@ -65,6 +106,9 @@ public class BlockingCache implements Cache {
 
   @Override
   public Object getObject(Object key) {
+    if (singleFlight) {
+      return getObjectOrJoinFlight(key);
+    }
     acquireLock(key);
     Object value = delegate.getObject(key);
     if (value != null) {
@@ -76,13 +120,132 @@ public class BlockingCache implements Cache {
   @Override
   public Object removeObject(Object key) {
     // despite of its name, this method is called only to release locks
-    releaseLock(key);
+    if (singleFlight) {
+      completeFlight(key, false);
+    } else {
+      releaseLock(key);
+    }
     return null;
   }
 
+  /**
+   * Removes an entry, e.g. one that a write has invalidated, without releasing the threads waiting for another
+   * thread to load it, unlike {@link #removeObject(Object)} and {@link #putObject(Object, Object)}.
+   *
+   * @param key - the key
+   * @since 3.5.3
+   */
+  public void evictObject(Object key) {
+    delegate.removeObject(key);
+    staleLock.lock();
+    try {
+      staleValues.remove(key);
+    } finally {
+      staleLock.unlock();
+    }
+  }
+
   @Override
   public void clear() {
     delegate.clear();
+    staleLock.lock();
+    try {
+      staleValues.clear();
+    } finally {
+      staleLock.unlock();
+    }
+  }
+
+  private Object getObjectOrJoinFlight(Object key) {
+    Thread current = Thread.currentThread();
+    while (true) {
+      Object value = delegate.getObject(key);
+      if (value != null) {
+        return value;
+      }
+      Flight flight = new Flight(current);
+      Flight inFlight = flights.putIfAbsent(key, flight);
+      if (inFlight == null || inFlight.loader == current) {
+        // the caller loads the value and ends the flight with putObject() or removeObject()
+        value = delegate.getObject(key);
+        if (value != null) {
+          completeFlight(key, true);
+        }
+        return value;
+      }
+      try {
+        if (timeout > 0) {
+          inFlight.future.get(timeout, TimeUnit.MILLISECONDS);
+        } else {
+          inFlight.future.get();
+        }
+      } catch (TimeoutException e) {
+        value = getStaleValue(key);
+        if (value != null) {
+          return value;
+        }
+        throw new CacheException("Couldn't get a value in " + timeout + " for the key " +  key + " at the cache " + delegate.getId());
+      } catch (InterruptedException e) {
+        throw new CacheException("Got interrupted while waiting for the value of key " + key, e);
+      } catch (ExecutionException e) {
+        // never completed exceptionally
+        throw new CacheException("Error waiting for the value of key " + key + ".  Cause: " + e, e);
+      }
+      // the value has been put or the loader gave up, in which case one of the waiters becomes the next loader
+    }
+  }
+
+  private void completeFlight(Object key, boolean loaded) {
+    Flight flight = flights.get(key);
+    // any thread putting a value releases the waiters, but only the loader can give up
+    if (flight != null && (loaded || flight.loader == Thread.currentThread()) && flights.remove(key, flight)) {
+      flight.future.complete(null);
+    }
+  }
+
+  private void keepStaleValue(Object key, Object value) {
+    Object staleValue = value;
+    Serializer target = serializer;
+    if (value != null && target != null) {
+      // a read-write cache must not share the instance it was given
+      try {
+        staleValue = target.serialize(value);
+      } catch (CacheException e) {
+        staleValue = null;
+      }
+    }
+    staleLock.lock();
+    try {
+      removeGarbageCollectedItems();
+      if (staleValue == null) {
+        staleValues.remove(key);
+      } else {
+        // the least recently used key is dropped once staleSize keys are kept
+        staleValues.put(key, new StaleEntry(key, staleValue, queueOfGarbageCollectedEntries));
+      }
+    } finally {
+      staleLock.unlock();
+    }
+  }
+
+  private Object getStaleValue(Object key) {
+    Object staleValue;
+    staleLock.lock();
+    try {
+      StaleEntry entry = staleValues.get(key);
+      staleValue = entry == null ? null : entry.get();
+    } finally {
+      staleLock.unlock();
+    }
+    Serializer target = serializer;
+    return staleValue == null || target == null ? staleValue : target.deserialize((byte[]) staleValue);
+  }
+
+  private void removeGarbageCollectedItems() {
+    StaleEntry entry;
+    while ((entry = (StaleEntry) queueOfGarbageCollectedEntries.poll()) != null) {
+      staleValues.remove(entry.key, entry);
+    }
   }
 
   private ReentrantLock getLockForKey(Object key) {
@@ -119,4 +282,62 @@ public class BlockingCache implements Cache {
   public void setTimeout(long timeout) {
     this.timeout = timeout;
   }
+
+  /**
+   * @since 3.5.3
+   */
+  public boolean isSingleFlight() {
+    return singleFlight;
+  }
+
+  /**
+   * @since 3.5.3
+   */
+  public void setSingleFlight(boolean singleFlight) {
+    this.singleFlight = singleFlight;
+  }
+
+  /**
+   * @since 3.5.3
+   */
+  public int getStaleSize() {
+    return staleSize;
+  }
+
+  /**
+   * Sets the maximum number of keys whose last value is kept, softly referenced, for the threads that time out.
+   * Once it is reached, the least recently used key is dropped.
+   *
+   * @since 3.5.3
+   */
+  public void setStaleSize(int staleSize) {
+    this.staleSize = staleSize;
+  }
+
+  /**
+   * Sets the serializer the stale values are kept with, so that each thread timing out gets its own copy.
+   *
+   * @since 3.5.3
+   */
+  public void setSerializer(Serializer serializer) {
+    this.serializer = serializer;
+  }
+
+  private static class Flight {
+    private final Thread loader;
+    private final CompletableFuture<Void> future = new CompletableFuture<>();
+
+    Flight(Thread loader) {
+      this.loader = loader;
+    }
+  }
+
+  private static class StaleEntry extends SoftReference<Object> {
+    private final Object key;
+
+    StaleEntry(Object key, Object value, ReferenceQueue<Object> garbageCollectionQueue) {
+      super(value, garbageCollectionQueue);
+      this.key = key;
+    }
+  }
 }
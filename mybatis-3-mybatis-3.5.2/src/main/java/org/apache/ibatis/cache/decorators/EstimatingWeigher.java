@@ -0,0 +1,158 @@
+/**
+ *    Copyright ${license.git.copyrightYears} the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache.decorators;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.ibatis.cache.Weigher;
+
+/**
+ * Estimates the size in bytes of an entry by walking the object graph of its value, assuming compressed
+ * references. Serialized values are weighed exactly. The walk is bounded in depth, so that deep graphs are
+ * only partially counted, and objects that are referenced several times are counted once.
+ */
+class EstimatingWeigher implements Weigher {
+
+  private static final int OBJECT_HEADER = 16;
+  private static final int REFERENCE = 4;
+  private static final int KEY_WEIGHT = 64;
+  private static final int MAXIMUM_DEPTH = 8;
+
+  // kept with each class rather than in a map, so that the class loaders of the weighed classes can be unloaded
+  private static final ClassValue<List<Field>> fieldsCache = new ClassValue<List<Field>>() {
+    @Override
+    protected List<Field> computeValue(Class<?> type) {
+      return findFields(type);
+    }
+  };
+
+  @Override
+  public long weigh(Object key, Object value) {
+    return KEY_WEIGHT + weigh(value, Collections.newSetFromMap(new IdentityHashMap<>()), 0);
+  }
+
+  private long weigh(Object object, Set<Object> visited, int depth) {
+    if (object == null || !visited.add(object)) {
+      return 0;
+    }
+    Class<?> type = object.getClass();
+    if (type.isArray()) {
+      return weighArray(object, type.getComponentType(), visited, depth);
+    }
+    if (object instanceof CharSequence) {
+      return OBJECT_HEADER + 24 + 2L * ((CharSequence) object).length();
+    }
+    if (object instanceof Number || object instanceof Boolean || object instanceof Character || object instanceof Enum) {
+      return 24;
+    }
+    if (depth >= MAXIMUM_DEPTH || isInternal(type)) {
+      return OBJECT_HEADER;
+    }
+    if (object instanceof Collection) {
+      long weight = OBJECT_HEADER + 32 + 16L * ((Collection<?>) object).size();
+      for (Object element : (Collection<?>) object) {
+        weight += weigh(element, visited, depth + 1);
+      }
+      return weight;
+    }
+    if (object instanceof Map) {
+      long weight = OBJECT_HEADER + 48 + 32L * ((Map<?, ?>) object).size();
+      for (Map.Entry<?, ?> entry : ((Map<?, ?>) object).entrySet()) {
+        weight += weigh(entry.getKey(), visited, depth + 1);
+        weight += weigh(entry.getValue(), visited, depth + 1);
+      }
+      return weight;
+    }
+    long weight = OBJECT_HEADER;
+    for (Field field : getFields(type)) {
+      Class<?> fieldType = field.getType();
+      if (fieldType.isPrimitive()) {
+        weight += primitiveSize(fieldType);
+      } else {
+        weight += REFERENCE;
+        try {
+          weight += weigh(field.get(object), visited, depth + 1);
+        } catch (IllegalAccessException e) {
+          // not counted
+        }
+      }
+    }
+    return weight;
+  }
+
+  private long weighArray(Object array, Class<?> componentType, Set<Object> visited, int depth) {
+    int length = Array.getLength(array);
+    if (componentType.isPrimitive()) {
+      return OBJECT_HEADER + (long) length * primitiveSize(componentType);
+    }
+    long weight = OBJECT_HEADER + (long) length * REFERENCE;
+    if (depth < MAXIMUM_DEPTH) {
+      for (int i = 0; i < length; i++) {
+        weight += weigh(Array.get(array, i), visited, depth + 1);
+      }
+    }
+    return weight;
+  }
+
+  private static boolean isInternal(Class<?> type) {
+    // e.g. the handler of a lazy loading proxy, which references the executor and the whole configuration
+    String name = type.getName();
+    return name.startsWith("org.apache.ibatis.executor.") || name.startsWith("org.apache.ibatis.session.");
+  }
+
+  private static List<Field> getFields(Class<?> type) {
+    return fieldsCache.get(type);
+  }
+
+  private static List<Field> findFields(Class<?> type) {
+    List<Field> fields = new ArrayList<>();
+    for (Class<?> current = type; current != null && current != Object.class; current = current.getSuperclass()) {
+      for (Field field : current.getDeclaredFields()) {
+        if (Modifier.isStatic(field.getModifiers())) {
+          continue;
+        }
+        try {
+          field.setAccessible(true);
+          fields.add(field);
+        } catch (RuntimeException e) {
+          // fields of modules that are not open are not counted
+        }
+      }
+    }
+    return fields;
+  }
+
+  private static int primitiveSize(Class<?> type) {
+    if (type == long.class || type == double.class) {
+      return 8;
+    } else if (type == int.class || type == float.class) {
+      return 4;
+    } else if (type == short.class || type == char.class) {
+      return 2;
+    }
+    return 1;
+  }
+
+}
@@ -16,24 +16,31 @@
 package org.apache.ibatis.cache.decorators;
 
 import java.util.Deque;
-import java.util.LinkedList;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.cache.CacheStatistics;
+import org.apache.ibatis.cache.ThreadSafeCache;
 
 /**
  * FIFO (first in, first out) cache decorator.
  *
  * @author Clinton Begin
  */
-public class FifoCache implements Cache {
+public class FifoCache implements Cache, ThreadSafeCache {
 
   private final Cache delegate;
   private final Deque<Object> keyList;
-  private int size;
+  // the size of a concurrent deque is not a constant-time operation
+  private final AtomicInteger keyCount;
+  private volatile int size;
+  private volatile CacheStatistics statistics;
 
   public FifoCache(Cache delegate) {
     this.delegate = delegate;
-    this.keyList = new LinkedList<>();
+    this.keyList = new ConcurrentLinkedDeque<>();
+    this.keyCount = new AtomicInteger();
     this.size = 1024;
   }
 
@@ -51,10 +58,20 @@ public class FifoCache implements Cache {
     this.size = size;
   }
 
+  /**
+   * Sets the statistics the evictions are recorded to.
+   *
+   * @since 3.5.3
+   */
+  public void setStatistics(CacheStatistics statistics) {
+    this.statistics = statistics;
+  }
+
   @Override
   public void putObject(Object key, Object value) {
-    cycleKeyList(key);
+    // put first so that a key polled by another thread is always in the delegate already
     delegate.putObject(key, value);
+    cycleKeyList(key);
   }
 
   @Override
@@ -70,14 +87,26 @@ public class FifoCache implements Cache {
   @Override
   public void clear() {
     delegate.clear();
-    keyList.clear();
+    while (keyList.pollFirst() != null) {
+      keyCount.decrementAndGet();
+    }
   }
 
   private void cycleKeyList(Object key) {
     keyList.addLast(key);
-    if (keyList.size() > size) {
-      Object oldestKey = keyList.removeFirst();
-      delegate.removeObject(oldestKey);
+    if (keyCount.incrementAndGet() > size) {
+      Object oldestKey = keyList.pollFirst();
+      if (oldestKey != null) {
+        keyCount.decrementAndGet();
+        delegate.removeObject(oldestKey);
+        recordEviction();
+      }
+    }
+  }
+
+  private void recordEviction() {
+    if (statistics != null) {
+      statistics.recordEviction();
     }
   }
 
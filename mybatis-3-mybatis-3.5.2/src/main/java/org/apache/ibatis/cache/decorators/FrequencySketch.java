@@ -0,0 +1,110 @@
+/**
+ *    Copyright ${license.git.copyrightYears} the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache.decorators;
+
+import java.util.Arrays;
+
+/**
+ * Count-min sketch of the access frequency of cache keys, with 4-bit counters that are halved
+ * periodically so that the history of the cache ages.
+ */
+class FrequencySketch {
+
+  private static final long[] SEEDS = {
+      0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L};
+  private static final long RESET_MASK = 0x7777777777777777L;
+
+  private final long[] table;
+  private final int tableMask;
+  private final int sampleSize;
+  private int additions;
+
+  /**
+   * @param maximumSize - the maximum number of entries of the cache
+   */
+  FrequencySketch(int maximumSize) {
+    int length = Integer.highestOneBit(Math.max(maximumSize, 8) - 1) << 1;
+    this.table = new long[length];
+    this.tableMask = length - 1;
+    this.sampleSize = 10 * Math.max(maximumSize, 1);
+  }
+
+  /**
+   * Returns the estimated number of accesses to a key, up to 15.
+   *
+   * @param key - the key
+   * @return The estimated frequency
+   */
+  int frequency(Object key) {
+    int hash = key.hashCode();
+    int frequency = 15;
+    for (int i = 0; i < SEEDS.length; i++) {
+      long h = rehash(hash, i);
+      int offset = counterOffset(h);
+      frequency = Math.min(frequency, (int) ((table[(int) h & tableMask] >>> offset) & 0xfL));
+    }
+    return frequency;
+  }
+
+  /**
+   * Counts an access to a key.
+   *
+   * @param key - the key
+   */
+  void increment(Object key) {
+    int hash = key.hashCode();
+    boolean added = false;
+    for (int i = 0; i < SEEDS.length; i++) {
+      long h = rehash(hash, i);
+      int index = (int) h & tableMask;
+      int offset = counterOffset(h);
+      if (((table[index] >>> offset) & 0xfL) != 0xfL) {
+        table[index] += 1L << offset;
+        added = true;
+      }
+    }
+    if (added && ++additions == sampleSize) {
+      reset();
+    }
+  }
+
+  void clear() {
+    Arrays.fill(table, 0L);
+    additions = 0;
+  }
+
+  private void reset() {
+    for (int i = 0; i < table.length; i++) {
+      table[i] = (table[i] >>> 1) & RESET_MASK;
+    }
+    additions /= 2;
+  }
+
+  private static long rehash(int hash, int i) {
+    // the finalizer of MurmurHash3, so that all the bits of the key affect the low bits of the index
+    long h = (hash ^ SEEDS[i]) * SEEDS[i];
+    h ^= h >>> 33;
+    h *= 0xff51afd7ed558ccdL;
+    h ^= h >>> 33;
+    return h;
+  }
+
+  private static int counterOffset(long h) {
+    // one of the 16 counters of a slot, chosen with bits that are not used for the index
+    return (int) ((h >>> 32) & 15) << 2;
+  }
+
+}
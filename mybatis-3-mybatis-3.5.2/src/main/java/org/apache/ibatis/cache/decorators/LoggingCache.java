@@ -16,22 +16,53 @@
 package org.apache.ibatis.cache.decorators;
 
 import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.cache.CacheStatistics;
+import org.apache.ibatis.cache.ThreadSafeCache;
 import org.apache.ibatis.logging.Log;
 import org.apache.ibatis.logging.LogFactory;
 
 /**
  * @author Clinton Begin
  */
-public class LoggingCache implements Cache {
+public class LoggingCache implements Cache, ThreadSafeCache {
 
   private final Log log;
   private final Cache delegate;
+  private final CacheStatistics statistics;
+  /**
+   * @deprecated Since 3.5.3, a copy of the statistics kept for subclasses, updated only when they are read or
+   * logged. Use {@link #getStatistics()} instead.
+   */
+  @Deprecated
   protected int requests = 0;
+  /**
+   * @deprecated Since 3.5.3, a copy of the statistics kept for subclasses, updated only when they are read or
+   * logged. Use {@link #getStatistics()} instead.
+   */
+  @Deprecated
   protected int hits = 0;
 
   public LoggingCache(Cache delegate) {
+    this(delegate, new CacheStatistics(delegate.getId()));
+  }
+
+  /**
+   * @param delegate - the cache
+   * @param statistics - the statistics the hits, misses and puts are recorded to
+   * @since 3.5.3
+   */
+  public LoggingCache(Cache delegate, CacheStatistics statistics) {
     this.delegate = delegate;
     this.log = LogFactory.getLog(getId());
+    this.statistics = statistics;
+  }
+
+  /**
+   * @since 3.5.3
+   */
+  public CacheStatistics getStatistics() {
+    updateDeprecatedCounters();
+    return statistics;
   }
 
   @Override
@@ -47,17 +78,20 @@ public class LoggingCache implements Cache {
   @Override
   public void putObject(Object key, Object object) {
     delegate.putObject(key, object);
+    statistics.recordPut();
   }
 
   @Override
   public Object getObject(Object key) {
-    requests++;
     final Object value = delegate.getObject(key);
     if (value != null) {
-      hits++;
+      statistics.recordHit();
+    } else {
+      statistics.recordMiss();
     }
     if (log.isDebugEnabled()) {
-      log.debug("Cache Hit Ratio [" + getId() + "]: " + getHitRatio());
+      updateDeprecatedCounters();
+      log.debug("Cache Hit Ratio [" + getId() + "]: " + statistics.getHitRatio());
     }
     return value;
   }
@@ -72,6 +106,12 @@ public class LoggingCache implements Cache {
     delegate.clear();
   }
 
+  private void updateDeprecatedCounters() {
+    long hitCount = statistics.getHits();
+    hits = (int) hitCount;
+    requests = (int) (hitCount + statistics.getMisses());
+  }
+
   @Override
   public int hashCode() {
     return delegate.hashCode();
@@ -82,8 +122,4 @@ public class LoggingCache implements Cache {
     return delegate.equals(obj);
   }
 
-  private double getHitRatio() {
-    return (double) hits / (double) requests;
-  }
-
 }
@@ -15,27 +15,74 @@
  */
 package org.apache.ibatis.cache.decorators;
 
+import java.io.Serializable;
+import java.util.concurrent.ConcurrentHashMap;
+
 import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.cache.CacheStatistics;
+import org.apache.ibatis.cache.RefreshAhead;
+import org.apache.ibatis.cache.ThreadSafeCache;
 
 /**
+ * Clears the whole cache every clear interval. When a time to live or a refresh ahead is set, each entry expires on
+ * its own instead, after the time to live or the clear interval, whichever is shorter, so that the entries do not all
+ * expire at once.
+ * <p>
+ * With refresh ahead, the first reader of an entry that is about to expire is still served the current value, and
+ * asks the executor through {@link RefreshAhead} to reload the entry in the background.
+ *
  * @author Clinton Begin
  */
-public class ScheduledCache implements Cache {
+public class ScheduledCache implements Cache, ThreadSafeCache {
+
+  private static final int MAX_REFRESHES = 1024;
 
   private final Cache delegate;
-  protected long clearInterval;
-  protected long lastClear;
+  protected volatile long clearInterval;
+  protected volatile long lastClear;
+  protected volatile long timeToLive;
+  protected volatile long refreshAhead;
+  private final ConcurrentHashMap<Object, Long> refreshes;
+  private volatile CacheStatistics statistics;
 
   public ScheduledCache(Cache delegate) {
     this.delegate = delegate;
     this.clearInterval = 60 * 60 * 1000; // 1 hour
     this.lastClear = System.currentTimeMillis();
+    this.refreshes = new ConcurrentHashMap<>();
   }
 
   public void setClearInterval(long clearInterval) {
     this.clearInterval = clearInterval;
   }
 
+  /**
+   * Sets the time in milliseconds after which an entry expires, or 0 for entries to live until the cache is cleared.
+   *
+   * @since 3.5.3
+   */
+  public void setTimeToLive(long timeToLive) {
+    this.timeToLive = timeToLive;
+  }
+
+  /**
+   * Sets how long in milliseconds before its expiration an entry that is read gets reloaded in the background.
+   *
+   * @since 3.5.3
+   */
+  public void setRefreshAhead(long refreshAhead) {
+    this.refreshAhead = refreshAhead;
+  }
+
+  /**
+   * Sets the statistics the expired entries are recorded to as evictions.
+   *
+   * @since 3.5.3
+   */
+  public void setStatistics(CacheStatistics statistics) {
+    this.statistics = statistics;
+  }
+
   @Override
   public String getId() {
     return delegate.getId();
@@ -50,23 +97,57 @@ public class ScheduledCache implements Cache {
   @Override
   public void putObject(Object key, Object object) {
     clearWhenStale();
-    delegate.putObject(key, object);
+    if (refreshes.remove(key) == null && RefreshAhead.isRefreshing()) {
+      // the entry has been cleared, removed or put again while it was reloaded
+      return;
+    }
+    if (!expiresPerEntry()) {
+      delegate.putObject(key, object);
+      return;
+    }
+    long ttl = timeToLive;
+    long lifetime = ttl > 0 ? Math.min(ttl, clearInterval) : clearInterval;
+    long now = System.currentTimeMillis();
+    long expiration = lifetime < Long.MAX_VALUE - now ? now + lifetime : Long.MAX_VALUE;
+    delegate.putObject(key, new TimedValue(object, expiration));
   }
 
   @Override
   public Object getObject(Object key) {
-    return clearWhenStale() ? null : delegate.getObject(key);
+    if (clearWhenStale()) {
+      return null;
+    }
+    Object value = delegate.getObject(key);
+    if (!(value instanceof TimedValue)) {
+      return value;
+    }
+    TimedValue timedValue = (TimedValue) value;
+    long now = System.currentTimeMillis();
+    if (now >= timedValue.expiration) {
+      CacheStatistics target = statistics;
+      if (delegate.removeObject(key) != null && target != null) {
+        target.recordEviction();
+      }
+      return null;
+    }
+    long ahead = refreshAhead;
+    if (ahead > 0 && now >= timedValue.expiration - ahead && startRefresh(key, now, ahead)) {
+      RefreshAhead.request();
+    }
+    return timedValue.value;
   }
 
   @Override
   public Object removeObject(Object key) {
     clearWhenStale();
+    refreshes.remove(key);
     return delegate.removeObject(key);
   }
 
   @Override
   public void clear() {
     lastClear = System.currentTimeMillis();
+    refreshes.clear();
     delegate.clear();
   }
 
@@ -80,12 +161,40 @@ public class ScheduledCache implements Cache {
     return delegate.equals(obj);
   }
 
+  private boolean expiresPerEntry() {
+    return timeToLive > 0 || refreshAhead > 0;
+  }
+
   private boolean clearWhenStale() {
-    if (System.currentTimeMillis() - lastClear > clearInterval) {
+    if (!expiresPerEntry() && System.currentTimeMillis() - lastClear > clearInterval) {
       clear();
       return true;
     }
     return false;
   }
 
+  private boolean startRefresh(Object key, long now, long ahead) {
+    Long started = refreshes.get(key);
+    if (started != null && now - started < ahead) {
+      // already being reloaded
+      return false;
+    }
+    if (refreshes.size() >= MAX_REFRESHES) {
+      // reloads that were never completed, e.g. that failed
+      refreshes.values().removeIf(time -> now - time >= ahead);
+    }
+    return started == null ? refreshes.putIfAbsent(key, now) == null : refreshes.replace(key, started, now);
+  }
+
+  private static class TimedValue implements Serializable {
+    private static final long serialVersionUID = 1L;
+    private final Object value;
+    private final long expiration;
+
+    TimedValue(Object value, long expiration) {
+      this.value = value;
+      this.expiration = expiration;
+    }
+  }
+
 }
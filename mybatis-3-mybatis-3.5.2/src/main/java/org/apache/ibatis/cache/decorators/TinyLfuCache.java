@@ -0,0 +1,243 @@
+/**
+ *    Copyright ${license.git.copyrightYears} the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache.decorators;
+
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.cache.CacheStatistics;
+import org.apache.ibatis.cache.ThreadSafeCache;
+
+/**
+ * W-TinyLFU cache decorator.
+ * <p>
+ * New keys enter a small LRU window. A key leaving the window is only admitted to the main segmented LRU if
+ * it has been accessed more often than the key that would be evicted to make room for it, according to a
+ * {@link FrequencySketch}, so that one-off lookups and scans do not flush the frequently used entries.
+ * <p>
+ * Reads do not update the policy directly: the keys that are hit are recorded in a lossy buffer that is
+ * drained by whichever thread holds the policy lock next, so reads never wait for the lock.
+ *
+ * @since 3.5.3
+ */
+public class TinyLfuCache implements Cache, ThreadSafeCache {
+
+  private static final int READ_BUFFER_SIZE = 128;
+  private static final int READ_BUFFER_MASK = READ_BUFFER_SIZE - 1;
+  private static final int DRAIN_THRESHOLD = READ_BUFFER_SIZE / 4;
+
+  private final Cache delegate;
+  private final ReentrantLock evictionLock = new ReentrantLock();
+  private final AtomicReferenceArray<Object> readBuffer = new AtomicReferenceArray<>(READ_BUFFER_SIZE);
+  private final AtomicLong readBufferWriteCount = new AtomicLong();
+  private volatile long readBufferReadCount;
+
+  // insertion ordered sets used as LRU queues, guarded by the eviction lock
+  private final LinkedHashSet<Object> window = new LinkedHashSet<>();
+  private final LinkedHashSet<Object> probation = new LinkedHashSet<>();
+  private final LinkedHashSet<Object> protectedKeys = new LinkedHashSet<>();
+  private FrequencySketch sketch;
+  private int maximumSize;
+  private int maximumWindowSize;
+  private int maximumProtectedSize;
+  private volatile CacheStatistics statistics;
+
+  public TinyLfuCache(Cache delegate) {
+    this.delegate = delegate;
+    setSize(1024);
+  }
+
+  @Override
+  public String getId() {
+    return delegate.getId();
+  }
+
+  @Override
+  public int getSize() {
+    return delegate.getSize();
+  }
+
+  public void setSize(int size) {
+    evictionLock.lock();
+    try {
+      this.maximumSize = Math.max(size, 1);
+      // 1% for the window and 80% of the rest for the protected segment
+      this.maximumWindowSize = Math.max(maximumSize / 100, 1);
+      this.maximumProtectedSize = (int) ((maximumSize - maximumWindowSize) * 0.8);
+      this.sketch = new FrequencySketch(maximumSize);
+    } finally {
+      evictionLock.unlock();
+    }
+  }
+
+  /**
+   * Sets the statistics the evictions are recorded to.
+   *
+   * @since 3.5.3
+   */
+  public void setStatistics(CacheStatistics statistics) {
+    this.statistics = statistics;
+  }
+
+  @Override
+  public void putObject(Object key, Object value) {
+    delegate.putObject(key, value);
+    evictionLock.lock();
+    try {
+      drainReadBuffer();
+      if (!onAccess(key)) {
+        sketch.increment(key);
+        window.add(key);
+        evict();
+      }
+    } finally {
+      evictionLock.unlock();
+    }
+  }
+
+  @Override
+  public Object getObject(Object key) {
+    Object value = delegate.getObject(key);
+    if (value != null) {
+      recordRead(key);
+    }
+    return value;
+  }
+
+  @Override
+  public Object removeObject(Object key) {
+    evictionLock.lock();
+    try {
+      drainReadBuffer();
+      if (!window.remove(key) && !probation.remove(key)) {
+        protectedKeys.remove(key);
+      }
+    } finally {
+      evictionLock.unlock();
+    }
+    return delegate.removeObject(key);
+  }
+
+  @Override
+  public void clear() {
+    evictionLock.lock();
+    try {
+      drainReadBuffer();
+      window.clear();
+      probation.clear();
+      protectedKeys.clear();
+      sketch.clear();
+      delegate.clear();
+    } finally {
+      evictionLock.unlock();
+    }
+  }
+
+  private void recordRead(Object key) {
+    long writeCount = readBufferWriteCount.get();
+    long pending = writeCount - readBufferReadCount;
+    // the buffer is lossy, a read that does not fit is simply not counted
+    if (pending < READ_BUFFER_SIZE && readBufferWriteCount.compareAndSet(writeCount, writeCount + 1)) {
+      readBuffer.lazySet((int) (writeCount & READ_BUFFER_MASK), key);
+      pending++;
+    }
+    if (pending >= DRAIN_THRESHOLD && evictionLock.tryLock()) {
+      try {
+        drainReadBuffer();
+      } finally {
+        evictionLock.unlock();
+      }
+    }
+  }
+
+  private void drainReadBuffer() {
+    long readCount = readBufferReadCount;
+    long writeCount = readBufferWriteCount.get();
+    while (readCount < writeCount) {
+      int index = (int) (readCount & READ_BUFFER_MASK);
+      Object key = readBuffer.get(index);
+      if (key == null) {
+        // the slot was claimed but the key is not published yet
+        break;
+      }
+      readBuffer.lazySet(index, null);
+      onAccess(key);
+      readCount++;
+    }
+    readBufferReadCount = readCount;
+  }
+
+  private boolean onAccess(Object key) {
+    if (window.remove(key)) {
+      window.add(key);
+    } else if (probation.remove(key)) {
+      protectedKeys.add(key);
+      if (protectedKeys.size() > maximumProtectedSize) {
+        Object demoted = removeFirst(protectedKeys);
+        probation.add(demoted);
+      }
+    } else if (protectedKeys.remove(key)) {
+      protectedKeys.add(key);
+    } else {
+      return false;
+    }
+    sketch.increment(key);
+    return true;
+  }
+
+  private void evict() {
+    while (window.size() > maximumWindowSize) {
+      Object candidate = removeFirst(window);
+      if (probation.size() + protectedKeys.size() < maximumSize - maximumWindowSize) {
+        probation.add(candidate);
+        continue;
+      }
+      LinkedHashSet<Object> victimQueue = probation.isEmpty() ? protectedKeys : probation;
+      if (victimQueue.isEmpty()) {
+        delegate.removeObject(candidate);
+        recordEviction();
+        continue;
+      }
+      Object victim = victimQueue.iterator().next();
+      if (sketch.frequency(candidate) > sketch.frequency(victim)) {
+        victimQueue.remove(victim);
+        probation.add(candidate);
+        delegate.removeObject(victim);
+      } else {
+        delegate.removeObject(candidate);
+      }
+      recordEviction();
+    }
+  }
+
+  private static Object removeFirst(LinkedHashSet<Object> queue) {
+    Iterator<Object> iterator = queue.iterator();
+    Object first = iterator.next();
+    iterator.remove();
+    return first;
+  }
+
+  private void recordEviction() {
+    if (statistics != null) {
+      statistics.recordEviction();
+    }
+  }
+
+}
@@ -15,12 +15,16 @@
  */
 package org.apache.ibatis.cache.decorators;
 
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.Map;
 import java.util.Set;
 
 import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.cache.TableDependencyIndex;
 import org.apache.ibatis.logging.Log;
 import org.apache.ibatis.logging.LogFactory;
 
@@ -43,12 +47,23 @@ public class TransactionalCache implements Cache {
   private boolean clearOnCommit;
   private final Map<Object, Object> entriesToAddOnCommit;
   private final Set<Object> entriesMissedInCache;
+  private final TableDependencyIndex tableIndex;
+  private final Map<Object, Collection<String>> tablesOfEntriesToAdd;
 
   public TransactionalCache(Cache delegate) {
+    this(delegate, null);
+  }
+
+  /**
+   * @since 3.5.3
+   */
+  public TransactionalCache(Cache delegate, TableDependencyIndex tableIndex) {
     this.delegate = delegate;
     this.clearOnCommit = false;
     this.entriesToAddOnCommit = new HashMap<>();
     this.entriesMissedInCache = new HashSet<>();
+    this.tableIndex = tableIndex;
+    this.tablesOfEntriesToAdd = new HashMap<>();
   }
 
   @Override
@@ -81,6 +96,16 @@ public class TransactionalCache implements Cache {
     entriesToAddOnCommit.put(key, object);
   }
 
+  /**
+   * Adds an entry on commit, recording the tables it was read from.
+   *
+   * @since 3.5.3
+   */
+  public void putObject(Object key, Object object, Collection<String> tables) {
+    putObject(key, object);
+    tablesOfEntriesToAdd.put(key, tables);
+  }
+
   @Override
   public Object removeObject(Object key) {
     return null;
@@ -90,6 +115,24 @@ public class TransactionalCache implements Cache {
   public void clear() {
     clearOnCommit = true;
     entriesToAddOnCommit.clear();
+    tablesOfEntriesToAdd.clear();
+  }
+
+  /**
+   * Discards the entries to add that were read from any of the given tables, or from unknown tables.
+   *
+   * @since 3.5.3
+   */
+  public void invalidate(Collection<String> tables) {
+    Iterator<Map.Entry<Object, Collection<String>>> iterator = tablesOfEntriesToAdd.entrySet().iterator();
+    while (iterator.hasNext()) {
+      Map.Entry<Object, Collection<String>> entry = iterator.next();
+      Collection<String> entryTables = entry.getValue();
+      if (entryTables.contains(TableDependencyIndex.ANY_TABLE) || !Collections.disjoint(entryTables, tables)) {
+        entriesToAddOnCommit.remove(entry.getKey());
+        iterator.remove();
+      }
+    }
   }
 
   public void commit() {
@@ -109,11 +152,18 @@ public class TransactionalCache implements Cache {
     clearOnCommit = false;
     entriesToAddOnCommit.clear();
     entriesMissedInCache.clear();
+    tablesOfEntriesToAdd.clear();
   }
 
   private void flushPendingEntries() {
     for (Map.Entry<Object, Object> entry : entriesToAddOnCommit.entrySet()) {
-      delegate.putObject(entry.getKey(), entry.getValue());
+      if (tableIndex != null) {
+        Collection<String> tables = tablesOfEntriesToAdd.get(entry.getKey());
+        tableIndex.putObject(delegate, entry.getKey(), entry.getValue(),
+            tables != null ? tables : Collections.singleton(TableDependencyIndex.ANY_TABLE));
+      } else {
+        delegate.putObject(entry.getKey(), entry.getValue());
+      }
     }
     for (Object entry : entriesMissedInCache) {
       if (!entriesToAddOnCommit.containsKey(entry)) {
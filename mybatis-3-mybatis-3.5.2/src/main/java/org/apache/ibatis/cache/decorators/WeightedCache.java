@@ -0,0 +1,242 @@
+/**
+ *    Copyright ${license.git.copyrightYears} the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache.decorators;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.cache.CacheException;
+import org.apache.ibatis.cache.CacheStatistics;
+import org.apache.ibatis.cache.WeightBudget;
+import org.apache.ibatis.cache.Weigher;
+import org.apache.ibatis.io.Resources;
+
+/**
+ * Weight bounded cache decorator. Entries are weighed by a {@link Weigher}, by default an estimate of their
+ * size in bytes, and the least recently used ones are evicted when the weight of the cache exceeds its
+ * maximum weight. When the weight of all the caches sharing a {@link WeightBudget} exceeds the budget, the
+ * entries are evicted from the heaviest caches, which may be others than the one that grew.
+ * <p>
+ * As the other caches of the budget evict entries from this one, the entries and the delegate are guarded by a
+ * lock of the cache. It is never held while entries are evicted from another cache.
+ *
+ * @since 3.5.3
+ */
+public class WeightedCache implements Cache {
+
+  private final Cache delegate;
+  private final Map<Object, Long> weights;
+  private final ReentrantLock lock = new ReentrantLock();
+  private final WeightBudget.Member member = new BudgetMember();
+  private Weigher weigher;
+  private long maximumWeight;
+  private volatile long weight;
+  private WeightBudget weightBudget;
+  private CacheStatistics statistics;
+
+  public WeightedCache(Cache delegate) {
+    this.delegate = delegate;
+    this.weights = new LinkedHashMap<>(16, .75F, true);
+    this.weigher = new EstimatingWeigher();
+    this.maximumWeight = 10 * 1024 * 1024; // 10 MB
+  }
+
+  @Override
+  public String getId() {
+    return delegate.getId();
+  }
+
+  @Override
+  public int getSize() {
+    lock.lock();
+    try {
+      return delegate.getSize();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  public long getWeight() {
+    return weight;
+  }
+
+  public long getMaximumWeight() {
+    return maximumWeight;
+  }
+
+  public void setMaximumWeight(long maximumWeight) {
+    this.maximumWeight = maximumWeight;
+  }
+
+  public void setWeigher(Weigher weigher) {
+    this.weigher = weigher;
+  }
+
+  /**
+   * Sets the weigher by its class name, for caches configured in XML.
+   *
+   * @param type - the fully qualified name of a {@link Weigher} implementation
+   */
+  public void setWeigherType(String type) {
+    try {
+      this.weigher = (Weigher) Resources.classForName(type).getDeclaredConstructor().newInstance();
+    } catch (Exception e) {
+      throw new CacheException("Error creating weigher of type '" + type + "'.  Cause: " + e, e);
+    }
+  }
+
+  public void setWeightBudget(WeightBudget weightBudget) {
+    lock.lock();
+    try {
+      if (this.weightBudget != null) {
+        this.weightBudget.leave(member);
+        this.weightBudget.add(-weight);
+      }
+      this.weightBudget = weightBudget;
+      if (weightBudget != null) {
+        weightBudget.add(weight);
+        weightBudget.join(member);
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Sets the statistics the evictions and the weight are recorded to.
+   *
+   * @since 3.5.3
+   */
+  public void setStatistics(CacheStatistics statistics) {
+    lock.lock();
+    try {
+      if (this.statistics != null) {
+        this.statistics.addWeight(-weight);
+      }
+      this.statistics = statistics;
+      if (statistics != null) {
+        statistics.addWeight(weight);
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public void putObject(Object key, Object value) {
+    long entryWeight = weigher.weigh(key, value);
+    WeightBudget budget;
+    lock.lock();
+    try {
+      delegate.putObject(key, value);
+      Long previous = weights.put(key, entryWeight);
+      addWeight(previous == null ? entryWeight : entryWeight - previous);
+      while (weight > maximumWeight && evictEldest()) {
+        // evict until within the maximum weight of this cache
+      }
+      budget = weightBudget;
+    } finally {
+      lock.unlock();
+    }
+    if (budget != null) {
+      budget.evict();
+    }
+  }
+
+  @Override
+  public Object getObject(Object key) {
+    lock.lock();
+    try {
+      weights.get(key); // touch
+      return delegate.getObject(key);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public Object removeObject(Object key) {
+    lock.lock();
+    try {
+      Long entryWeight = weights.remove(key);
+      if (entryWeight != null) {
+        addWeight(-entryWeight);
+      }
+      return delegate.removeObject(key);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public void clear() {
+    lock.lock();
+    try {
+      delegate.clear();
+      weights.clear();
+      addWeight(-weight);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private boolean evictEldest() {
+    Iterator<Map.Entry<Object, Long>> iterator = weights.entrySet().iterator();
+    if (!iterator.hasNext()) {
+      return false;
+    }
+    Map.Entry<Object, Long> eldest = iterator.next();
+    iterator.remove();
+    addWeight(-eldest.getValue());
+    delegate.removeObject(eldest.getKey());
+    if (statistics != null) {
+      statistics.recordEviction();
+    }
+    return true;
+  }
+
+  private void addWeight(long delta) {
+    weight += delta;
+    if (weightBudget != null) {
+      weightBudget.add(delta);
+    }
+    if (statistics != null) {
+      statistics.addWeight(delta);
+    }
+  }
+
+  private class BudgetMember implements WeightBudget.Member {
+
+    @Override
+    public long getWeight() {
+      return weight;
+    }
+
+    @Override
+    public boolean evictEldest() {
+      lock.lock();
+      try {
+        return WeightedCache.this.evictEldest();
+      } finally {
+        lock.unlock();
+      }
+    }
+  }
+
+}
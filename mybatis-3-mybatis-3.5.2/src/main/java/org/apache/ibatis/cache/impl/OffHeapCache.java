@@ -0,0 +1,445 @@
+/**
+ *    Copyright ${license.git.copyrightYears} the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache.impl;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.cache.CacheException;
+import org.apache.ibatis.cache.CacheStatistics;
+import org.apache.ibatis.cache.Serializer;
+import org.apache.ibatis.cache.ThreadSafeCache;
+import org.apache.ibatis.cache.serializer.JdkSerializer;
+import org.apache.ibatis.io.Resources;
+
+/**
+ * Cache that keeps its values serialized in direct memory, outside of the Java heap, so that large caches
+ * do not make garbage collection slower. Only the keys and a small index stay on the heap.
+ * <p>
+ * Direct memory is allocated in pages of {@link #setPageSize(int) pageSize} bytes, up to
+ * {@link #setMaximumMemory(long) maximumMemory} bytes. Each page is split in chunks of one size class, the
+ * sizes doubling from 64 bytes to the page size, and a value is stored in the smallest chunk it fits in.
+ * A page whose chunks are all free goes back to a shared pool and can be reused by any size class.
+ * When there is no free chunk and no page can be allocated, the least recently used value is evicted;
+ * if it belongs to another size class, all the values of its page are evicted to free the page.
+ * Values larger than a page are not cached.
+ * <p>
+ * Every read returns a new copy, as with a read-write cache.
+ *
+ * @since 3.5.3
+ */
+public class OffHeapCache implements Cache, ThreadSafeCache {
+
+  private static final int MINIMUM_CHUNK_SIZE = 64;
+
+  private final String id;
+  private final ReentrantLock lock = new ReentrantLock();
+  private final Map<Object, Entry> entries = new HashMap<>();
+  private final List<Page> pages = new ArrayList<>();
+  private final ArrayDeque<Page> freePages = new ArrayDeque<>();
+  private SizeClass[] sizeClasses;
+  private int pageSize = 1024 * 1024; // 1 MB
+  private long maximumMemory = 64 * 1024 * 1024; // 64 MB
+  private volatile Serializer serializer = new JdkSerializer();
+  private volatile CacheStatistics statistics;
+  private long clock;
+
+  public OffHeapCache(String id) {
+    this.id = id;
+  }
+
+  @Override
+  public String getId() {
+    return id;
+  }
+
+  public int getPageSize() {
+    return pageSize;
+  }
+
+  /**
+   * Sets the size of the pages of direct memory, which is also the size of the largest value that can be cached.
+   * Changing it drops the cached values.
+   *
+   * @param pageSize - the size in bytes, at least 64
+   */
+  public void setPageSize(int pageSize) {
+    if (pageSize < MINIMUM_CHUNK_SIZE) {
+      throw new CacheException("The page size of an off-heap cache must be at least " + MINIMUM_CHUNK_SIZE + " bytes.");
+    }
+    lock.lock();
+    try {
+      this.pageSize = pageSize;
+      reset();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  public Serializer getSerializer() {
+    return serializer;
+  }
+
+  public void setSerializer(Serializer serializer) {
+    this.serializer = serializer;
+  }
+
+  /**
+   * Sets the serializer by its class name, for caches configured in XML.
+   *
+   * @param type - the fully qualified name of a {@link Serializer} implementation
+   */
+  public void setSerializerType(String type) {
+    try {
+      this.serializer = (Serializer) Resources.classForName(type).getDeclaredConstructor().newInstance();
+    } catch (Exception e) {
+      throw new CacheException("Error creating serializer of type '" + type + "'.  Cause: " + e, e);
+    }
+  }
+
+  /**
+   * Sets the statistics the evictions are recorded to.
+   *
+   * @since 3.5.3
+   */
+  public void setStatistics(CacheStatistics statistics) {
+    this.statistics = statistics;
+  }
+
+  public long getMaximumMemory() {
+    return maximumMemory;
+  }
+
+  /**
+   * Sets the maximum amount of direct memory used by this cache. Changing it drops the cached values.
+   *
+   * @param maximumMemory - the size in bytes
+   */
+  public void setMaximumMemory(long maximumMemory) {
+    lock.lock();
+    try {
+      this.maximumMemory = maximumMemory;
+      reset();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Returns the amount of direct memory allocated by this cache.
+   *
+   * @return The size in bytes
+   */
+  public long getAllocatedMemory() {
+    lock.lock();
+    try {
+      return (long) pages.size() * pageSize;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public int getSize() {
+    lock.lock();
+    try {
+      return entries.size();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public void putObject(Object key, Object value) {
+    byte[] bytes = serializer.serialize(value);
+    lock.lock();
+    try {
+      remove(key);
+      SizeClass sizeClass = sizeClassOf(bytes.length);
+      if (sizeClass == null) {
+        return;
+      }
+      Page page = pageWithFreeChunk(sizeClass);
+      if (page == null) {
+        return;
+      }
+      int offset = take(page, key);
+      ByteBuffer buffer = page.buffer.duplicate(); // a duplicate has its own position
+      buffer.position(offset);
+      buffer.put(bytes);
+      Entry entry = new Entry(key, page, offset, bytes.length);
+      entry.lastUsed = ++clock;
+      entries.put(key, entry);
+      sizeClass.entries.put(key, entry);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public Object getObject(Object key) {
+    byte[] bytes;
+    lock.lock();
+    try {
+      Entry entry = entries.get(key);
+      if (entry == null) {
+        return null;
+      }
+      entry.page.sizeClass.entries.get(key); // touch
+      entry.lastUsed = ++clock;
+      bytes = new byte[entry.length];
+      ByteBuffer buffer = entry.page.buffer.duplicate();
+      buffer.position(entry.offset);
+      buffer.get(bytes);
+    } finally {
+      lock.unlock();
+    }
+    return serializer.deserialize(bytes);
+  }
+
+  @Override
+  public Object removeObject(Object key) {
+    lock.lock();
+    try {
+      remove(key);
+    } finally {
+      lock.unlock();
+    }
+    return null;
+  }
+
+  @Override
+  public void clear() {
+    lock.lock();
+    try {
+      entries.clear();
+      if (sizeClasses != null) {
+        for (SizeClass sizeClass : sizeClasses) {
+          sizeClass.entries.clear();
+          sizeClass.pages.clear();
+        }
+      }
+      freePages.clear();
+      for (Page page : pages) {
+        page.sizeClass = null;
+        freePages.push(page);
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void reset() {
+    entries.clear();
+    pages.clear();
+    freePages.clear();
+    sizeClasses = null;
+  }
+
+  private void remove(Object key) {
+    Entry entry = entries.remove(key);
+    if (entry != null) {
+      entry.page.sizeClass.entries.remove(key);
+      release(entry.page, entry.offset);
+    }
+  }
+
+  private SizeClass sizeClassOf(int length) {
+    if (sizeClasses == null) {
+      List<SizeClass> classes = new ArrayList<>();
+      for (long chunkSize = MINIMUM_CHUNK_SIZE; chunkSize < pageSize; chunkSize *= 2) {
+        classes.add(new SizeClass((int) chunkSize));
+      }
+      classes.add(new SizeClass(pageSize));
+      sizeClasses = classes.toArray(new SizeClass[0]);
+    }
+    for (SizeClass sizeClass : sizeClasses) {
+      if (length <= sizeClass.chunkSize) {
+        return sizeClass;
+      }
+    }
+    return null;
+  }
+
+  private Page pageWithFreeChunk(SizeClass sizeClass) {
+    while (true) {
+      Iterator<Page> partial = sizeClass.pages.iterator();
+      if (partial.hasNext()) {
+        return partial.next();
+      }
+      Page page = freePages.poll();
+      if (page == null && (long) (pages.size() + 1) * pageSize <= maximumMemory) {
+        page = new Page(ByteBuffer.allocateDirect(pageSize));
+        pages.add(page);
+      }
+      if (page != null) {
+        page.assign(sizeClass);
+        sizeClass.pages.add(page);
+        return page;
+      }
+      Entry eldest = eldestEntry();
+      if (eldest == null) {
+        return null;
+      }
+      if (eldest.page.sizeClass == sizeClass) {
+        evict(eldest.key);
+      } else {
+        // the chunks of another size class are of no use, the whole page is freed
+        for (Object key : eldest.page.keys.clone()) {
+          if (key != null) {
+            evict(key);
+          }
+        }
+      }
+    }
+  }
+
+  private Entry eldestEntry() {
+    Entry eldest = null;
+    for (SizeClass sizeClass : sizeClasses) {
+      Iterator<Entry> iterator = sizeClass.entries.values().iterator();
+      if (iterator.hasNext()) {
+        Entry candidate = iterator.next();
+        if (eldest == null || candidate.lastUsed < eldest.lastUsed) {
+          eldest = candidate;
+        }
+      }
+    }
+    return eldest;
+  }
+
+  private void evict(Object key) {
+    remove(key);
+    CacheStatistics target = statistics;
+    if (target != null) {
+      target.recordEviction();
+    }
+  }
+
+  private int take(Page page, Object key) {
+    int offset = page.freeOffsets.pop();
+    page.keys[offset / page.sizeClass.chunkSize] = key;
+    page.used++;
+    if (page.freeOffsets.isEmpty()) {
+      page.sizeClass.pages.remove(page);
+    }
+    return offset;
+  }
+
+  private void release(Page page, int offset) {
+    SizeClass sizeClass = page.sizeClass;
+    page.keys[offset / sizeClass.chunkSize] = null;
+    page.freeOffsets.push(offset);
+    page.used--;
+    if (page.used == 0) {
+      sizeClass.pages.remove(page);
+      page.sizeClass = null;
+      freePages.push(page);
+    } else {
+      sizeClass.pages.add(page);
+    }
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (getId() == null) {
+      throw new CacheException("Cache instances require an ID.");
+    }
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof Cache)) {
+      return false;
+    }
+
+    Cache otherCache = (Cache) o;
+    return getId().equals(otherCache.getId());
+  }
+
+  @Override
+  public int hashCode() {
+    if (getId() == null) {
+      throw new CacheException("Cache instances require an ID.");
+    }
+    return getId().hashCode();
+  }
+
+  private static class SizeClass {
+
+    private final int chunkSize;
+    // pages of this size class with at least one free chunk
+    private final Set<Page> pages = new LinkedHashSet<>();
+    // least recently used first
+    private final LinkedHashMap<Object, Entry> entries = new LinkedHashMap<>(16, .75F, true);
+
+    SizeClass(int chunkSize) {
+      this.chunkSize = chunkSize;
+    }
+
+  }
+
+  private static class Page {
+
+    private final ByteBuffer buffer;
+    private final ArrayDeque<Integer> freeOffsets = new ArrayDeque<>();
+    private SizeClass sizeClass;
+    private Object[] keys;
+    private int used;
+
+    Page(ByteBuffer buffer) {
+      this.buffer = buffer;
+    }
+
+    void assign(SizeClass sizeClass) {
+      this.sizeClass = sizeClass;
+      this.keys = new Object[buffer.capacity() / sizeClass.chunkSize];
+      this.used = 0;
+      freeOffsets.clear();
+      for (int offset = 0; offset + sizeClass.chunkSize <= buffer.capacity(); offset += sizeClass.chunkSize) {
+        freeOffsets.add(offset);
+      }
+    }
+
+  }
+
+  private static class Entry {
+
+    private final Object key;
+    private final Page page;
+    private final int offset;
+    private final int length;
+    private long lastUsed;
+
+    Entry(Object key, Page page, int offset, int length) {
+      this.key = key;
+      this.page = page;
+      this.offset = offset;
+      this.length = length;
+    }
+
+  }
+
+}
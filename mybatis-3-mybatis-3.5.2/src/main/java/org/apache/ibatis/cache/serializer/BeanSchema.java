@@ -0,0 +1,134 @@
+/**
+ *    Copyright ${license.git.copyrightYears} the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache.serializer;
+
+import java.io.Externalizable;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.ibatis.reflection.Reflector;
+import org.apache.ibatis.reflection.invoker.Invoker;
+
+/**
+ * The properties of a bean that are copied, by serialization or by deep copy: the ones that can be read and
+ * written, except the transient and static fields. The properties of a class are only looked up once.
+ * <p>
+ * Classes without a default constructor, and classes that customize their Java serialization, e.g. lazy loading
+ * proxies with <code>writeReplace</code>, are not supported and must be copied with Java serialization.
+ */
+class BeanSchema {
+
+  static final BeanSchema UNSUPPORTED = new BeanSchema(null, new String[0]);
+
+  // kept with each class rather than in a map, so that the class loaders of the cached classes can be unloaded
+  private static final ClassValue<BeanSchema> schemas = new ClassValue<BeanSchema>() {
+    @Override
+    protected BeanSchema computeValue(Class<?> type) {
+      return createSchema(type);
+    }
+  };
+
+  final Reflector reflector;
+  final String[] propertyNames;
+  final Invoker[] getters;
+  final Invoker[] setters;
+
+  private BeanSchema(Reflector reflector, String[] propertyNames) {
+    this.reflector = reflector;
+    this.propertyNames = propertyNames;
+    this.getters = new Invoker[propertyNames.length];
+    this.setters = new Invoker[propertyNames.length];
+    for (int i = 0; i < propertyNames.length; i++) {
+      getters[i] = reflector.getGetInvoker(propertyNames[i]);
+      setters[i] = reflector.getSetInvoker(propertyNames[i]);
+    }
+  }
+
+  /**
+   * Returns the schema of a class.
+   *
+   * @param type - the class
+   * @return The schema, or {@link #UNSUPPORTED} if the class cannot be copied property by property
+   */
+  static BeanSchema forClass(Class<?> type) {
+    if (type.isArray() || type.getName().startsWith("java.")) {
+      return UNSUPPORTED;
+    }
+    return schemas.get(type);
+  }
+
+  Object newInstance() throws ReflectiveOperationException {
+    return reflector.getDefaultConstructor().newInstance();
+  }
+
+  /**
+   * Returns the setters of properties written by another version of the class, null for the ones that cannot be set.
+   */
+  Invoker[] settersOf(String[] names) {
+    Invoker[] invokers = new Invoker[names.length];
+    for (int i = 0; i < names.length; i++) {
+      if (reflector.hasSetter(names[i])) {
+        invokers[i] = reflector.getSetInvoker(names[i]);
+      }
+    }
+    return invokers;
+  }
+
+  private static BeanSchema createSchema(Class<?> type) {
+    Reflector reflector = new Reflector(type);
+    if (!reflector.hasDefaultConstructor() || Externalizable.class.isAssignableFrom(type)
+        || hasCustomSerialization(type)) {
+      return UNSUPPORTED;
+    }
+    List<String> names = new ArrayList<>();
+    for (String name : reflector.getGetablePropertyNames()) {
+      if (reflector.hasSetter(name) && !isTransientOrStatic(type, name)) {
+        names.add(name);
+      }
+    }
+    // keeps the serialized form stable
+    names.sort(null);
+    return new BeanSchema(reflector, names.toArray(new String[0]));
+  }
+
+  private static boolean hasCustomSerialization(Class<?> type) {
+    for (Class<?> current = type; current != null && current != Object.class; current = current.getSuperclass()) {
+      for (Method method : current.getDeclaredMethods()) {
+        String name = method.getName();
+        if ((name.equals("writeObject") || name.equals("readObject") || name.equals("writeReplace")
+            || name.equals("readResolve")) && !Modifier.isStatic(method.getModifiers())) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  private static boolean isTransientOrStatic(Class<?> type, String name) {
+    for (Class<?> current = type; current != null && current != Object.class; current = current.getSuperclass()) {
+      for (Field field : current.getDeclaredFields()) {
+        if (field.getName().equals(name)) {
+          return Modifier.isTransient(field.getModifiers()) || Modifier.isStatic(field.getModifiers());
+        }
+      }
+    }
+    return false;
+  }
+
+}
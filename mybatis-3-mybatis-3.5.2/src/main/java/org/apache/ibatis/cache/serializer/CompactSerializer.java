@@ -0,0 +1,586 @@
+/**
+ *    Copyright ${license.git.copyrightYears} the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache.serializer;
+
+import java.io.Serializable;
+import java.lang.reflect.Array;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.ibatis.cache.CacheException;
+import org.apache.ibatis.cache.Serializer;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.reflection.Reflector;
+import org.apache.ibatis.reflection.invoker.Invoker;
+
+/**
+ * Compact binary serializer for result objects.
+ * <p>
+ * Common value types, arrays, the usual lists, sets and maps, and beans with a default constructor are
+ * written with a one byte tag instead of a class descriptor, and integers and lengths are written as variable
+ * length integers. Beans are written as the values of their properties, using the {@link Reflector} metadata:
+ * the class name and the property names are written once per serialized value and the properties of a class
+ * are only looked up once. Shared and cyclic references
+ * are preserved. Objects that customize their Java serialization, e.g. with <code>writeReplace</code> like
+ * lazy loading proxies, or that have no default constructor are written with Java serialization.
+ * <p>
+ * As with Java serialization, beans must be {@link Serializable} and transient fields are not copied.
+ *
+ * @since 3.5.3
+ */
+public class CompactSerializer implements Serializer {
+
+  private static final byte NULL = 0;
+  private static final byte REFERENCE = 1;
+  private static final byte STRING = 2;
+  private static final byte INTEGER = 3;
+  private static final byte LONG = 4;
+  private static final byte SHORT = 5;
+  private static final byte BYTE = 6;
+  private static final byte DOUBLE = 7;
+  private static final byte FLOAT = 8;
+  private static final byte BOOLEAN = 9;
+  private static final byte CHARACTER = 10;
+  private static final byte BIG_DECIMAL = 11;
+  private static final byte BIG_INTEGER = 12;
+  private static final byte DATE = 13;
+  private static final byte SQL_DATE = 14;
+  private static final byte SQL_TIME = 15;
+  private static final byte SQL_TIMESTAMP = 16;
+  private static final byte BYTE_ARRAY = 17;
+  private static final byte ARRAY = 18;
+  private static final byte ARRAY_LIST = 19;
+  private static final byte LINKED_LIST = 20;
+  private static final byte HASH_SET = 21;
+  private static final byte LINKED_HASH_SET = 22;
+  private static final byte HASH_MAP = 23;
+  private static final byte LINKED_HASH_MAP = 24;
+  private static final byte ENUM = 25;
+  private static final byte BEAN_DEFINITION = 26;
+  private static final byte BEAN = 27;
+  private static final byte JAVA_SERIALIZED = 28;
+  private static final byte ENUM_DEFINITION = 29;
+
+  private static final Map<Class<?>, Byte> collectionTags = new HashMap<>();
+
+  static {
+    collectionTags.put(ArrayList.class, ARRAY_LIST);
+    collectionTags.put(LinkedList.class, LINKED_LIST);
+    collectionTags.put(HashSet.class, HASH_SET);
+    collectionTags.put(LinkedHashSet.class, LINKED_HASH_SET);
+    collectionTags.put(HashMap.class, HASH_MAP);
+    collectionTags.put(LinkedHashMap.class, LINKED_HASH_MAP);
+  }
+
+  private final JdkSerializer jdkSerializer = new JdkSerializer();
+
+  @Override
+  public byte[] serialize(Object value) {
+    Writer writer = new Writer();
+    try {
+      writer.write(value);
+    } catch (ReflectiveOperationException e) {
+      throw new CacheException("Error serializing object.  Cause: " + e, e);
+    }
+    return writer.out.toByteArray();
+  }
+
+  @Override
+  public Object deserialize(byte[] bytes) {
+    try {
+      return new Reader(bytes).read();
+    } catch (ReflectiveOperationException | IndexOutOfBoundsException e) {
+      throw new CacheException("Error deserializing object.  Cause: " + e, e);
+    }
+  }
+
+  private class Writer {
+
+    private final Output out = new Output();
+    private final Map<Object, Integer> references = new IdentityHashMap<>();
+    private final Map<Class<?>, Integer> classIds = new HashMap<>();
+
+    void write(Object value) throws ReflectiveOperationException {
+      if (value == null) {
+        out.writeByte(NULL);
+        return;
+      }
+      Class<?> type = value.getClass();
+      if (type == String.class) {
+        out.writeByte(STRING);
+        writeString((String) value);
+      } else if (type == Integer.class) {
+        out.writeByte(INTEGER);
+        int number = (Integer) value;
+        writeVarInt((number << 1) ^ (number >> 31));
+      } else if (type == Long.class) {
+        out.writeByte(LONG);
+        out.writeLong((Long) value);
+      } else if (type == Short.class) {
+        out.writeByte(SHORT);
+        out.writeShort((Short) value);
+      } else if (type == Byte.class) {
+        out.writeByte(BYTE);
+        out.writeByte((Byte) value);
+      } else if (type == Double.class) {
+        out.writeByte(DOUBLE);
+        out.writeDouble((Double) value);
+      } else if (type == Float.class) {
+        out.writeByte(FLOAT);
+        out.writeFloat((Float) value);
+      } else if (type == Boolean.class) {
+        out.writeByte(BOOLEAN);
+        out.writeBoolean((Boolean) value);
+      } else if (type == Character.class) {
+        out.writeByte(CHARACTER);
+        out.writeChar((Character) value);
+      } else if (type == BigDecimal.class) {
+        out.writeByte(BIG_DECIMAL);
+        BigDecimal decimal = (BigDecimal) value;
+        writeVarInt(decimal.scale());
+        writeBytes(decimal.unscaledValue().toByteArray());
+      } else if (type == BigInteger.class) {
+        out.writeByte(BIG_INTEGER);
+        writeBytes(((BigInteger) value).toByteArray());
+      } else if (type == Date.class) {
+        out.writeByte(DATE);
+        out.writeLong(((Date) value).getTime());
+      } else if (type == java.sql.Date.class) {
+        out.writeByte(SQL_DATE);
+        out.writeLong(((Date) value).getTime());
+      } else if (type == java.sql.Time.class) {
+        out.writeByte(SQL_TIME);
+        out.writeLong(((Date) value).getTime());
+      } else if (type == java.sql.Timestamp.class) {
+        out.writeByte(SQL_TIMESTAMP);
+        out.writeLong(((Date) value).getTime());
+        out.writeInt(((java.sql.Timestamp) value).getNanos());
+      } else if (type == byte[].class) {
+        out.writeByte(BYTE_ARRAY);
+        writeBytes((byte[]) value);
+      } else if (value instanceof Enum) {
+        writeClass(((Enum<?>) value).getDeclaringClass(), ENUM_DEFINITION, ENUM);
+        writeVarInt(((Enum<?>) value).ordinal());
+      } else if (!writeReference(value)) {
+        writeObject(value, type);
+      }
+    }
+
+    private boolean writeReference(Object value) {
+      Integer index = references.get(value);
+      if (index == null) {
+        references.put(value, references.size());
+        return false;
+      }
+      out.writeByte(REFERENCE);
+      writeVarInt(index);
+      return true;
+    }
+
+    private void writeObject(Object value, Class<?> type) throws ReflectiveOperationException {
+      Byte tag = collectionTags.get(type);
+      if (tag != null) {
+        out.writeByte(tag);
+        if (value instanceof Map) {
+          Map<?, ?> map = (Map<?, ?>) value;
+          writeVarInt(map.size());
+          for (Map.Entry<?, ?> entry : map.entrySet()) {
+            write(entry.getKey());
+            write(entry.getValue());
+          }
+        } else {
+          Collection<?> collection = (Collection<?>) value;
+          writeVarInt(collection.size());
+          for (Object element : collection) {
+            write(element);
+          }
+        }
+      } else if (type.isArray() && !type.getComponentType().isPrimitive()) {
+        out.writeByte(ARRAY);
+        writeString(type.getComponentType().getName());
+        int length = Array.getLength(value);
+        writeVarInt(length);
+        for (int i = 0; i < length; i++) {
+          write(Array.get(value, i));
+        }
+      } else {
+        BeanSchema schema = BeanSchema.forClass(type);
+        if (schema == BeanSchema.UNSUPPORTED) {
+          out.writeByte(JAVA_SERIALIZED);
+          writeBytes(jdkSerializer.serialize(value));
+        } else if (!(value instanceof Serializable)) {
+          throw new CacheException("CompactSerializer cannot serialize a non-serializable object: " + value);
+        } else {
+          writeBean(value, type, schema);
+        }
+      }
+    }
+
+    private void writeBean(Object value, Class<?> type, BeanSchema schema) throws ReflectiveOperationException {
+      if (writeClass(type, BEAN_DEFINITION, BEAN)) {
+        writeVarInt(schema.propertyNames.length);
+        for (String name : schema.propertyNames) {
+          writeString(name);
+        }
+      }
+      for (Invoker getter : schema.getters) {
+        write(getter.invoke(value, null));
+      }
+    }
+
+    /**
+     * Writes the name of a class the first time it is used and its index in the following times.
+     *
+     * @return True if the class is written for the first time
+     */
+    private boolean writeClass(Class<?> type, byte definitionTag, byte tag) {
+      Integer classId = classIds.get(type);
+      if (classId == null) {
+        classIds.put(type, classIds.size());
+        out.writeByte(definitionTag);
+        writeString(type.getName());
+        return true;
+      }
+      out.writeByte(tag);
+      writeVarInt(classId);
+      return false;
+    }
+
+    private void writeVarInt(int value) {
+      while ((value & ~0x7f) != 0) {
+        out.writeByte((value & 0x7f) | 0x80);
+        value >>>= 7;
+      }
+      out.writeByte(value);
+    }
+
+    private void writeString(String value) {
+      writeBytes(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void writeBytes(byte[] value) {
+      writeVarInt(value.length);
+      out.write(value);
+    }
+
+  }
+
+  private class Reader {
+
+    private final Input in;
+    private final List<Object> references = new ArrayList<>();
+    private final List<Class<?>> classes = new ArrayList<>();
+    private final Map<Class<?>, Invoker[]> classSetters = new HashMap<>();
+
+    Reader(byte[] bytes) {
+      this.in = new Input(bytes);
+    }
+
+    Object read() throws ReflectiveOperationException {
+      byte tag = in.readByte();
+      switch (tag) {
+        case NULL:
+          return null;
+        case REFERENCE:
+          return references.get(readVarInt());
+        case STRING:
+          return readString();
+        case INTEGER:
+          int number = readVarInt();
+          return (number >>> 1) ^ -(number & 1);
+        case LONG:
+          return in.readLong();
+        case SHORT:
+          return in.readShort();
+        case BYTE:
+          return in.readByte();
+        case DOUBLE:
+          return in.readDouble();
+        case FLOAT:
+          return in.readFloat();
+        case BOOLEAN:
+          return in.readBoolean();
+        case CHARACTER:
+          return in.readChar();
+        case BIG_DECIMAL:
+          int scale = readVarInt();
+          return new BigDecimal(new BigInteger(readBytes()), scale);
+        case BIG_INTEGER:
+          return new BigInteger(readBytes());
+        case DATE:
+          return new Date(in.readLong());
+        case SQL_DATE:
+          return new java.sql.Date(in.readLong());
+        case SQL_TIME:
+          return new java.sql.Time(in.readLong());
+        case SQL_TIMESTAMP:
+          java.sql.Timestamp timestamp = new java.sql.Timestamp(in.readLong());
+          timestamp.setNanos(in.readInt());
+          return timestamp;
+        case BYTE_ARRAY:
+          return readBytes();
+        case ENUM_DEFINITION:
+          classes.add(Resources.classForName(readString()));
+          return readEnum(classes.size() - 1);
+        case ENUM:
+          return readEnum(readVarInt());
+        case ARRAY:
+          Class<?> componentType = Resources.classForName(readString());
+          Object[] array = (Object[]) Array.newInstance(componentType, readVarInt());
+          references.add(array);
+          for (int i = 0; i < array.length; i++) {
+            array[i] = read();
+          }
+          return array;
+        case ARRAY_LIST:
+        case LINKED_LIST:
+        case HASH_SET:
+        case LINKED_HASH_SET:
+          return readCollection(tag, readVarInt());
+        case HASH_MAP:
+        case LINKED_HASH_MAP:
+          return readMap(tag, readVarInt());
+        case BEAN_DEFINITION:
+          Class<?> type = Resources.classForName(readString());
+          String[] names = new String[readVarInt()];
+          for (int i = 0; i < names.length; i++) {
+            names[i] = readString();
+          }
+          classes.add(type);
+          classSetters.put(type, BeanSchema.forClass(type).settersOf(names));
+          return readBean(type);
+        case BEAN:
+          return readBean(classes.get(readVarInt()));
+        case JAVA_SERIALIZED:
+          Object object = jdkSerializer.deserialize(readBytes());
+          references.add(object);
+          return object;
+        default:
+          throw new CacheException("Unknown tag " + tag + " in serialized object.");
+      }
+    }
+
+    private Collection<Object> readCollection(byte tag, int size) throws ReflectiveOperationException {
+      Collection<Object> collection;
+      if (tag == ARRAY_LIST) {
+        collection = new ArrayList<>(size);
+      } else if (tag == LINKED_LIST) {
+        collection = new LinkedList<>();
+      } else if (tag == HASH_SET) {
+        collection = new HashSet<>(capacity(size));
+      } else {
+        collection = new LinkedHashSet<>(capacity(size));
+      }
+      references.add(collection);
+      for (int i = 0; i < size; i++) {
+        collection.add(read());
+      }
+      return collection;
+    }
+
+    private Map<Object, Object> readMap(byte tag, int size) throws ReflectiveOperationException {
+      Map<Object, Object> map = tag == HASH_MAP ? new HashMap<>(capacity(size)) : new LinkedHashMap<>(capacity(size));
+      references.add(map);
+      for (int i = 0; i < size; i++) {
+        Object key = read();
+        map.put(key, read());
+      }
+      return map;
+    }
+
+    private Object readEnum(int classId) {
+      return classes.get(classId).getEnumConstants()[readVarInt()];
+    }
+
+    private Object readBean(Class<?> type) throws ReflectiveOperationException {
+      BeanSchema schema = BeanSchema.forClass(type);
+      Object bean = schema.newInstance();
+      references.add(bean);
+      for (Invoker setter : classSetters.get(type)) {
+        Object value = read();
+        if (setter != null) {
+          setter.invoke(bean, new Object[] {value});
+        }
+      }
+      return bean;
+    }
+
+    private String readString() {
+      return new String(readBytes(), StandardCharsets.UTF_8);
+    }
+
+    private int readVarInt() {
+      int value = 0;
+      for (int shift = 0; ; shift += 7) {
+        byte b = in.readByte();
+        value |= (b & 0x7f) << shift;
+        if ((b & 0x80) == 0) {
+          return value;
+        }
+      }
+    }
+
+    private byte[] readBytes() {
+      byte[] bytes = new byte[readVarInt()];
+      in.readFully(bytes);
+      return bytes;
+    }
+
+    private int capacity(int size) {
+      return Math.max((int) (size / .75f) + 1, 16);
+    }
+
+  }
+
+  /**
+   * Unsynchronized replacement of a data output stream over a byte array output stream.
+   */
+  private static class Output {
+
+    private byte[] buffer = new byte[256];
+    private int position;
+
+    void writeByte(int value) {
+      ensureCapacity(1);
+      buffer[position++] = (byte) value;
+    }
+
+    void writeBoolean(boolean value) {
+      writeByte(value ? 1 : 0);
+    }
+
+    void writeShort(int value) {
+      writeByte(value >>> 8);
+      writeByte(value);
+    }
+
+    void writeChar(int value) {
+      writeShort(value);
+    }
+
+    void writeInt(int value) {
+      ensureCapacity(4);
+      for (int shift = 24; shift >= 0; shift -= 8) {
+        buffer[position++] = (byte) (value >>> shift);
+      }
+    }
+
+    void writeLong(long value) {
+      ensureCapacity(8);
+      for (int shift = 56; shift >= 0; shift -= 8) {
+        buffer[position++] = (byte) (value >>> shift);
+      }
+    }
+
+    void writeFloat(float value) {
+      writeInt(Float.floatToIntBits(value));
+    }
+
+    void writeDouble(double value) {
+      writeLong(Double.doubleToLongBits(value));
+    }
+
+    void write(byte[] bytes) {
+      ensureCapacity(bytes.length);
+      System.arraycopy(bytes, 0, buffer, position, bytes.length);
+      position += bytes.length;
+    }
+
+    byte[] toByteArray() {
+      return Arrays.copyOf(buffer, position);
+    }
+
+    private void ensureCapacity(int length) {
+      if (position + length > buffer.length) {
+        buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, position + length));
+      }
+    }
+
+  }
+
+  /**
+   * Unsynchronized replacement of a data input stream over a byte array input stream.
+   */
+  private static class Input {
+
+    private final byte[] buffer;
+    private int position;
+
+    Input(byte[] buffer) {
+      this.buffer = buffer;
+    }
+
+    byte readByte() {
+      return buffer[position++];
+    }
+
+    boolean readBoolean() {
+      return readByte() != 0;
+    }
+
+    short readShort() {
+      return (short) (((readByte() & 0xff) << 8) | (readByte() & 0xff));
+    }
+
+    char readChar() {
+      return (char) readShort();
+    }
+
+    int readInt() {
+      int value = 0;
+      for (int i = 0; i < 4; i++) {
+        value = (value << 8) | (readByte() & 0xff);
+      }
+      return value;
+    }
+
+    long readLong() {
+      long value = 0;
+      for (int i = 0; i < 8; i++) {
+        value = (value << 8) | (readByte() & 0xff);
+      }
+      return value;
+    }
+
+    float readFloat() {
+      return Float.intBitsToFloat(readInt());
+    }
+
+    double readDouble() {
+      return Double.longBitsToDouble(readLong());
+    }
+
+    void readFully(byte[] bytes) {
+      System.arraycopy(buffer, position, bytes, 0, bytes.length);
+      position += bytes.length;
+    }
+
+  }
+
+}
@@ -0,0 +1,174 @@
+/**
+ *    Copyright ${license.git.copyrightYears} the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache.serializer;
+
+import java.io.Serializable;
+import java.lang.reflect.Array;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import org.apache.ibatis.cache.CacheException;
+import org.apache.ibatis.reflection.invoker.Invoker;
+
+/**
+ * Makes deep copies of result objects without serializing them.
+ * <p>
+ * Immutable values are shared, dates and arrays are cloned, the usual lists, sets and maps are copied element
+ * by element and beans are copied property by property, using the {@link BeanSchema} of their class, which is
+ * built once per class from the Reflector metadata. Shared and cyclic references are preserved. The objects
+ * that cannot be copied this way, e.g. lazy loading proxies or objects without a default constructor, are
+ * copied with Java serialization and must be {@link Serializable}.
+ *
+ * @since 3.5.3
+ */
+public class DeepCopier {
+
+  private static final Set<Class<?>> immutableTypes = new HashSet<>();
+
+  static {
+    immutableTypes.add(String.class);
+    immutableTypes.add(Integer.class);
+    immutableTypes.add(Long.class);
+    immutableTypes.add(Short.class);
+    immutableTypes.add(Byte.class);
+    immutableTypes.add(Double.class);
+    immutableTypes.add(Float.class);
+    immutableTypes.add(Boolean.class);
+    immutableTypes.add(Character.class);
+    immutableTypes.add(BigDecimal.class);
+    immutableTypes.add(BigInteger.class);
+    immutableTypes.add(UUID.class);
+    immutableTypes.add(Class.class);
+  }
+
+  private final JdkSerializer jdkSerializer = new JdkSerializer();
+
+  /**
+   * Returns a deep copy of an object graph.
+   *
+   * @param value - the root of the graph
+   * @return The copy
+   */
+  public Object copy(Object value) {
+    try {
+      return copy(value, new IdentityHashMap<>());
+    } catch (ReflectiveOperationException e) {
+      throw new CacheException("Error copying object.  Cause: " + e, e);
+    }
+  }
+
+  private Object copy(Object value, Map<Object, Object> copies) throws ReflectiveOperationException {
+    if (value == null) {
+      return null;
+    }
+    Class<?> type = value.getClass();
+    if (immutableTypes.contains(type) || value instanceof Enum || type.getName().startsWith("java.time.")) {
+      return value;
+    }
+    if (value instanceof Date) {
+      return ((Date) value).clone();
+    }
+    Object copy = copies.get(value);
+    if (copy != null) {
+      return copy;
+    }
+    if (type.isArray()) {
+      return copyArray(value, type, copies);
+    }
+    Collection<Object> collection = newCollection(type);
+    if (collection != null) {
+      copies.put(value, collection);
+      for (Object element : (Collection<?>) value) {
+        collection.add(copy(element, copies));
+      }
+      return collection;
+    }
+    Map<Object, Object> map = newMap(type);
+    if (map != null) {
+      copies.put(value, map);
+      for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+        map.put(copy(entry.getKey(), copies), copy(entry.getValue(), copies));
+      }
+      return map;
+    }
+    BeanSchema schema = BeanSchema.forClass(type);
+    if (schema == BeanSchema.UNSUPPORTED) {
+      copy = jdkSerializer.deserialize(jdkSerializer.serialize(value));
+      copies.put(value, copy);
+      return copy;
+    }
+    copy = schema.newInstance();
+    copies.put(value, copy);
+    Invoker[] getters = schema.getters;
+    Invoker[] setters = schema.setters;
+    for (int i = 0; i < getters.length; i++) {
+      setters[i].invoke(copy, new Object[] {copy(getters[i].invoke(value, null), copies)});
+    }
+    return copy;
+  }
+
+  private Object copyArray(Object array, Class<?> type, Map<Object, Object> copies) throws ReflectiveOperationException {
+    int length = Array.getLength(array);
+    if (type.getComponentType().isPrimitive()) {
+      Object copy = Array.newInstance(type.getComponentType(), length);
+      System.arraycopy(array, 0, copy, 0, length);
+      copies.put(array, copy);
+      return copy;
+    }
+    Object[] source = (Object[]) array;
+    Object[] copy = (Object[]) Array.newInstance(type.getComponentType(), length);
+    copies.put(array, copy);
+    for (int i = 0; i < length; i++) {
+      copy[i] = copy(source[i], copies);
+    }
+    return copy;
+  }
+
+  private static Collection<Object> newCollection(Class<?> type) {
+    if (type == ArrayList.class) {
+      return new ArrayList<>();
+    } else if (type == LinkedList.class) {
+      return new LinkedList<>();
+    } else if (type == HashSet.class) {
+      return new HashSet<>();
+    } else if (type == LinkedHashSet.class) {
+      return new LinkedHashSet<>();
+    }
+    return null;
+  }
+
+  private static Map<Object, Object> newMap(Class<?> type) {
+    if (type == HashMap.class) {
+      return new HashMap<>();
+    } else if (type == LinkedHashMap.class) {
+      return new LinkedHashMap<>();
+    }
+    return null;
+  }
+
+}
@@ -16,6 +16,9 @@
 package org.apache.ibatis.cursor;
 
 import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * Cursor contract to handle fetching items lazily using an Iterator.
@@ -43,4 +46,33 @@ public interface Cursor<T> extends Closeable, Iterable<T> {
    * @return -1 if the first cursor item has not been retrieved. The index of the current item retrieved.
    */
   int getCurrentIndex();
+
+  /**
+   * Fetches the remaining items in batches, for consumers that process several items at once, e.g. to write them in
+   * a batch. Like {@link #iterator()}, it can be called only once, and not after an iterator has been retrieved.
+   * <p>
+   * The same list is passed to each call of the action and cleared afterwards, so the action must copy the items it
+   * keeps.
+   *
+   * @param batchSize - the maximum number of items of each batch; only the last batch may be smaller
+   * @param action - the action to perform on each batch
+   * @since 3.5.3
+   */
+  default void forEachBatch(int batchSize, Consumer<? super List<T>> action) {
+    if (batchSize < 1) {
+      throw new IllegalArgumentException("The batch size must be positive, was " + batchSize);
+    }
+    List<T> batch = new ArrayList<>(batchSize);
+    for (T item : this) {
+      batch.add(item);
+      if (batch.size() == batchSize) {
+        action.accept(batch);
+        batch.clear();
+      }
+    }
+    if (!batch.isEmpty()) {
+      action.accept(batch);
+      batch.clear();
+    }
+  }
 }
@@ -0,0 +1,223 @@
+/**
+ *    Copyright ${license.git.copyrightYears} the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cursor;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.apache.ibatis.executor.ErrorContext;
+
+/**
+ * Publishes the items of a {@link Cursor} to a subscriber as it requests them, following the Reactive Streams
+ * protocol. The interfaces are shaped after {@code java.util.concurrent.Flow}, which is not available on all the
+ * supported Java versions, so adapting a subscriber to them only takes a few lines.
+ * <p>
+ * Each subscription opens its own cursor. Opening the cursor, fetching and mapping the rows and calling the
+ * subscriber all run on the executor, never on the thread that subscribes or requests, and at most one task of a
+ * subscription runs at a time. The cursor is closed when it is consumed, when the subscription is cancelled or when
+ * an error is signalled.
+ * <p>
+ * The session the cursor is opened with must stay open and must not be used for anything else until the
+ * subscription is over, so a publisher should be subscribed to only once at a time.
+ *
+ * @since 3.5.3
+ * @see org.apache.ibatis.session.SqlSession#selectPublisher(String, Object, org.apache.ibatis.session.RowBounds)
+ */
+public final class CursorPublisher<T> {
+
+  private static final AtomicInteger threadCount = new AtomicInteger();
+  private static final ExecutorService defaultExecutor = Executors.newCachedThreadPool(runnable -> {
+    Thread thread = new Thread(runnable, "mybatis-cursor-publisher-" + threadCount.incrementAndGet());
+    thread.setDaemon(true);
+    return thread;
+  });
+
+  /**
+   * Receives the items of a subscription, like {@code java.util.concurrent.Flow.Subscriber}.
+   */
+  public interface Subscriber<T> {
+
+    void onSubscribe(Subscription subscription);
+
+    void onNext(T item);
+
+    void onError(Throwable throwable);
+
+    void onComplete();
+  }
+
+  /**
+   * Links a publisher and a subscriber, like {@code java.util.concurrent.Flow.Subscription}.
+   */
+  public interface Subscription {
+
+    /**
+     * Adds the given number of items to the demand of the subscriber.
+     *
+     * @param n - a positive number, {@link Long#MAX_VALUE} for an unbounded demand
+     */
+    void request(long n);
+
+    /**
+     * Stops the subscription and closes its cursor. The subscriber may still receive the items already being sent.
+     */
+    void cancel();
+  }
+
+  private final Supplier<Cursor<T>> cursorSupplier;
+  private final Executor executor;
+
+  /**
+   * @param cursorSupplier - opens the cursor of a subscription
+   * @param executor - runs the blocking work, or null for a shared pool of daemon threads
+   */
+  public CursorPublisher(Supplier<Cursor<T>> cursorSupplier, Executor executor) {
+    this.cursorSupplier = cursorSupplier;
+    this.executor = executor != null ? executor : defaultExecutor;
+  }
+
+  public void subscribe(Subscriber<? super T> subscriber) {
+    if (subscriber == null) {
+      throw new NullPointerException("The subscriber must not be null");
+    }
+    CursorSubscription<T> subscription = new CursorSubscription<>(cursorSupplier, executor, subscriber);
+    subscriber.onSubscribe(subscription);
+  }
+
+  private static class CursorSubscription<T> implements Subscription, Runnable {
+
+    private final Supplier<Cursor<T>> cursorSupplier;
+    private final Executor executor;
+    private final Subscriber<? super T> subscriber;
+    private final AtomicLong requested = new AtomicLong();
+    // the number of signals the running task has to look at, the task runs while it is not zero
+    private final AtomicInteger pending = new AtomicInteger();
+    private volatile boolean cancelled;
+    private volatile Throwable invalidRequest;
+
+    // only used by the running task
+    private Cursor<T> cursor;
+    private Iterator<T> iterator;
+    private boolean done;
+
+    CursorSubscription(Supplier<Cursor<T>> cursorSupplier, Executor executor, Subscriber<? super T> subscriber) {
+      this.cursorSupplier = cursorSupplier;
+      this.executor = executor;
+      this.subscriber = subscriber;
+    }
+
+    @Override
+    public void request(long n) {
+      if (n <= 0) {
+        invalidRequest = new IllegalArgumentException("The number of requested items must be positive, was " + n);
+      } else {
+        requested.accumulateAndGet(n, (current, added) -> current + added < 0 ? Long.MAX_VALUE : current + added);
+      }
+      schedule();
+    }
+
+    @Override
+    public void cancel() {
+      cancelled = true;
+      schedule();
+    }
+
+    private void schedule() {
+      if (pending.getAndIncrement() == 0) {
+        try {
+          executor.execute(this);
+        } catch (RuntimeException e) {
+          // e.g. rejected by an executor that is shut down, there is no thread left to signal the error on
+          cancelled = true;
+          pending.set(0);
+          throw e;
+        }
+      }
+    }
+
+    @Override
+    public void run() {
+      int missed = 1;
+      try {
+        do {
+          drain();
+          missed = pending.addAndGet(-missed);
+        } while (missed != 0);
+      } finally {
+        ErrorContext.instance().reset();
+      }
+    }
+
+    private void drain() {
+      if (done) {
+        return;
+      }
+      if (cancelled) {
+        finish();
+        return;
+      }
+      if (invalidRequest != null) {
+        finish();
+        subscriber.onError(invalidRequest);
+        return;
+      }
+      final long demand = requested.get();
+      long emitted = 0;
+      try {
+        if (cursor == null) {
+          cursor = cursorSupplier.get();
+          iterator = cursor.iterator();
+        }
+        while (emitted < demand && !cancelled) {
+          if (!iterator.hasNext()) {
+            finish();
+            subscriber.onComplete();
+            return;
+          }
+          subscriber.onNext(iterator.next());
+          emitted++;
+        }
+      } catch (Throwable t) {
+        finish();
+        subscriber.onError(t);
+        return;
+      }
+      if (cancelled) {
+        finish();
+      } else if (emitted > 0 && demand != Long.MAX_VALUE) {
+        requested.addAndGet(-emitted);
+      }
+    }
+
+    private void finish() {
+      done = true;
+      if (cursor != null) {
+        try {
+          cursor.close();
+        } catch (IOException | RuntimeException e) {
+          // already terminated
+        }
+      }
+    }
+  }
+
+}
@@ -17,8 +17,11 @@ package org.apache.ibatis.cursor.defaults;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.function.Consumer;
 
 import org.apache.ibatis.cursor.Cursor;
 import org.apache.ibatis.executor.resultset.DefaultResultSetHandler;
@@ -103,6 +106,24 @@ public class DefaultCursor<T> implements Cursor<T> {
     return cursorIterator;
   }
 
+  /**
+   * Maps each batch in a single pass of the result set handler. Unless the statement sets a fetch size, the driver is
+   * asked to fetch the rows by batches of the same size.
+   */
+  @Override
+  public void forEachBatch(int batchSize, Consumer<? super List<T>> action) {
+    if (batchSize < 1) {
+      throw new IllegalArgumentException("The batch size must be positive, was " + batchSize);
+    }
+    iterator();
+    alignFetchSize(batchSize);
+    List<T> batch = new ArrayList<>(batchSize);
+    while (fetchNextBatch(batch, batchSize)) {
+      action.accept(batch);
+      batch.clear();
+    }
+  }
+
   @Override
   public void close() {
     if (isClosed()) {
@@ -121,6 +142,49 @@ public class DefaultCursor<T> implements Cursor<T> {
     }
   }
 
+  protected boolean fetchNextBatch(List<T> batch, int batchSize) {
+    if (indexWithRowBound < rowBounds.getOffset()) {
+      // the rows before the offset are skipped one by one, the first one after them is part of the batch
+      T first = fetchNextUsingRowBound();
+      if (first == null) {
+        return false;
+      }
+      batch.add(first);
+    }
+    final long limit = getLimitWithOffset();
+    final int size = (int) Math.min(batchSize - batch.size(), limit - getReadItemsCount());
+    if (size > 0 && !isClosed()) {
+      final BatchResultHandler<T> batchResultHandler = new BatchResultHandler<>(batch, size);
+      try {
+        status = CursorStatus.OPEN;
+        if (!rsw.getResultSet().isClosed()) {
+          resultSetHandler.handleRowValues(rsw, resultMap, batchResultHandler, RowBounds.DEFAULT, null);
+        }
+      } catch (SQLException e) {
+        throw new RuntimeException(e);
+      }
+      indexWithRowBound += batchResultHandler.count;
+      // No more object or limit reached
+      if (batchResultHandler.count < size || getReadItemsCount() == limit) {
+        close();
+        status = CursorStatus.CONSUMED;
+      }
+    }
+    cursorIterator.iteratorIndex += batch.size();
+    return !batch.isEmpty();
+  }
+
+  private void alignFetchSize(int batchSize) {
+    ResultSet rs = rsw.getResultSet();
+    try {
+      if (rs != null && !rs.isClosed() && rs.getFetchSize() == 0) {
+        rs.setFetchSize(batchSize);
+      }
+    } catch (SQLException e) {
+      // only a hint
+    }
+  }
+
   protected T fetchNextUsingRowBound() {
     T result = fetchNextObjectFromDatabase();
     while (result != null && indexWithRowBound < rowBounds.getOffset()) {
@@ -148,7 +212,7 @@ public class DefaultCursor<T> implements Cursor<T> {
       indexWithRowBound++;
     }
     // No more object or limit reached
-    if (next == null || getReadItemsCount() == rowBounds.getOffset() + rowBounds.getLimit()) {
+    if (next == null || getReadItemsCount() == getLimitWithOffset()) {
       close();
       status = CursorStatus.CONSUMED;
     }
@@ -165,6 +229,11 @@ public class DefaultCursor<T> implements Cursor<T> {
     return indexWithRowBound + 1;
   }
 
+  private long getLimitWithOffset() {
+    // NO_ROW_LIMIT is Integer.MAX_VALUE, the sum must not overflow
+    return (long) rowBounds.getOffset() + rowBounds.getLimit();
+  }
+
   private static class ObjectWrapperResultHandler<T> implements ResultHandler<T> {
 
     private T result;
@@ -176,6 +245,33 @@ public class DefaultCursor<T> implements Cursor<T> {
     }
   }
 
+  private static class BatchResultHandler<T> implements ResultHandler<T> {
+
+    private final List<T> batch;
+    private final int maximumCount;
+    private int count;
+
+    BatchResultHandler(List<T> batch, int maximumCount) {
+      this.batch = batch;
+      this.maximumCount = maximumCount;
+    }
+
+    @Override
+    public void handleResult(ResultContext<? extends T> context) {
+      T result = context.getResultObject();
+      if (result == null) {
+        // as for the iterator, a null result ends the cursor
+        context.stop();
+        return;
+      }
+      batch.add(result);
+      count++;
+      if (count >= maximumCount) {
+        context.stop();
+      }
+    }
+  }
+
   private class CursorIterator implements Iterator<T> {
 
     /**
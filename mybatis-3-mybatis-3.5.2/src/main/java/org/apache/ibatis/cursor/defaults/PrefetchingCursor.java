@@ -0,0 +1,296 @@
+/**
+ *    Copyright ${license.git.copyrightYears} the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cursor.defaults;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.executor.ErrorContext;
+
+/**
+ * A cursor that fetches and maps the items of another cursor on a background thread, ahead of the consumer, so
+ * that reading the rows, mapping them and processing the items overlap.
+ * <p>
+ * At most prefetch size items are kept ahead of the consumer. An exception thrown while fetching is rethrown to
+ * the consumer once it has processed the items fetched before. Closing the cursor stops the background thread and
+ * waits for it before closing the underlying cursor, so the result set is never used by two threads at once.
+ * The session stops the background thread the same way before it commits, rolls back or closes its connection;
+ * the remaining items are then fetched on the thread of the consumer. While the background thread runs, the
+ * session that opened the cursor must not be used for anything else, as that thread may use it for nested queries.
+ * This implementation is not thread safe.
+ *
+ * @since 3.5.3
+ */
+public class PrefetchingCursor<T> implements Cursor<T> {
+
+  private static final AtomicInteger threadCount = new AtomicInteger();
+  private static final ExecutorService prefetchers = Executors.newCachedThreadPool(runnable -> {
+    Thread thread = new Thread(runnable, "mybatis-cursor-prefetch-" + threadCount.incrementAndGet());
+    thread.setDaemon(true);
+    return thread;
+  });
+
+  private static final Object END = new Object();
+
+  private final Cursor<T> delegate;
+  private final Executor executor;
+  private final BlockingQueue<Object> queue;
+  private final CountDownLatch stopped = new CountDownLatch(1);
+  private final ArrayDeque<Object> fetched = new ArrayDeque<>();
+  private final CursorIterator cursorIterator = new CursorIterator();
+  private final int initialIndex;
+  private volatile boolean stopping;
+  private volatile Iterator<T> delegateIterator;
+  private boolean started;
+  private boolean prefetching;
+  private boolean prefetchingStopped;
+  private boolean consumed;
+  private boolean closed;
+  private boolean iteratorRetrieved;
+
+  public PrefetchingCursor(Cursor<T> delegate, int prefetchSize) {
+    this(delegate, prefetchSize, null);
+  }
+
+  /**
+   * @param delegate - the cursor to fetch the items from
+   * @param prefetchSize - the maximum number of items fetched ahead of the consumer
+   * @param executor - runs the background fetching, or null for a shared pool of daemon threads
+   */
+  public PrefetchingCursor(Cursor<T> delegate, int prefetchSize, Executor executor) {
+    if (prefetchSize < 1) {
+      throw new IllegalArgumentException("The prefetch size must be positive, was " + prefetchSize);
+    }
+    this.delegate = delegate;
+    this.executor = executor != null ? executor : prefetchers;
+    this.queue = new ArrayBlockingQueue<>(prefetchSize);
+    this.initialIndex = delegate.getCurrentIndex();
+  }
+
+  @Override
+  public boolean isOpen() {
+    return started && !consumed && !closed;
+  }
+
+  @Override
+  public boolean isConsumed() {
+    return consumed;
+  }
+
+  @Override
+  public int getCurrentIndex() {
+    return initialIndex + cursorIterator.iteratorIndex + 1;
+  }
+
+  @Override
+  public Iterator<T> iterator() {
+    if (iteratorRetrieved) {
+      throw new IllegalStateException("Cannot open more than one iterator on a Cursor");
+    }
+    if (closed || consumed) {
+      throw new IllegalStateException("A Cursor is already closed.");
+    }
+    iteratorRetrieved = true;
+    return cursorIterator;
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    stopPrefetching();
+    fetched.clear();
+    delegate.close();
+  }
+
+  /**
+   * Stops the background thread and waits for it, so that the session can commit, roll back or close its connection.
+   * The items fetched ahead are kept and the next ones are fetched on the thread of the consumer.
+   */
+  public void stopPrefetching() {
+    prefetchingStopped = true;
+    if (!prefetching) {
+      return;
+    }
+    prefetching = false;
+    stopping = true;
+    // frees the slot the background thread may be waiting for, it stops after its next item
+    queue.drainTo(fetched);
+    boolean interrupted = false;
+    while (true) {
+      try {
+        stopped.await();
+        break;
+      } catch (InterruptedException e) {
+        interrupted = true;
+      }
+    }
+    queue.drainTo(fetched);
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private void start() {
+    started = true;
+    if (!prefetchingStopped) {
+      prefetching = true;
+      executor.execute(this::prefetch);
+    }
+  }
+
+  private void prefetch() {
+    try {
+      Object last = END;
+      try {
+        Iterator<T> iterator = delegate.iterator();
+        delegateIterator = iterator;
+        while (iterator.hasNext()) {
+          queue.put(iterator.next());
+          if (stopping) {
+            // the consumer goes on from the delegate
+            return;
+          }
+        }
+      } catch (InterruptedException e) {
+        throw e;
+      } catch (Throwable t) {
+        // handed over after the items fetched before
+        last = new Failure(t);
+      }
+      queue.put(last);
+    } catch (InterruptedException e) {
+      // only when the thread pool is shut down with the JVM
+      Thread.currentThread().interrupt();
+    } finally {
+      ErrorContext.instance().reset();
+      stopped.countDown();
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private T fetchNext() {
+    if (closed || consumed) {
+      return null;
+    }
+    if (!started) {
+      start();
+    }
+    Object element;
+    if (prefetching) {
+      try {
+        element = queue.take();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new RuntimeException("Interrupted while waiting for the next item of the cursor", e);
+      }
+    } else {
+      element = fetched.poll();
+      if (element == null) {
+        element = fetchFromDelegate();
+      }
+    }
+    if (element == END) {
+      consumed = true;
+      return null;
+    }
+    if (element instanceof Failure) {
+      consumed = true;
+      Throwable cause = ((Failure) element).cause;
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      } else if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new RuntimeException(cause);
+    }
+    return (T) element;
+  }
+
+  private Object fetchFromDelegate() {
+    Iterator<T> iterator = delegateIterator;
+    if (iterator == null) {
+      iterator = delegate.iterator();
+      delegateIterator = iterator;
+    }
+    try {
+      return iterator.hasNext() ? iterator.next() : END;
+    } catch (RuntimeException | Error e) {
+      consumed = true;
+      throw e;
+    }
+  }
+
+  private static class Failure {
+    private final Throwable cause;
+
+    Failure(Throwable cause) {
+      this.cause = cause;
+    }
+  }
+
+  private class CursorIterator implements Iterator<T> {
+
+    /**
+     * Holder for the next object to be returned.
+     */
+    T object;
+
+    /**
+     * Index of objects returned using next(), and as such, visible to users.
+     */
+    int iteratorIndex = -1;
+
+    @Override
+    public boolean hasNext() {
+      if (object == null) {
+        object = fetchNext();
+      }
+      return object != null;
+    }
+
+    @Override
+    public T next() {
+      T next = object;
+      if (next == null) {
+        next = fetchNext();
+      }
+      if (next != null) {
+        object = null;
+        iteratorIndex++;
+        return next;
+      }
+      throw new NoSuchElementException();
+    }
+
+    @Override
+    public void remove() {
+      throw new UnsupportedOperationException("Cannot remove element from Cursor");
+    }
+  }
+}
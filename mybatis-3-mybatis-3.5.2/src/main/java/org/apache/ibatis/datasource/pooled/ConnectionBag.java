@@ -0,0 +1,270 @@
+/**
+ *    Copyright ${license.git.copyrightYears} the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.datasource.pooled;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Lock-free holder of the idle and active connections of a {@link PooledDataSource}.
+ * <p>
+ * Idle connections are kept in a LIFO deque and claimed with a CAS on their state, so a connection
+ * can be seen by several threads but is handed out only once. Each thread first tries the connection
+ * it returned last (thread-local affinity) and threads that have to wait are served in FIFO order
+ * through a fair handoff queue.
+ */
+class ConnectionBag {
+
+  // bounds the delay of a connection returned after the last check of the idle deque and before the poll
+  private static final long MAX_HANDOFF_WAIT = TimeUnit.MILLISECONDS.toNanos(10);
+
+  private final ConcurrentLinkedDeque<PooledConnection> idleConnections = new ConcurrentLinkedDeque<>();
+  private final Set<PooledConnection> activeConnections = ConcurrentHashMap.newKeySet();
+  private final ThreadLocal<WeakReference<PooledConnection>> lastReturned = new ThreadLocal<>();
+  private final SynchronousQueue<PooledConnection> handoffQueue = new SynchronousQueue<>(true);
+  private final AtomicInteger idleCount = new AtomicInteger();
+  private final AtomicInteger connectionCount = new AtomicInteger();
+  private final AtomicInteger waiters = new AtomicInteger();
+
+  /**
+   * Claims an idle connection, preferring the one last returned by the calling thread.
+   *
+   * @return An idle connection in use state or null if there is none
+   */
+  PooledConnection borrow() {
+    WeakReference<PooledConnection> ref = lastReturned.get();
+    if (ref != null) {
+      PooledConnection conn = ref.get();
+      if (conn != null && conn.compareAndSetState(PooledConnection.STATE_NOT_IN_USE, PooledConnection.STATE_IN_USE)) {
+        // only stale wrappers of the same real connection can be equal to it
+        idleConnections.removeFirstOccurrence(conn);
+        idleCount.decrementAndGet();
+        return conn;
+      }
+    }
+    PooledConnection conn;
+    while ((conn = idleConnections.pollFirst()) != null) {
+      if (conn.compareAndSetState(PooledConnection.STATE_NOT_IN_USE, PooledConnection.STATE_IN_USE)) {
+        idleCount.decrementAndGet();
+        return conn;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Reserves a slot for a connection that is about to be created. The number of connections is bounded
+   * rather than the number of active ones, so a connection being returned still holds its slot.
+   *
+   * @param maximumActive - the maximum number of active connections
+   * @return True if the slot could be reserved
+   */
+  boolean reserve(int maximumActive) {
+    int count;
+    do {
+      count = connectionCount.get();
+      if (count >= maximumActive) {
+        return false;
+      }
+    } while (!connectionCount.compareAndSet(count, count + 1));
+    return true;
+  }
+
+  /**
+   * Releases the slot of a connection that is closed or discarded instead of going back to the pool.
+   */
+  void release() {
+    connectionCount.decrementAndGet();
+  }
+
+  /**
+   * Registers a checked out connection as active.
+   *
+   * @param conn - the connection
+   */
+  void activate(PooledConnection conn) {
+    conn.compareAndSetState(PooledConnection.STATE_NOT_IN_USE, PooledConnection.STATE_IN_USE);
+    activeConnections.add(conn);
+  }
+
+  /**
+   * Takes an active connection out of the pool. Only one caller can succeed for a given connection,
+   * so a connection returned by its owner and claimed as overdue at the same time is handled once.
+   * The caller keeps the slot of the connection and must either {@link #activate(PooledConnection)} or
+   * {@link #requite(PooledConnection)} a new wrapper for it, or {@link #release()} it.
+   *
+   * @param conn - the connection
+   * @return True if the caller now owns the real connection
+   */
+  boolean deactivate(PooledConnection conn) {
+    if (!conn.compareAndSetState(PooledConnection.STATE_IN_USE, PooledConnection.STATE_REMOVED)) {
+      return false;
+    }
+    activeConnections.remove(conn);
+    return true;
+  }
+
+  /**
+   * Puts a connection back to the idle connections, handing it over directly to a waiting thread if there is one.
+   *
+   * @param conn - a new wrapper, in not in use state, for a real connection whose slot is held by the caller
+   */
+  void requite(PooledConnection conn) {
+    // counted first so that the count never goes below zero when the connection is claimed right away
+    idleCount.incrementAndGet();
+    idleConnections.addFirst(conn);
+    lastReturned.set(new WeakReference<>(conn));
+    if (waiters.get() > 0) {
+      // a waiter that is not polling yet finds the connection in the idle deque instead
+      handoffQueue.offer(conn);
+    }
+  }
+
+  /**
+   * Waits for a connection to be returned by another thread.
+   *
+   * @param timeToWait - the time to wait in milliseconds
+   * @param maximumActive - the maximum number of active connections
+   * @return A connection in use state, or null if the time elapsed or a new connection can be created
+   * @throws InterruptedException if the thread is interrupted while waiting
+   */
+  PooledConnection await(long timeToWait, int maximumActive) throws InterruptedException {
+    waiters.incrementAndGet();
+    try {
+      long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeToWait);
+      while (true) {
+        // a connection may have been returned or closed while we were not polling
+        PooledConnection conn = borrow();
+        if (conn != null || connectionCount.get() < maximumActive) {
+          return conn;
+        }
+        long remaining = deadline - System.nanoTime();
+        if (remaining <= 0) {
+          return null;
+        }
+        conn = handoffQueue.poll(Math.min(remaining, MAX_HANDOFF_WAIT), TimeUnit.NANOSECONDS);
+        if (conn != null && conn.compareAndSetState(PooledConnection.STATE_NOT_IN_USE, PooledConnection.STATE_IN_USE)) {
+          idleConnections.removeFirstOccurrence(conn);
+          idleCount.decrementAndGet();
+          return conn;
+        }
+      }
+    } finally {
+      waiters.decrementAndGet();
+    }
+  }
+
+  /**
+   * Returns the active connection that has been checked out for the longest time.
+   *
+   * @return The oldest active connection or null if there is none
+   */
+  PooledConnection getOldestActiveConnection() {
+    PooledConnection oldest = null;
+    for (PooledConnection conn : activeConnections) {
+      if (oldest == null || conn.getCheckoutTimestamp() < oldest.getCheckoutTimestamp()) {
+        oldest = conn;
+      }
+    }
+    return oldest;
+  }
+
+  /**
+   * Returns the connections that are idle at the time of the call.
+   *
+   * @return The idle connections
+   */
+  List<PooledConnection> getIdleConnections() {
+    List<PooledConnection> idle = new ArrayList<>();
+    for (PooledConnection conn : idleConnections) {
+      if (conn.getState() == PooledConnection.STATE_NOT_IN_USE) {
+        idle.add(conn);
+      }
+    }
+    return idle;
+  }
+
+  /**
+   * Removes an idle connection from the pool. The caller keeps the slot of the connection and must either
+   * {@link #requite(PooledConnection)} a new wrapper for it or {@link #release()} it.
+   *
+   * @param conn - the connection
+   * @return True if the connection was idle and the caller now owns it
+   */
+  boolean remove(PooledConnection conn) {
+    if (!conn.compareAndSetState(PooledConnection.STATE_NOT_IN_USE, PooledConnection.STATE_REMOVED)) {
+      return false;
+    }
+    idleConnections.removeFirstOccurrence(conn);
+    idleCount.decrementAndGet();
+    return true;
+  }
+
+  /**
+   * Removes all idle connections from the pool. Their slots are released.
+   *
+   * @return The removed connections
+   */
+  List<PooledConnection> removeIdleConnections() {
+    List<PooledConnection> removed = new ArrayList<>();
+    PooledConnection conn;
+    while ((conn = idleConnections.pollFirst()) != null) {
+      if (conn.compareAndSetState(PooledConnection.STATE_NOT_IN_USE, PooledConnection.STATE_REMOVED)) {
+        idleCount.decrementAndGet();
+        release();
+        removed.add(conn);
+      }
+    }
+    return removed;
+  }
+
+  /**
+   * Removes all active connections from the pool. Their slots are released.
+   *
+   * @return The removed connections
+   */
+  List<PooledConnection> removeActiveConnections() {
+    List<PooledConnection> removed = new ArrayList<>();
+    for (PooledConnection conn : activeConnections) {
+      if (deactivate(conn)) {
+        release();
+        removed.add(conn);
+      }
+    }
+    return removed;
+  }
+
+  int getIdleCount() {
+    return idleCount.get();
+  }
+
+  int getActiveCount() {
+    // connections being validated or returned count as active
+    return Math.max(connectionCount.get() - idleCount.get(), 0);
+  }
+
+  boolean hasWaiters() {
+    return waiters.get() > 0;
+  }
+
+}
@@ -0,0 +1,76 @@
+/**
+ *    Copyright ${license.git.copyrightYears} the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.datasource.pooled;
+
+import java.lang.ref.WeakReference;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.ibatis.logging.Log;
+import org.apache.ibatis.logging.LogFactory;
+
+/**
+ * Periodically runs {@link PooledDataSource#maintain()} on a daemon thread shared by all pools.
+ * The data source is only weakly referenced, so a pool that is no longer used can still be collected.
+ */
+class PoolMaintenanceTask implements Runnable {
+
+  private static final Log log = LogFactory.getLog(PoolMaintenanceTask.class);
+
+  private static final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+    Thread thread = new Thread(runnable, "mybatis-pool-maintenance");
+    thread.setDaemon(true);
+    return thread;
+  });
+
+  private final WeakReference<PooledDataSource> dataSource;
+  private volatile ScheduledFuture<?> future;
+
+  private PoolMaintenanceTask(PooledDataSource dataSource) {
+    this.dataSource = new WeakReference<>(dataSource);
+  }
+
+  static PoolMaintenanceTask schedule(PooledDataSource dataSource, long interval) {
+    PoolMaintenanceTask task = new PoolMaintenanceTask(dataSource);
+    task.future = scheduler.scheduleWithFixedDelay(task, 0, interval, TimeUnit.MILLISECONDS);
+    return task;
+  }
+
+  void cancel() {
+    ScheduledFuture<?> scheduled = future;
+    if (scheduled != null) {
+      scheduled.cancel(false);
+    }
+  }
+
+  @Override
+  public void run() {
+    PooledDataSource ds = dataSource.get();
+    if (ds == null) {
+      cancel();
+      return;
+    }
+    try {
+      ds.maintain();
+    } catch (RuntimeException e) {
+      // an exception would suppress the subsequent executions
+      log.warn("Pool maintenance failed: " + e.getMessage());
+    }
+  }
+
+}
@@ -0,0 +1,67 @@
+/**
+ *    Copyright ${license.git.copyrightYears} the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.datasource.pooled;
+
+/**
+ * Receives the events of a {@link PooledDataSource}, so that they can be published to a metrics system
+ * such as JMX or Micrometer. Listeners are registered with {@link PoolState#addListener(PoolMetricsListener)}.
+ * <p>
+ * The methods are called by the threads checking out and returning connections, so they must be cheap
+ * and must not block. All durations are in nanoseconds.
+ *
+ * @since 3.5.3
+ */
+public interface PoolMetricsListener {
+
+  /**
+   * A connection was checked out.
+   *
+   * @param requestTime the time it took to get the connection, waiting time included
+   */
+  default void connectionCheckedOut(long requestTime) {
+  }
+
+  /**
+   * A thread waited for a connection to be returned.
+   *
+   * @param waitTime the time spent waiting
+   */
+  default void connectionWaited(long waitTime) {
+  }
+
+  /**
+   * A connection was returned to the pool.
+   *
+   * @param checkoutTime the time the connection was checked out
+   */
+  default void connectionCheckedIn(long checkoutTime) {
+  }
+
+  /**
+   * A connection checked out for longer than <code>poolMaximumCheckoutTime</code> was claimed by another thread.
+   *
+   * @param checkoutTime the time the connection was checked out
+   */
+  default void overdueConnectionClaimed(long checkoutTime) {
+  }
+
+  /**
+   * An invalid connection was discarded.
+   */
+  default void badConnectionDiscarded() {
+  }
+
+}
@@ -17,6 +17,11 @@ package org.apache.ibatis.datasource.pooled;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * @author Clinton Begin
@@ -27,63 +32,238 @@ public class PoolState {
 
   protected final List<PooledConnection> idleConnections = new ArrayList<>();
   protected final List<PooledConnection> activeConnections = new ArrayList<>();
+  final ConnectionBag connectionBag = new ConnectionBag();
+  // guards the connection lists, unlike a monitor it does not pin a virtual thread that blocks while holding it
+  final ReentrantLock lock = new ReentrantLock();
+  final Condition connectionAvailable = lock.newCondition();
+  // connections being created or checked by the maintenance, counted against the maximum active connections
+  int pendingConnections;
+  /**
+   * @deprecated Since 3.5.3, a copy of a counter kept for subclasses, updated only when the statistics are read
+   * through the getters. Use the getters instead.
+   */
+  @Deprecated
   protected long requestCount = 0;
+  /**
+   * @deprecated Since 3.5.3, a copy of a counter kept for subclasses, updated only when the statistics are read
+   * through the getters. Use the getters instead.
+   */
+  @Deprecated
   protected long accumulatedRequestTime = 0;
+  /**
+   * @deprecated Since 3.5.3, a copy of a counter kept for subclasses, updated only when the statistics are read
+   * through the getters. Use the getters instead.
+   */
+  @Deprecated
   protected long accumulatedCheckoutTime = 0;
+  /**
+   * @deprecated Since 3.5.3, a copy of a counter kept for subclasses, updated only when the statistics are read
+   * through the getters. Use the getters instead.
+   */
+  @Deprecated
   protected long claimedOverdueConnectionCount = 0;
+  /**
+   * @deprecated Since 3.5.3, a copy of a counter kept for subclasses, updated only when the statistics are read
+   * through the getters. Use the getters instead.
+   */
+  @Deprecated
   protected long accumulatedCheckoutTimeOfOverdueConnections = 0;
+  /**
+   * @deprecated Since 3.5.3, a copy of a counter kept for subclasses, updated only when the statistics are read
+   * through the getters. Use the getters instead.
+   */
+  @Deprecated
   protected long accumulatedWaitTime = 0;
+  /**
+   * @deprecated Since 3.5.3, a copy of a counter kept for subclasses, updated only when the statistics are read
+   * through the getters. Use the getters instead.
+   */
+  @Deprecated
   protected long hadToWaitCount = 0;
+  /**
+   * @deprecated Since 3.5.3, a copy of a counter kept for subclasses, updated only when the statistics are read
+   * through the getters. Use the getters instead.
+   */
+  @Deprecated
   protected long badConnectionCount = 0;
+  // request and wait times are in nanoseconds, checkout times in milliseconds
+  private final LongAdder requests = new LongAdder();
+  private final LongAdder totalRequestTime = new LongAdder();
+  private final LongAdder totalCheckoutTime = new LongAdder();
+  private final LongAdder overdueClaims = new LongAdder();
+  private final LongAdder overdueCheckoutTime = new LongAdder();
+  private final LongAdder totalWaitTime = new LongAdder();
+  private final LongAdder waits = new LongAdder();
+  private final LongAdder badConnections = new LongAdder();
+  private final LatencyHistogram requestTimeHistogram = new LatencyHistogram();
+  private final LatencyHistogram waitTimeHistogram = new LatencyHistogram();
+  private final List<PoolMetricsListener> listeners = new CopyOnWriteArrayList<>();
 
   public PoolState(PooledDataSource dataSource) {
     this.dataSource = dataSource;
   }
 
-  public synchronized long getRequestCount() {
-    return requestCount;
+  public long getRequestCount() {
+    updateDeprecatedCounters();
+    return requests.sum();
   }
 
-  public synchronized long getAverageRequestTime() {
-    return requestCount == 0 ? 0 : accumulatedRequestTime / requestCount;
+  public long getAverageRequestTime() {
+    updateDeprecatedCounters();
+    long count = requests.sum();
+    return count == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(totalRequestTime.sum() / count);
   }
 
-  public synchronized long getAverageWaitTime() {
-    return hadToWaitCount == 0 ? 0 : accumulatedWaitTime / hadToWaitCount;
+  public long getAverageWaitTime() {
+    updateDeprecatedCounters();
+    long count = waits.sum();
+    return count == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(totalWaitTime.sum() / count);
 
   }
 
-  public synchronized long getHadToWaitCount() {
-    return hadToWaitCount;
+  public long getHadToWaitCount() {
+    updateDeprecatedCounters();
+    return waits.sum();
   }
 
-  public synchronized long getBadConnectionCount() {
-    return badConnectionCount;
+  public long getBadConnectionCount() {
+    updateDeprecatedCounters();
+    return badConnections.sum();
   }
 
-  public synchronized long getClaimedOverdueConnectionCount() {
-    return claimedOverdueConnectionCount;
+  public long getClaimedOverdueConnectionCount() {
+    updateDeprecatedCounters();
+    return overdueClaims.sum();
   }
 
-  public synchronized long getAverageOverdueCheckoutTime() {
-    return claimedOverdueConnectionCount == 0 ? 0 : accumulatedCheckoutTimeOfOverdueConnections / claimedOverdueConnectionCount;
+  public long getAverageOverdueCheckoutTime() {
+    updateDeprecatedCounters();
+    long count = overdueClaims.sum();
+    return count == 0 ? 0 : overdueCheckoutTime.sum() / count;
   }
 
-  public synchronized long getAverageCheckoutTime() {
-    return requestCount == 0 ? 0 : accumulatedCheckoutTime / requestCount;
+  public long getAverageCheckoutTime() {
+    updateDeprecatedCounters();
+    long count = requests.sum();
+    return count == 0 ? 0 : totalCheckoutTime.sum() / count;
   }
 
 
-  public synchronized int getIdleConnectionCount() {
-    return idleConnections.size();
+  public int getIdleConnectionCount() {
+    if (dataSource.poolLockFree) {
+      return connectionBag.getIdleCount();
+    }
+    lock.lock();
+    try {
+      return idleConnections.size();
+    } finally {
+      lock.unlock();
+    }
   }
 
-  public synchronized int getActiveConnectionCount() {
-    return activeConnections.size();
+  public int getActiveConnectionCount() {
+    if (dataSource.poolLockFree) {
+      return connectionBag.getActiveCount();
+    }
+    lock.lock();
+    try {
+      return activeConnections.size();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Returns the distribution of the time it took to check out a connection, in microseconds.
+   *
+   * @return the request time histogram
+   * @since 3.5.3
+   */
+  public LatencyHistogram getRequestTimeHistogram() {
+    return requestTimeHistogram;
+  }
+
+  /**
+   * Returns the distribution of the time threads waited for a connection to be returned, in microseconds.
+   *
+   * @return the wait time histogram
+   * @since 3.5.3
+   */
+  public LatencyHistogram getWaitTimeHistogram() {
+    return waitTimeHistogram;
+  }
+
+  /**
+   * @since 3.5.3
+   */
+  public void addListener(PoolMetricsListener listener) {
+    listeners.add(listener);
+  }
+
+  /**
+   * @since 3.5.3
+   */
+  public void removeListener(PoolMetricsListener listener) {
+    listeners.remove(listener);
+  }
+
+  void recordRequest(long requestTime) {
+    requests.increment();
+    totalRequestTime.add(requestTime);
+    requestTimeHistogram.record(TimeUnit.NANOSECONDS.toMicros(requestTime));
+    for (PoolMetricsListener listener : listeners) {
+      listener.connectionCheckedOut(requestTime);
+    }
+  }
+
+  void recordCheckin(long checkoutTime) {
+    totalCheckoutTime.add(checkoutTime);
+    for (PoolMetricsListener listener : listeners) {
+      listener.connectionCheckedIn(TimeUnit.MILLISECONDS.toNanos(checkoutTime));
+    }
+  }
+
+  void recordClaimedOverdue(long checkoutTime) {
+    overdueClaims.increment();
+    overdueCheckoutTime.add(checkoutTime);
+    totalCheckoutTime.add(checkoutTime);
+    for (PoolMetricsListener listener : listeners) {
+      listener.overdueConnectionClaimed(TimeUnit.MILLISECONDS.toNanos(checkoutTime));
+    }
+  }
+
+  void recordHadToWait() {
+    waits.increment();
+  }
+
+  void recordWait(long waitTime) {
+    totalWaitTime.add(waitTime);
+    waitTimeHistogram.record(TimeUnit.NANOSECONDS.toMicros(waitTime));
+    for (PoolMetricsListener listener : listeners) {
+      listener.connectionWaited(waitTime);
+    }
+  }
+
+  void recordBadConnection() {
+    badConnections.increment();
+    for (PoolMetricsListener listener : listeners) {
+      listener.badConnectionDiscarded();
+    }
+  }
+
+  private void updateDeprecatedCounters() {
+    requestCount = requests.sum();
+    accumulatedRequestTime = TimeUnit.NANOSECONDS.toMillis(totalRequestTime.sum());
+    accumulatedCheckoutTime = totalCheckoutTime.sum();
+    claimedOverdueConnectionCount = overdueClaims.sum();
+    accumulatedCheckoutTimeOfOverdueConnections = overdueCheckoutTime.sum();
+    accumulatedWaitTime = TimeUnit.NANOSECONDS.toMillis(totalWaitTime.sum());
+    hadToWaitCount = waits.sum();
+    badConnectionCount = badConnections.sum();
   }
 
   @Override
-  public synchronized String toString() {
+  public String toString() {
     StringBuilder builder = new StringBuilder();
     builder.append("\n===CONFINGURATION==============================================");
     builder.append("\n jdbcDriver                     ").append(dataSource.getDriver());
@@ -97,6 +277,11 @@ public class PoolState {
     builder.append("\n poolPingEnabled                ").append(dataSource.poolPingEnabled);
     builder.append("\n poolPingQuery                  ").append(dataSource.poolPingQuery);
     builder.append("\n poolPingConnectionsNotUsedFor  ").append(dataSource.poolPingConnectionsNotUsedFor);
+    builder.append("\n poolLockFree                   ").append(dataSource.poolLockFree);
+    builder.append("\n poolMinimumIdle                ").append(dataSource.poolMinimumIdle);
+    builder.append("\n poolMaximumLifetime            ").append(dataSource.poolMaximumLifetime);
+    builder.append("\n poolMaximumIdleTime            ").append(dataSource.poolMaximumIdleTime);
+    builder.append("\n poolMaintenanceInterval        ").append(dataSource.poolMaintenanceInterval);
     builder.append("\n ---STATUS-----------------------------------------------------");
     builder.append("\n activeConnections              ").append(getActiveConnectionCount());
     builder.append("\n idleConnections                ").append(getIdleConnectionCount());
@@ -107,6 +292,8 @@ public class PoolState {
     builder.append("\n averageOverdueCheckoutTime     ").append(getAverageOverdueCheckoutTime());
     builder.append("\n hadToWait                      ").append(getHadToWaitCount());
     builder.append("\n averageWaitTime                ").append(getAverageWaitTime());
+    builder.append("\n requestTime99thPercentile(us)  ").append(requestTimeHistogram.getValueAtPercentile(99));
+    builder.append("\n waitTime99thPercentile(us)     ").append(waitTimeHistogram.getValueAtPercentile(99));
     builder.append("\n badConnectionCount             ").append(getBadConnectionCount());
     builder.append("\n===============================================================");
     return builder.toString();
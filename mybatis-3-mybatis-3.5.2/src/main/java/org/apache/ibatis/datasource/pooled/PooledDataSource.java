@@ -22,7 +22,10 @@ import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Logger;
 
 import javax.sql.DataSource;
@@ -53,8 +56,14 @@ public class PooledDataSource implements DataSource {
   protected String poolPingQuery = "NO PING QUERY SET";
   protected boolean poolPingEnabled;
   protected int poolPingConnectionsNotUsedFor;
+  protected boolean poolLockFree;
+  protected int poolMinimumIdle;
+  protected int poolMaximumLifetime;
+  protected int poolMaximumIdleTime;
+  protected int poolMaintenanceInterval;
 
-  private int expectedConnectionTypeCode;
+  private volatile int expectedConnectionTypeCode;
+  private volatile PoolMaintenanceTask maintenanceTask;
 
   public PooledDataSource() {
     dataSource = new UnpooledDataSource();
@@ -86,11 +95,17 @@ public class PooledDataSource implements DataSource {
 
   @Override
   public Connection getConnection() throws SQLException {
+    if (poolMaintenanceInterval > 0 && maintenanceTask == null) {
+      startMaintenance();
+    }
     return popConnection(dataSource.getUsername(), dataSource.getPassword()).getProxyConnection();
   }
 
   @Override
   public Connection getConnection(String username, String password) throws SQLException {
+    if (poolMaintenanceInterval > 0 && maintenanceTask == null) {
+      startMaintenance();
+    }
     return popConnection(username, password).getProxyConnection();
   }
 
@@ -247,6 +262,69 @@ public class PooledDataSource implements DataSource {
     forceCloseAll();
   }
 
+  /**
+   * Determines if connections are checked out and returned without holding the pool lock.
+   * Idle connections are then claimed with compare-and-set operations, a thread gets back the connection
+   * it returned last when it is still idle and waiting threads are served in arrival order.
+   *
+   * @param poolLockFree True to use the lock-free pool
+   * @since 3.5.3
+   */
+  public void setPoolLockFree(boolean poolLockFree) {
+    this.poolLockFree = poolLockFree;
+    forceCloseAll();
+  }
+
+  /**
+   * The number of idle connections the background maintenance keeps in the pool.
+   * Connections are created ahead of the first request, as long as the pool has
+   * fewer than <code>poolMaximumActiveConnections</code> connections.
+   *
+   * @param poolMinimumIdle The minimum number of idle connections
+   * @since 3.5.3
+   */
+  public void setPoolMinimumIdle(int poolMinimumIdle) {
+    this.poolMinimumIdle = poolMinimumIdle;
+    forceCloseAll();
+  }
+
+  /**
+   * The maximum time a connection can live. Older connections are closed when they are
+   * returned or, when they are idle, by the background maintenance.
+   *
+   * @param milliseconds the maximum lifetime of a connection, 0 for no limit
+   * @since 3.5.3
+   */
+  public void setPoolMaximumLifetime(int milliseconds) {
+    this.poolMaximumLifetime = milliseconds;
+    forceCloseAll();
+  }
+
+  /**
+   * The maximum time a connection can stay unused before the background maintenance closes it,
+   * unless this would leave less than <code>poolMinimumIdle</code> idle connections.
+   *
+   * @param milliseconds the maximum idle time of a connection, 0 for no limit
+   * @since 3.5.3
+   */
+  public void setPoolMaximumIdleTime(int milliseconds) {
+    this.poolMaximumIdleTime = milliseconds;
+    forceCloseAll();
+  }
+
+  /**
+   * The delay between two runs of the background maintenance. When it is enabled, the ping query is
+   * sent to idle connections by the maintenance instead of the threads checking out connections.
+   *
+   * @param milliseconds the delay between two runs, 0 to disable the background maintenance
+   * @since 3.5.3
+   */
+  public void setPoolMaintenanceInterval(int milliseconds) {
+    this.poolMaintenanceInterval = milliseconds;
+    stopMaintenance();
+    forceCloseAll();
+  }
+
   public String getDriver() {
     return dataSource.getDriver();
   }
@@ -314,11 +392,66 @@ public class PooledDataSource implements DataSource {
     return poolPingConnectionsNotUsedFor;
   }
 
+  /**
+   * @since 3.5.3
+   */
+  public boolean isPoolLockFree() {
+    return poolLockFree;
+  }
+
+  /**
+   * @since 3.5.3
+   */
+  public int getPoolMinimumIdle() {
+    return poolMinimumIdle;
+  }
+
+  /**
+   * @since 3.5.3
+   */
+  public int getPoolMaximumLifetime() {
+    return poolMaximumLifetime;
+  }
+
+  /**
+   * @since 3.5.3
+   */
+  public int getPoolMaximumIdleTime() {
+    return poolMaximumIdleTime;
+  }
+
+  /**
+   * @since 3.5.3
+   */
+  public int getPoolMaintenanceInterval() {
+    return poolMaintenanceInterval;
+  }
+
+  /**
+   * Starts the background maintenance if <code>poolMaintenanceInterval</code> is set, filling the pool up to
+   * <code>poolMinimumIdle</code> connections right away. It is otherwise started by the first checkout.
+   *
+   * @since 3.5.3
+   */
+  public synchronized void startMaintenance() {
+    if (poolMaintenanceInterval > 0 && maintenanceTask == null) {
+      maintenanceTask = PoolMaintenanceTask.schedule(this, poolMaintenanceInterval);
+    }
+  }
+
+  private synchronized void stopMaintenance() {
+    if (maintenanceTask != null) {
+      maintenanceTask.cancel();
+      maintenanceTask = null;
+    }
+  }
+
   /**
    * Closes all active and idle connections in the pool.
    */
   public void forceCloseAll() {
-    synchronized (state) {
+    state.lock.lock();
+    try {
       expectedConnectionTypeCode = assembleConnectionTypeCode(dataSource.getUrl(), dataSource.getUsername(), dataSource.getPassword());
       for (int i = state.activeConnections.size(); i > 0; i--) {
         try {
@@ -348,6 +481,23 @@ public class PooledDataSource implements DataSource {
           // ignore
         }
       }
+      List<PooledConnection> bagConnections = state.connectionBag.removeActiveConnections();
+      bagConnections.addAll(state.connectionBag.removeIdleConnections());
+      for (PooledConnection conn : bagConnections) {
+        try {
+          conn.invalidate();
+
+          Connection realConn = conn.getRealConnection();
+          if (!realConn.getAutoCommit()) {
+            realConn.rollback();
+          }
+          realConn.close();
+        } catch (Exception e) {
+          // ignore
+        }
+      }
+    } finally {
+      state.lock.unlock();
     }
     if (log.isDebugEnabled()) {
       log.debug("PooledDataSource forcefully closed/removed all connections.");
@@ -363,12 +513,18 @@ public class PooledDataSource implements DataSource {
   }
 
   protected void pushConnection(PooledConnection conn) throws SQLException {
+    if (poolLockFree) {
+      pushConnectionToBag(conn);
+      return;
+    }
 
-    synchronized (state) {
+    state.lock.lock();
+    try {
       state.activeConnections.remove(conn);
       if (conn.isValid()) {
-        if (state.idleConnections.size() < poolMaximumIdleConnections && conn.getConnectionTypeCode() == expectedConnectionTypeCode) {
-          state.accumulatedCheckoutTime += conn.getCheckoutTime();
+        if (state.idleConnections.size() < poolMaximumIdleConnections && conn.getConnectionTypeCode() == expectedConnectionTypeCode
+            && !isExpired(conn)) {
+          state.recordCheckin(conn.getCheckoutTime());
           if (!conn.getRealConnection().getAutoCommit()) {
             conn.getRealConnection().rollback();
           }
@@ -380,9 +536,9 @@ public class PooledDataSource implements DataSource {
           if (log.isDebugEnabled()) {
             log.debug("Returned connection " + newConn.getRealHashCode() + " to pool.");
           }
-          state.notifyAll();
+          state.connectionAvailable.signalAll();
         } else {
-          state.accumulatedCheckoutTime += conn.getCheckoutTime();
+          state.recordCheckin(conn.getCheckoutTime());
           if (!conn.getRealConnection().getAutoCommit()) {
             conn.getRealConnection().rollback();
           }
@@ -396,19 +552,67 @@ public class PooledDataSource implements DataSource {
         if (log.isDebugEnabled()) {
           log.debug("A bad connection (" + conn.getRealHashCode() + ") attempted to return to the pool, discarding connection.");
         }
-        state.badConnectionCount++;
+        state.recordBadConnection();
       }
+    } finally {
+      state.lock.unlock();
+    }
+  }
+
+  private void pushConnectionToBag(PooledConnection conn) throws SQLException {
+    ConnectionBag bag = state.connectionBag;
+    boolean owned = bag.deactivate(conn);
+    if (owned && conn.isValid()) {
+      state.recordCheckin(conn.getCheckoutTime());
+      try {
+        if (!conn.getRealConnection().getAutoCommit()) {
+          conn.getRealConnection().rollback();
+        }
+      } catch (SQLException e) {
+        bag.release();
+        throw e;
+      }
+      if ((bag.getIdleCount() < poolMaximumIdleConnections || bag.hasWaiters()) && conn.getConnectionTypeCode() == expectedConnectionTypeCode
+          && !isExpired(conn)) {
+        PooledConnection newConn = new PooledConnection(conn.getRealConnection(), this);
+        newConn.setCreatedTimestamp(conn.getCreatedTimestamp());
+        newConn.setLastUsedTimestamp(conn.getLastUsedTimestamp());
+        conn.invalidate();
+        bag.requite(newConn);
+        if (log.isDebugEnabled()) {
+          log.debug("Returned connection " + newConn.getRealHashCode() + " to pool.");
+        }
+      } else {
+        bag.release();
+        conn.getRealConnection().close();
+        if (log.isDebugEnabled()) {
+          log.debug("Closed connection " + conn.getRealHashCode() + ".");
+        }
+        conn.invalidate();
+      }
+    } else {
+      if (owned) {
+        bag.release();
+      }
+      if (log.isDebugEnabled()) {
+        log.debug("A bad connection (" + conn.getRealHashCode() + ") attempted to return to the pool, discarding connection.");
+      }
+      state.recordBadConnection();
     }
   }
 
   private PooledConnection popConnection(String username, String password) throws SQLException {
+    if (poolLockFree) {
+      return popConnectionFromBag(username, password);
+    }
     boolean countedWait = false;
     PooledConnection conn = null;
-    long t = System.currentTimeMillis();
+    long t = System.nanoTime();
     int localBadConnectionCount = 0;
 
     while (conn == null) {
-      synchronized (state) {
+      state.lock.lock();
+      try {
         if (!state.idleConnections.isEmpty()) {
           // Pool has available connection
           conn = state.idleConnections.remove(0);
@@ -417,7 +621,7 @@ public class PooledDataSource implements DataSource {
           }
         } else {
           // Pool does not have available connection
-          if (state.activeConnections.size() < poolMaximumActiveConnections) {
+          if (state.activeConnections.size() + state.pendingConnections < poolMaximumActiveConnections) {
             // Can create new connection
             conn = new PooledConnection(dataSource.getConnection(), this);
             if (log.isDebugEnabled()) {
@@ -425,13 +629,12 @@ public class PooledDataSource implements DataSource {
             }
           } else {
             // Cannot create new connection
-            PooledConnection oldestActiveConnection = state.activeConnections.get(0);
-            long longestCheckoutTime = oldestActiveConnection.getCheckoutTime();
-            if (longestCheckoutTime > poolMaximumCheckoutTime) {
+            // there may be none when the connections are being created by the maintenance
+            PooledConnection oldestActiveConnection = state.activeConnections.isEmpty() ? null : state.activeConnections.get(0);
+            if (oldestActiveConnection != null && oldestActiveConnection.getCheckoutTime() > poolMaximumCheckoutTime) {
               // Can claim overdue connection
-              state.claimedOverdueConnectionCount++;
-              state.accumulatedCheckoutTimeOfOverdueConnections += longestCheckoutTime;
-              state.accumulatedCheckoutTime += longestCheckoutTime;
+              long longestCheckoutTime = oldestActiveConnection.getCheckoutTime();
+              state.recordClaimedOverdue(longestCheckoutTime);
               state.activeConnections.remove(oldestActiveConnection);
               if (!oldestActiveConnection.getRealConnection().getAutoCommit()) {
                 try {
@@ -459,15 +662,19 @@ public class PooledDataSource implements DataSource {
               // Must wait
               try {
                 if (!countedWait) {
-                  state.hadToWaitCount++;
+                  state.recordHadToWait();
                   countedWait = true;
                 }
                 if (log.isDebugEnabled()) {
                   log.debug("Waiting as long as " + poolTimeToWait + " milliseconds for connection.");
                 }
-                long wt = System.currentTimeMillis();
-                state.wait(poolTimeToWait);
-                state.accumulatedWaitTime += System.currentTimeMillis() - wt;
+                long wt = System.nanoTime();
+                if (poolTimeToWait > 0) {
+                  state.connectionAvailable.await(poolTimeToWait, TimeUnit.MILLISECONDS);
+                } else {
+                  state.connectionAvailable.await();
+                }
+                state.recordWait(System.nanoTime() - wt);
               } catch (InterruptedException e) {
                 break;
               }
@@ -484,13 +691,12 @@ public class PooledDataSource implements DataSource {
             conn.setCheckoutTimestamp(System.currentTimeMillis());
             conn.setLastUsedTimestamp(System.currentTimeMillis());
             state.activeConnections.add(conn);
-            state.requestCount++;
-            state.accumulatedRequestTime += System.currentTimeMillis() - t;
+            state.recordRequest(System.nanoTime() - t);
           } else {
             if (log.isDebugEnabled()) {
               log.debug("A bad connection (" + conn.getRealHashCode() + ") was returned from the pool, getting another connection.");
             }
-            state.badConnectionCount++;
+            state.recordBadConnection();
             localBadConnectionCount++;
             conn = null;
             if (localBadConnectionCount > (poolMaximumIdleConnections + poolMaximumLocalBadConnectionTolerance)) {
@@ -501,6 +707,8 @@ public class PooledDataSource implements DataSource {
             }
           }
         }
+      } finally {
+        state.lock.unlock();
       }
 
     }
@@ -515,6 +723,271 @@ public class PooledDataSource implements DataSource {
     return conn;
   }
 
+  private PooledConnection popConnectionFromBag(String username, String password) throws SQLException {
+    ConnectionBag bag = state.connectionBag;
+    boolean countedWait = false;
+    PooledConnection conn = null;
+    long t = System.nanoTime();
+    int localBadConnectionCount = 0;
+
+    while (conn == null) {
+      conn = bag.borrow();
+      if (conn != null) {
+        // Pool has available connection
+        if (log.isDebugEnabled()) {
+          log.debug("Checked out connection " + conn.getRealHashCode() + " from pool.");
+        }
+      } else if (bag.reserve(poolMaximumActiveConnections)) {
+        // Can create new connection
+        try {
+          conn = new PooledConnection(dataSource.getConnection(), this);
+        } catch (SQLException | RuntimeException e) {
+          bag.release();
+          throw e;
+        }
+        if (log.isDebugEnabled()) {
+          log.debug("Created connection " + conn.getRealHashCode() + ".");
+        }
+      } else {
+        conn = claimOverdueConnection(bag);
+        if (conn == null) {
+          // Must wait
+          try {
+            if (!countedWait) {
+              state.recordHadToWait();
+              countedWait = true;
+            }
+            if (log.isDebugEnabled()) {
+              log.debug("Waiting as long as " + poolTimeToWait + " milliseconds for connection.");
+            }
+            long wt = System.nanoTime();
+            conn = bag.await(poolTimeToWait, poolMaximumActiveConnections);
+            state.recordWait(System.nanoTime() - wt);
+          } catch (InterruptedException e) {
+            break;
+          }
+        }
+      }
+      if (conn != null) {
+        // ping to server and check the connection is valid or not
+        if (conn.isValid()) {
+          try {
+            if (!conn.getRealConnection().getAutoCommit()) {
+              conn.getRealConnection().rollback();
+            }
+          } catch (SQLException e) {
+            bag.release();
+            throw e;
+          }
+          conn.setConnectionTypeCode(assembleConnectionTypeCode(dataSource.getUrl(), username, password));
+          conn.setCheckoutTimestamp(System.currentTimeMillis());
+          conn.setLastUsedTimestamp(System.currentTimeMillis());
+          bag.activate(conn);
+          state.recordRequest(System.nanoTime() - t);
+        } else {
+          if (log.isDebugEnabled()) {
+            log.debug("A bad connection (" + conn.getRealHashCode() + ") was returned from the pool, getting another connection.");
+          }
+          state.recordBadConnection();
+          bag.release();
+          localBadConnectionCount++;
+          conn = null;
+          if (localBadConnectionCount > (poolMaximumIdleConnections + poolMaximumLocalBadConnectionTolerance)) {
+            if (log.isDebugEnabled()) {
+              log.debug("PooledDataSource: Could not get a good connection to the database.");
+            }
+            throw new SQLException("PooledDataSource: Could not get a good connection to the database.");
+          }
+        }
+      }
+    }
+
+    if (conn == null) {
+      if (log.isDebugEnabled()) {
+        log.debug("PooledDataSource: Unknown severe error condition.  The connection pool returned a null connection.");
+      }
+      throw new SQLException("PooledDataSource: Unknown severe error condition.  The connection pool returned a null connection.");
+    }
+
+    return conn;
+  }
+
+  private PooledConnection claimOverdueConnection(ConnectionBag bag) {
+    PooledConnection oldestActiveConnection = bag.getOldestActiveConnection();
+    if (oldestActiveConnection == null) {
+      return null;
+    }
+    long longestCheckoutTime = oldestActiveConnection.getCheckoutTime();
+    if (longestCheckoutTime <= poolMaximumCheckoutTime || !bag.deactivate(oldestActiveConnection)) {
+      return null;
+    }
+    state.recordClaimedOverdue(longestCheckoutTime);
+    try {
+      if (!oldestActiveConnection.getRealConnection().getAutoCommit()) {
+        oldestActiveConnection.getRealConnection().rollback();
+      }
+    } catch (SQLException e) {
+      // same as the synchronized pool, the bad connection is discarded when it is validated
+      log.debug("Bad connection. Could not roll back");
+    }
+    PooledConnection conn = new PooledConnection(oldestActiveConnection.getRealConnection(), this);
+    conn.setCreatedTimestamp(oldestActiveConnection.getCreatedTimestamp());
+    conn.setLastUsedTimestamp(oldestActiveConnection.getLastUsedTimestamp());
+    oldestActiveConnection.invalidate();
+    if (log.isDebugEnabled()) {
+      log.debug("Claimed overdue connection " + conn.getRealHashCode() + ".");
+    }
+    return conn;
+  }
+
+  /**
+   * Runs one round of the background maintenance: closes the idle connections that exceeded their lifetime or idle time,
+   * sends the ping query to the other idle connections and creates connections up to <code>poolMinimumIdle</code>.
+   */
+  void maintain() {
+    for (PooledConnection conn : getIdleConnections()) {
+      boolean stale = poolMaximumIdleTime > 0 && conn.getTimeElapsedSinceLastUse() > poolMaximumIdleTime
+          && state.getIdleConnectionCount() > poolMinimumIdle;
+      if (isExpired(conn) || stale) {
+        if (removeIdleConnection(conn)) {
+          discardConnection(conn);
+          if (log.isDebugEnabled()) {
+            log.debug("Retired idle connection " + conn.getRealHashCode() + ".");
+          }
+        }
+      } else if (poolPingEnabled && conn.getTimeElapsedSinceLastUse() > poolPingConnectionsNotUsedFor && removeIdleConnection(conn)) {
+        if (pingConnection(conn, true)) {
+          PooledConnection newConn = new PooledConnection(conn.getRealConnection(), this);
+          newConn.setConnectionTypeCode(conn.getConnectionTypeCode());
+          newConn.setCreatedTimestamp(conn.getCreatedTimestamp());
+          newConn.setLastUsedTimestamp(conn.getLastUsedTimestamp());
+          conn.invalidate();
+          addIdleConnection(newConn);
+        } else {
+          discardConnection(conn);
+          state.recordBadConnection();
+        }
+      }
+    }
+    while (state.getIdleConnectionCount() < poolMinimumIdle && reserveConnection()) {
+      PooledConnection conn;
+      try {
+        conn = new PooledConnection(dataSource.getConnection(), this);
+      } catch (SQLException e) {
+        releaseReservation();
+        log.warn("Could not create an idle connection: " + e.getMessage());
+        return;
+      }
+      conn.setConnectionTypeCode(expectedConnectionTypeCode);
+      if (!addIdleConnection(conn)) {
+        return;
+      }
+      if (log.isDebugEnabled()) {
+        log.debug("Created idle connection " + conn.getRealHashCode() + ".");
+      }
+    }
+  }
+
+  private List<PooledConnection> getIdleConnections() {
+    if (poolLockFree) {
+      return state.connectionBag.getIdleConnections();
+    }
+    state.lock.lock();
+    try {
+      return new ArrayList<>(state.idleConnections);
+    } finally {
+      state.lock.unlock();
+    }
+  }
+
+  private boolean removeIdleConnection(PooledConnection conn) {
+    if (poolLockFree) {
+      return state.connectionBag.remove(conn);
+    }
+    state.lock.lock();
+    try {
+      if (!state.idleConnections.remove(conn)) {
+        return false;
+      }
+      // still counted against the maximum while it is checked
+      state.pendingConnections++;
+      return true;
+    } finally {
+      state.lock.unlock();
+    }
+  }
+
+  private boolean addIdleConnection(PooledConnection conn) {
+    boolean added = false;
+    if (poolLockFree) {
+      if (state.connectionBag.getIdleCount() < poolMaximumIdleConnections) {
+        state.connectionBag.requite(conn);
+        added = true;
+      }
+    } else {
+      state.lock.lock();
+      try {
+        if (state.idleConnections.size() < poolMaximumIdleConnections) {
+          state.pendingConnections--;
+          state.idleConnections.add(conn);
+          state.connectionAvailable.signalAll();
+          added = true;
+        }
+      } finally {
+        state.lock.unlock();
+      }
+    }
+    if (!added) {
+      discardConnection(conn);
+    }
+    return added;
+  }
+
+  private boolean reserveConnection() {
+    if (poolLockFree) {
+      return state.connectionBag.reserve(poolMaximumActiveConnections);
+    }
+    state.lock.lock();
+    try {
+      if (state.idleConnections.size() + state.activeConnections.size() + state.pendingConnections >= poolMaximumActiveConnections) {
+        return false;
+      }
+      state.pendingConnections++;
+      return true;
+    } finally {
+      state.lock.unlock();
+    }
+  }
+
+  private void releaseReservation() {
+    if (poolLockFree) {
+      state.connectionBag.release();
+      return;
+    }
+    state.lock.lock();
+    try {
+      state.pendingConnections--;
+      // a waiting thread may now create a connection
+      state.connectionAvailable.signalAll();
+    } finally {
+      state.lock.unlock();
+    }
+  }
+
+  private void discardConnection(PooledConnection conn) {
+    conn.invalidate();
+    releaseReservation();
+    try {
+      conn.getRealConnection().close();
+    } catch (SQLException e) {
+      // ignore
+    }
+  }
+
+  private boolean isExpired(PooledConnection conn) {
+    return poolMaximumLifetime > 0 && conn.getAge() > poolMaximumLifetime;
+  }
+
   /**
    * Method to check to see if a connection is still usable
    *
@@ -522,6 +995,11 @@ public class PooledDataSource implements DataSource {
    * @return True if the connection is still usable
    */
   protected boolean pingConnection(PooledConnection conn) {
+    // with the background maintenance, idle connections are pinged before they are checked out
+    return pingConnection(conn, maintenanceTask == null);
+  }
+
+  private boolean pingConnection(PooledConnection conn, boolean sendPingQuery) {
     boolean result = true;
 
     try {
@@ -534,7 +1012,7 @@ public class PooledDataSource implements DataSource {
     }
 
     if (result) {
-      if (poolPingEnabled) {
+      if (poolPingEnabled && sendPingQuery) {
         if (poolPingConnectionsNotUsedFor >= 0 && conn.getTimeElapsedSinceLastUse() > poolPingConnectionsNotUsedFor) {
           try {
             if (log.isDebugEnabled()) {
@@ -587,6 +1065,7 @@ public class PooledDataSource implements DataSource {
 
   @Override
   protected void finalize() throws Throwable {
+    stopMaintenance();
     forceCloseAll();
     super.finalize();
   }
@@ -34,6 +34,7 @@ import org.apache.ibatis.mapping.BoundSql;
 import org.apache.ibatis.mapping.MappedStatement;
 import org.apache.ibatis.mapping.ParameterMapping;
 import org.apache.ibatis.mapping.ParameterMode;
+import org.apache.ibatis.mapping.ResultMap;
 import org.apache.ibatis.mapping.StatementType;
 import org.apache.ibatis.reflection.MetaObject;
 import org.apache.ibatis.reflection.factory.ObjectFactory;
@@ -65,7 +66,12 @@ public abstract class BaseExecutor implements Executor {
   protected BaseExecutor(Configuration configuration, Transaction transaction) {
     this.transaction = transaction;
     this.deferredLoads = new ConcurrentLinkedQueue<>();
-    this.localCache = new PerpetualCache("LocalCache");
+    if (configuration != null && configuration.isLocalCacheBounded()) {
+      this.localCache = new LocalCache("LocalCache", configuration.getLocalCacheEviction(),
+          configuration.getLocalCacheSize(), configuration.getLocalCacheMaximumWeight());
+    } else {
+      this.localCache = new PerpetualCache("LocalCache");
+    }
     this.localOutputParameterCache = new PerpetualCache("LocalOutputParameterCache");
     this.closed = false;
     this.configuration = configuration;
@@ -94,6 +100,11 @@ public abstract class BaseExecutor implements Executor {
       // Ignore.  There's nothing that can be done at this point.
       log.warn("Unexpected exception on closing transaction.  Cause: " + e);
     } finally {
+      if (localCache instanceof LocalCache && log.isDebugEnabled()) {
+        LocalCache cache = (LocalCache) localCache;
+        log.debug("Local cache: " + cache.getRequests() + " requests, " + cache.getHits() + " hits, "
+            + cache.getEvictions() + " evictions, peak size " + cache.getPeakSize());
+      }
       transaction = null;
       deferredLoads = null;
       localCache = null;
@@ -132,7 +143,7 @@ public abstract class BaseExecutor implements Executor {
   @Override
   public <E> List<E> query(MappedStatement ms, Object parameter, RowBounds rowBounds, ResultHandler resultHandler) throws SQLException {
     BoundSql boundSql = ms.getBoundSql(parameter);
-    CacheKey key = createCacheKey(ms, parameter, rowBounds, boundSql);
+    CacheKey key = queryStack == 0 && !isLocalCacheRequired(ms) ? CacheKey.NULL_CACHE_KEY : createCacheKey(ms, parameter, rowBounds, boundSql);
     return query(ms, parameter, rowBounds, resultHandler, key, boundSql);
   }
 
@@ -143,13 +154,17 @@ public abstract class BaseExecutor implements Executor {
     if (closed) {
       throw new ExecutorException("Executor was closed.");
     }
+    if (key == CacheKey.NULL_CACHE_KEY && (queryStack > 0 || isLocalCacheRequired(ms))) {
+      // e.g. a query run by a result handler
+      key = createCacheKey(ms, parameter, rowBounds, boundSql);
+    }
     if (queryStack == 0 && ms.isFlushCacheRequired()) {
       clearLocalCache();// 非嵌套查询，并且select节点配置的flushCache属性为true时，才会清空一级缓存，flushCache配置项是影响一级缓存中结果对象存活时长的第一个方面
     }
     List<E> list;
     try {
       queryStack++;// 增加查询层数
-      list = resultHandler == null ? (List<E>) localCache.getObject(key) : null;// 查询一级缓存
+      list = resultHandler == null && key != CacheKey.NULL_CACHE_KEY ? (List<E>) localCache.getObject(key) : null;// 查询一级缓存
       if (list != null) {
         handleLocallyCachedOutputParameters(ms, key, parameter, boundSql);// 针对存储过程调用的处理，在一级缓存命中时，获取缓存中保存到输出类型参数，并设置到用户传入的实参对象中
       } else {
@@ -164,6 +179,9 @@ public abstract class BaseExecutor implements Executor {
       }
       // issue #601
       deferredLoads.clear();
+      if (localCache instanceof LocalCache) {
+        ((LocalCache) localCache).statementCompleted();
+      }
       if (configuration.getLocalCacheScope() == LocalCacheScope.STATEMENT) {
         // issue #482
         clearLocalCache();
@@ -319,6 +337,10 @@ public abstract class BaseExecutor implements Executor {
 
   // 查询数据库
   private <E> List<E> queryFromDatabase(MappedStatement ms, Object parameter, RowBounds rowBounds, ResultHandler resultHandler, CacheKey key, BoundSql boundSql) throws SQLException {
+    if (key == CacheKey.NULL_CACHE_KEY) {
+      // the local cache would be cleared at the end of the statement without being read
+      return doQuery(ms, parameter, rowBounds, resultHandler, boundSql);
+    }
     List<E> list;
     localCache.putObject(key, EXECUTION_PLACEHOLDER);// 在缓存中添加占位符
     try {
@@ -333,6 +355,23 @@ public abstract class BaseExecutor implements Executor {
     return list;
   }
 
+  /**
+   * Returns whether the results of a top level query can be read from the local cache. With the statement scope,
+   * the local cache is only read by the nested queries and the stored procedure calls of the statement.
+   */
+  private boolean isLocalCacheRequired(MappedStatement ms) {
+    if (configuration.getLocalCacheScope() != LocalCacheScope.STATEMENT || ms.getStatementType() == StatementType.CALLABLE) {
+      return true;
+    }
+    for (ResultMap resultMap : ms.getResultMaps()) {
+      // nested result maps and discriminators may lead to nested queries
+      if (resultMap.hasNestedQueries() || resultMap.hasNestedResultMaps() || resultMap.getDiscriminator() != null) {
+        return true;
+      }
+    }
+    return false;
+  }
+
   protected Connection getConnection(Log statementLog) throws SQLException {
     Connection connection = transaction.getConnection();
     if (statementLog.isDebugEnabled()) {
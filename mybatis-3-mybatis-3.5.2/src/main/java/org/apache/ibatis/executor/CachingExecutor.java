@@ -16,18 +16,31 @@
 package org.apache.ibatis.executor;
 
 import java.sql.SQLException;
+import java.util.Collections;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.ibatis.cache.Cache;
 import org.apache.ibatis.cache.CacheKey;
+import org.apache.ibatis.cache.CacheStatistics;
+import org.apache.ibatis.cache.RefreshAhead;
+import org.apache.ibatis.cache.TableDependencyIndex;
 import org.apache.ibatis.cache.TransactionalCacheManager;
 import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.logging.Log;
+import org.apache.ibatis.logging.LogFactory;
 import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.Environment;
 import org.apache.ibatis.mapping.MappedStatement;
 import org.apache.ibatis.mapping.ParameterMapping;
 import org.apache.ibatis.mapping.ParameterMode;
 import org.apache.ibatis.mapping.StatementType;
+import org.apache.ibatis.parsing.TableNameParser;
 import org.apache.ibatis.reflection.MetaObject;
+import org.apache.ibatis.session.Configuration;
 import org.apache.ibatis.session.ResultHandler;
 import org.apache.ibatis.session.RowBounds;
 import org.apache.ibatis.transaction.Transaction;
@@ -38,11 +51,31 @@ import org.apache.ibatis.transaction.Transaction;
  */
 public class CachingExecutor implements Executor {
 
+  private static final Log log = LogFactory.getLog(CachingExecutor.class);
+  private static final AtomicInteger threadCount = new AtomicInteger();
+  private static final ExecutorService refreshers = Executors.newCachedThreadPool(runnable -> {
+    Thread thread = new Thread(runnable, "mybatis-cache-refresh-" + threadCount.incrementAndGet());
+    thread.setDaemon(true);
+    return thread;
+  });
+
   private final Executor delegate;
-  private final TransactionalCacheManager tcm = new TransactionalCacheManager();
+  private final TableDependencyIndex tableIndex;
+  private final TransactionalCacheManager tcm;
 
   public CachingExecutor(Executor delegate) {
+    this(delegate, null);
+  }
+
+  /**
+   * @param delegate - the executor
+   * @param tableIndex - the index of the cache entries by table, or null to clear the caches by namespace
+   * @since 3.5.3
+   */
+  public CachingExecutor(Executor delegate, TableDependencyIndex tableIndex) {
     this.delegate = delegate;
+    this.tableIndex = tableIndex;
+    this.tcm = new TransactionalCacheManager(tableIndex);
     delegate.setExecutorWrapper(this);
   }
 
@@ -72,14 +105,20 @@ public class CachingExecutor implements Executor {
 
   @Override
   public int update(MappedStatement ms, Object parameterObject) throws SQLException {
-    flushCacheIfRequired(ms);
+    if (tableIndex != null) {
+      invalidateTablesIfRequired(ms, parameterObject);
+    } else {
+      flushCacheIfRequired(ms);
+    }
     return delegate.update(ms, parameterObject);
   }
 
   @Override
   public <E> List<E> query(MappedStatement ms, Object parameterObject, RowBounds rowBounds, ResultHandler resultHandler) throws SQLException {
     BoundSql boundSql = ms.getBoundSql(parameterObject);// 获取 BoundSql对象，包装了sql语句
-    CacheKey key = createCacheKey(ms, parameterObject, rowBounds, boundSql);// 创建 CacheKey对象
+    // the key is left to the delegate when the second level cache is not used
+    CacheKey key = ms.getCache() != null && ms.isUseCache() && resultHandler == null
+        ? createCacheKey(ms, parameterObject, rowBounds, boundSql) : CacheKey.NULL_CACHE_KEY;// 创建 CacheKey对象
     return query(ms, parameterObject, rowBounds, resultHandler, key, boundSql);//★★，先查缓存，缓存查不到查数据库
   }
 
@@ -105,11 +144,25 @@ public class CachingExecutor implements Executor {
         ensureNoOutParams(ms, boundSql);
         @SuppressWarnings("unchecked")
         List<E> list = (List<E>) tcm.getObject(cache, key);
+        boolean refresh = RefreshAhead.takeRequest();
+        if (list != null && tableIndex != null && tcm.hasInvalidations() && tcm.isInvalidated(getTables(ms, boundSql))) {
+          // read from a table written by this transaction
+          list = null;
+        }
+        if (list != null && refresh) {
+          refreshAhead(ms, parameterObject, rowBounds, key, boundSql);
+        }
         if (list == null) {
           // 二级缓存没有相应的结果，调用封装的Executor对象的query方法
+          long start = System.nanoTime();
           list = delegate.query(ms, parameterObject, rowBounds, resultHandler, key, boundSql);//★
+          recordLoad(ms, cache, System.nanoTime() - start);
           // 将查询结果保存到TransactionCache.entriesToAddOnCommit集合中
-          tcm.putObject(cache, key, list); // issue #578 and #116
+          if (tableIndex != null) {
+            tcm.putObject(cache, key, list, getTables(ms, boundSql));
+          } else {
+            tcm.putObject(cache, key, list); // issue #578 and #116
+          }
         }
         return list;
       }
@@ -140,6 +193,45 @@ public class CachingExecutor implements Executor {
     }
   }
 
+  private void refreshAhead(MappedStatement ms, Object parameterObject, RowBounds rowBounds, CacheKey key, BoundSql boundSql) {
+    Configuration configuration = ms.getConfiguration();
+    Environment environment = configuration.getEnvironment();
+    if (environment == null) {
+      return;
+    }
+    Cache cache = ms.getCache();
+    Set<String> tables = tableIndex != null ? getTables(ms, boundSql) : null;
+    refreshers.execute(() -> {
+      // reloads on a connection of its own, so that the value does not depend on the transaction of the reader
+      Transaction transaction = environment.getTransactionFactory().newTransaction(environment.getDataSource(), null, false);
+      Executor executor = new SimpleExecutor(configuration, transaction);
+      try {
+        long start = System.nanoTime();
+        List<Object> list = executor.query(ms, parameterObject, rowBounds, Executor.NO_RESULT_HANDLER, key, boundSql);
+        recordLoad(ms, cache, System.nanoTime() - start);
+        RefreshAhead.putRefreshed(() -> {
+          if (tables != null) {
+            tableIndex.putObject(cache, key, list, tables);
+          } else {
+            cache.putObject(key, list);
+          }
+        });
+      } catch (Exception e) {
+        // the entry expires as it would without refresh ahead
+        log.warn("Could not refresh the cache entry of " + ms.getId() + ". Cause: " + e);
+      } finally {
+        executor.close(false);
+      }
+    });
+  }
+
+  private void recordLoad(MappedStatement ms, Cache cache, long time) {
+    CacheStatistics statistics = ms.getConfiguration().getCacheStatistics(cache.getId());
+    if (statistics != null) {
+      statistics.recordLoad(time);
+    }
+  }
+
   private void ensureNoOutParams(MappedStatement ms, BoundSql boundSql) {
     if (ms.getStatementType() == StatementType.CALLABLE) {
       for (ParameterMapping parameterMapping : boundSql.getParameterMappings()) {
@@ -177,6 +269,29 @@ public class CachingExecutor implements Executor {
     }
   }
 
+  private void invalidateTablesIfRequired(MappedStatement ms, Object parameterObject) {
+    if (!ms.isFlushCacheRequired()) {
+      return;
+    }
+    Set<String> tables = ms.getTables();
+    if (tables == null) {
+      tables = TableNameParser.parse(ms.getBoundSql(parameterObject).getSql());
+    }
+    if (tables.isEmpty()) {
+      // e.g. a stored procedure, whose tables are unknown
+      flushCacheIfRequired(ms);
+    }
+    tcm.invalidate(tables);
+  }
+
+  private Set<String> getTables(MappedStatement ms, BoundSql boundSql) {
+    Set<String> tables = ms.getTables();
+    if (tables == null) {
+      tables = TableNameParser.parse(boundSql.getSql());
+    }
+    return tables.isEmpty() ? Collections.singleton(TableDependencyIndex.ANY_TABLE) : tables;
+  }
+
   @Override
   public void setExecutorWrapper(Executor executor) {
     throw new UnsupportedOperationException("This method should not be called");
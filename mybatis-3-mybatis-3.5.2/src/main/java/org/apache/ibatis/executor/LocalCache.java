@@ -0,0 +1,178 @@
+/**
+ *    Copyright ${license.git.copyrightYears} the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor;
+
+import static org.apache.ibatis.executor.ExecutionPlaceholder.EXECUTION_PLACEHOLDER;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.cache.CacheException;
+import org.apache.ibatis.cache.decorators.LruCache;
+import org.apache.ibatis.cache.decorators.WeightedCache;
+import org.apache.ibatis.cache.impl.PerpetualCache;
+import org.apache.ibatis.reflection.MetaObject;
+import org.apache.ibatis.reflection.SystemMetaObject;
+
+/**
+ * Local cache of a session whose size is bounded by an eviction policy.
+ * <p>
+ * The entries put or read while a statement runs are held aside until it completes, so that none is evicted, or
+ * collected if the values are soft or weak, while its nested queries and deferred loads may still read it. They are
+ * then handed back to the eviction policy.
+ *
+ * @since 3.5.3
+ */
+public class LocalCache extends PerpetualCache {
+
+  private final Cache delegate;
+  private final Map<Object, Object> statementEntries = new HashMap<>();
+  // the statement entries that were read from the delegate
+  private final Set<Object> readKeys = new HashSet<>();
+  private long requests;
+  private long hits;
+  private long evictions;
+  private int peakSize;
+
+  /**
+   * @param id - the cache id
+   * @param eviction - the eviction decorator, or null for LRU or, with a maximum weight, for WEIGHTED
+   * @param size - the maximum number of entries, or null for the default of the eviction policy
+   * @param maximumWeight - the maximum weight of the entries, or null for the default of the eviction policy
+   */
+  public LocalCache(String id, Class<? extends Cache> eviction, Integer size, Long maximumWeight) {
+    super(id);
+    Class<? extends Cache> evictionClass = eviction;
+    if (evictionClass == null) {
+      evictionClass = maximumWeight != null ? WeightedCache.class : LruCache.class;
+    }
+    Cache cache;
+    try {
+      cache = evictionClass.getConstructor(Cache.class).newInstance(new PerpetualCache(id));
+    } catch (Exception e) {
+      throw new CacheException("Could not instantiate local cache eviction (" + evictionClass + "). Cause: " + e, e);
+    }
+    MetaObject metaCache = SystemMetaObject.forObject(cache);
+    if (size != null && metaCache.hasSetter("size")) {
+      metaCache.setValue("size", size);
+    }
+    if (maximumWeight != null && metaCache.hasSetter("maximumWeight")) {
+      metaCache.setValue("maximumWeight", maximumWeight);
+    }
+    this.delegate = cache;
+  }
+
+  @Override
+  public int getSize() {
+    return statementEntries.size() - readKeys.size() + delegate.getSize();
+  }
+
+  @Override
+  public void putObject(Object key, Object value) {
+    statementEntries.put(key, value);
+  }
+
+  @Override
+  public Object getObject(Object key) {
+    Object value = statementEntries.get(key);
+    if (value == null) {
+      value = delegate.getObject(key);
+      if (value != null) {
+        statementEntries.put(key, value);
+        readKeys.add(key);
+      }
+    }
+    if (value != EXECUTION_PLACEHOLDER) {
+      requests++;
+      if (value != null) {
+        hits++;
+      }
+    }
+    return value;
+  }
+
+  @Override
+  public Object removeObject(Object key) {
+    Object value = statementEntries.remove(key);
+    readKeys.remove(key);
+    Object evicted = delegate.removeObject(key);
+    return value != null ? value : evicted;
+  }
+
+  @Override
+  public void clear() {
+    statementEntries.clear();
+    readKeys.clear();
+    delegate.clear();
+  }
+
+  /**
+   * Hands the entries put by the statement that has completed to the eviction policy.
+   */
+  public void statementCompleted() {
+    if (statementEntries.isEmpty()) {
+      return;
+    }
+    int size = delegate.getSize();
+    int added = statementEntries.size() - readKeys.size();
+    peakSize = Math.max(peakSize, size + added);
+    for (Map.Entry<Object, Object> entry : statementEntries.entrySet()) {
+      if (readKeys.contains(entry.getKey())) {
+        // still in the delegate, that has already seen the read
+        continue;
+      }
+      // a statement that failed may have left its placeholder
+      if (entry.getValue() != EXECUTION_PLACEHOLDER) {
+        delegate.putObject(entry.getKey(), entry.getValue());
+      } else {
+        added--;
+      }
+    }
+    statementEntries.clear();
+    readKeys.clear();
+    // also counts the values of a soft or weak cache that have been collected
+    evictions += Math.max(0, size + added - delegate.getSize());
+  }
+
+  /**
+   * Returns the number of lookups, excluding those that found a statement still running.
+   */
+  public long getRequests() {
+    return requests;
+  }
+
+  public long getHits() {
+    return hits;
+  }
+
+  /**
+   * Returns the approximate number of entries evicted.
+   */
+  public long getEvictions() {
+    return evictions;
+  }
+
+  /**
+   * Returns the largest number of entries held, at the end of a statement.
+   */
+  public int getPeakSize() {
+    return peakSize;
+  }
+
+}
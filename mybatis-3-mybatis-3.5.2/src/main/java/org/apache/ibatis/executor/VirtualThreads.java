@@ -0,0 +1,62 @@
+/**
+ *    Copyright ${license.git.copyrightYears} the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Gives access to virtual threads on the Java versions that have them, without depending on them at compile time.
+ * MyBatis only starts them for the background queries of the prefetching cursors and of the publishers.
+ *
+ * @since 3.5.3
+ * @see org.apache.ibatis.session.Configuration#setUseVirtualThreads(boolean)
+ */
+public final class VirtualThreads {
+
+  private static final ExecutorService executor = createExecutor();
+
+  private VirtualThreads() {
+    super();
+  }
+
+  /**
+   * @return true if the running Java version supports virtual threads
+   */
+  public static boolean isSupported() {
+    return executor != null;
+  }
+
+  /**
+   * Returns a shared executor that starts a new virtual thread for each task.
+   *
+   * @return The executor, or null if the running Java version does not support virtual threads
+   */
+  public static Executor getExecutor() {
+    return executor;
+  }
+
+  private static ExecutorService createExecutor() {
+    try {
+      return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+    } catch (ReflectiveOperationException | RuntimeException e) {
+      // before Java 21, or Java 19 and 20 without preview features
+      return null;
+    }
+  }
+
+}
@@ -0,0 +1,94 @@
+/**
+ *    Copyright ${license.git.copyrightYears} the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.resultset;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.ibatis.type.TypeHandler;
+
+/**
+ * How the columns of a result set are mapped by a result map with a column prefix: which columns are mapped
+ * explicitly, which are not, and how the latter are auto-mapped. A plan is resolved once for each result map,
+ * column prefix and column signature, and shared by all the statements returning the same columns.
+ *
+ * @since 3.5.3
+ * @see org.apache.ibatis.session.Configuration#getAutoMappingPlan(String)
+ */
+public final class AutoMappingPlan {
+
+  private final List<String> mappedColumnNames;
+  private final List<String> unmappedColumnNames;
+  private volatile AutoMappings autoMappings;
+
+  AutoMappingPlan(List<String> mappedColumnNames, List<String> unmappedColumnNames) {
+    this.mappedColumnNames = Collections.unmodifiableList(mappedColumnNames);
+    this.unmappedColumnNames = Collections.unmodifiableList(unmappedColumnNames);
+  }
+
+  /**
+   * @return The upper case names of the columns mapped by the result map
+   */
+  public List<String> getMappedColumnNames() {
+    return mappedColumnNames;
+  }
+
+  public List<String> getUnmappedColumnNames() {
+    return unmappedColumnNames;
+  }
+
+  /**
+   * @param type - the class of the result objects
+   * @return The auto-mappings of the unmapped columns to the properties of the class, or null if they have not
+   *     been resolved for this class
+   */
+  List<UnMappedColumnAutoMapping> getAutoMappings(Class<?> type) {
+    AutoMappings resolved = autoMappings;
+    return resolved != null && resolved.type == type ? resolved.mappings : null;
+  }
+
+  void setAutoMappings(Class<?> type, List<UnMappedColumnAutoMapping> mappings) {
+    // the result objects of a result map are usually all of the same class, so only the first one is kept
+    if (autoMappings == null) {
+      autoMappings = new AutoMappings(type, Collections.unmodifiableList(mappings));
+    }
+  }
+
+  static class UnMappedColumnAutoMapping {
+    final String column;
+    final String property;
+    final TypeHandler<?> typeHandler;
+    final boolean primitive;
+
+    UnMappedColumnAutoMapping(String column, String property, TypeHandler<?> typeHandler, boolean primitive) {
+      this.column = column;
+      this.property = property;
+      this.typeHandler = typeHandler;
+      this.primitive = primitive;
+    }
+  }
+
+  private static class AutoMappings {
+    private final Class<?> type;
+    private final List<UnMappedColumnAutoMapping> mappings;
+
+    AutoMappings(Class<?> type, List<UnMappedColumnAutoMapping> mappings) {
+      this.type = type;
+      this.mappings = mappings;
+    }
+  }
+
+}
@@ -0,0 +1,204 @@
+/**
+ *    Copyright ${license.git.copyrightYears} the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.resultset;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ResultMap;
+import org.apache.ibatis.mapping.ResultMapping;
+import org.apache.ibatis.reflection.ExceptionUtil;
+import org.apache.ibatis.reflection.MetaClass;
+import org.apache.ibatis.reflection.ReflectionException;
+import org.apache.ibatis.reflection.factory.ObjectFactory;
+import org.apache.ibatis.reflection.invoker.Invoker;
+import org.apache.ibatis.reflection.wrapper.DefaultObjectWrapperFactory;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.type.TypeHandler;
+import org.apache.ibatis.type.TypeHandlerRegistry;
+
+/**
+ * Row mapper compiled for a result map and the columns of a result set. Each mapped column is resolved once to
+ * its index, its type handler and the setter of its property, so that mapping a row only reads the columns by
+ * index and calls the setters, without going through a {@link org.apache.ibatis.reflection.MetaObject}.
+ * <p>
+ * Only the result maps of beans created with their default constructor, whose columns are mapped to simple
+ * properties, can be compiled. Nested and constructor mappings, nested properties and custom object wrappers
+ * are left to the {@link DefaultResultSetHandler}.
+ *
+ * @since 3.5.3
+ * @see Configuration#isCompiledRowMappersEnabled()
+ */
+public final class CompiledRowMapper {
+
+  static final CompiledRowMapper UNSUPPORTED = new CompiledRowMapper(null, null, null, false, false);
+
+  private final Class<?> type;
+  private final ObjectFactory objectFactory;
+  private final MappedColumn[] columns;
+  private final boolean callSettersOnNulls;
+  private final boolean returnInstanceForEmptyRow;
+
+  private CompiledRowMapper(Class<?> type, ObjectFactory objectFactory, MappedColumn[] columns,
+      boolean callSettersOnNulls, boolean returnInstanceForEmptyRow) {
+    this.type = type;
+    this.objectFactory = objectFactory;
+    this.columns = columns;
+    this.callSettersOnNulls = callSettersOnNulls;
+    this.returnInstanceForEmptyRow = returnInstanceForEmptyRow;
+  }
+
+  /**
+   * Compiles the row mapper of a result map that is not handled by a type handler.
+   *
+   * @param rsw - the result set
+   * @param resultMap - the result map
+   * @param autoMapping - whether the unmapped columns are auto-mapped
+   * @param mappedStatement - the statement, for the unknown column behavior
+   * @param configuration - the configuration
+   * @return The row mapper, or {@link #UNSUPPORTED} if the result map can not be compiled
+   */
+  static CompiledRowMapper compile(ResultSetWrapper rsw, ResultMap resultMap, boolean autoMapping,
+      MappedStatement mappedStatement, Configuration configuration) throws SQLException {
+    final Class<?> type = resultMap.getType();
+    if (!configuration.isUseColumnLabel()
+        || !(configuration.getObjectWrapperFactory() instanceof DefaultObjectWrapperFactory)
+        || type.isInterface() || type.isArray()
+        || Map.class.isAssignableFrom(type) || Collection.class.isAssignableFrom(type)
+        || !resultMap.getConstructorResultMappings().isEmpty()) {
+      return UNSUPPORTED;
+    }
+    final MetaClass metaType = MetaClass.forClass(type, configuration.getReflectorFactory());
+    if (!metaType.hasDefaultConstructor()) {
+      return UNSUPPORTED;
+    }
+    final List<MappedColumn> columns = new ArrayList<>();
+    if (autoMapping) {
+      final TypeHandlerRegistry typeHandlerRegistry = configuration.getTypeHandlerRegistry();
+      for (String columnName : rsw.getUnmappedColumnNames(resultMap, null)) {
+        final String property = metaType.findProperty(columnName, configuration.isMapUnderscoreToCamelCase());
+        if (property != null && !isSimpleProperty(property)) {
+          return UNSUPPORTED;
+        }
+        if (property != null && metaType.hasSetter(property)) {
+          if (resultMap.getMappedProperties().contains(property)) {
+            continue;
+          }
+          final Class<?> propertyType = metaType.getSetterType(property);
+          if (typeHandlerRegistry.hasTypeHandler(propertyType, rsw.getJdbcType(columnName))) {
+            columns.add(new MappedColumn(indexOf(rsw, columnName), rsw.getTypeHandler(propertyType, columnName),
+                property, metaType.getSetInvoker(property), propertyType.isPrimitive()));
+          } else {
+            configuration.getAutoMappingUnknownColumnBehavior()
+                .doAction(mappedStatement, columnName, property, propertyType);
+          }
+        } else {
+          configuration.getAutoMappingUnknownColumnBehavior()
+              .doAction(mappedStatement, columnName, (property != null) ? property : columnName, null);
+        }
+      }
+    }
+    final List<String> mappedColumnNames = rsw.getMappedColumnNames(resultMap, null);
+    for (ResultMapping propertyMapping : resultMap.getPropertyResultMappings()) {
+      if (propertyMapping.getNestedQueryId() != null || propertyMapping.getNestedResultMapId() != null
+          || propertyMapping.getResultSet() != null || propertyMapping.isCompositeResult()) {
+        return UNSUPPORTED;
+      }
+      final String column = propertyMapping.getColumn();
+      final String property = propertyMapping.getProperty();
+      if (column == null || property == null || !mappedColumnNames.contains(column.toUpperCase(Locale.ENGLISH))) {
+        continue;
+      }
+      if (!isSimpleProperty(property) || !metaType.hasSetter(property)) {
+        return UNSUPPORTED;
+      }
+      columns.add(new MappedColumn(indexOf(rsw, column), propertyMapping.getTypeHandler(), property,
+          metaType.getSetInvoker(property), metaType.getSetterType(property).isPrimitive()));
+    }
+    return new CompiledRowMapper(type, configuration.getObjectFactory(), columns.toArray(new MappedColumn[0]),
+        configuration.isCallSettersOnNulls(), configuration.isReturnInstanceForEmptyRow());
+  }
+
+  /**
+   * Maps the current row of a result set.
+   *
+   * @param rs - the result set
+   * @return The row value, or null if all the columns are null
+   */
+  Object map(ResultSet rs) throws SQLException {
+    final Object rowValue = objectFactory.create(type);
+    boolean foundValues = false;
+    for (MappedColumn column : columns) {
+      final Object value = column.typeHandler.getResult(rs, column.index);
+      if (value != null) {
+        foundValues = true;
+      }
+      if (value != null || (callSettersOnNulls && !column.primitive)) {
+        // gcode issue #377, call setter on nulls (value is not 'found')
+        column.set(rowValue, value);
+      }
+    }
+    return foundValues || returnInstanceForEmptyRow ? rowValue : null;
+  }
+
+  private static boolean isSimpleProperty(String property) {
+    return property.indexOf('.') < 0 && property.indexOf('[') < 0;
+  }
+
+  private static int indexOf(ResultSetWrapper rsw, String columnName) {
+    final int index = rsw.getColumnIndex(columnName);
+    if (index < 0) {
+      throw new IllegalStateException("Column '" + columnName + "' not found in the result set.");
+    }
+    return index;
+  }
+
+  private static class MappedColumn {
+    private final int index;
+    private final TypeHandler<?> typeHandler;
+    private final String property;
+    private final Invoker setter;
+    private final boolean primitive;
+
+    MappedColumn(int index, TypeHandler<?> typeHandler, String property, Invoker setter, boolean primitive) {
+      this.index = index;
+      this.typeHandler = typeHandler;
+      this.property = property;
+      this.setter = setter;
+      this.primitive = primitive;
+    }
+
+    void set(Object rowValue, Object value) {
+      try {
+        try {
+          setter.invoke(rowValue, new Object[] { value });
+        } catch (Throwable t) {
+          throw ExceptionUtil.unwrapThrowable(t);
+        }
+      } catch (Throwable t) {
+        throw new ReflectionException("Could not set property '" + property + "' of '" + rowValue.getClass()
+            + "' with value '" + value + "' Cause: " + t.toString(), t);
+      }
+    }
+  }
+
+}
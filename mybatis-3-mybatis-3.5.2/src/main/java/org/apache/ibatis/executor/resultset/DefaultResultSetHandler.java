@@ -33,15 +33,18 @@ import org.apache.ibatis.binding.MapperMethod.ParamMap;
 import org.apache.ibatis.cache.CacheKey;
 import org.apache.ibatis.cursor.Cursor;
 import org.apache.ibatis.cursor.defaults.DefaultCursor;
+import org.apache.ibatis.cursor.defaults.PrefetchingCursor;
 import org.apache.ibatis.executor.ErrorContext;
 import org.apache.ibatis.executor.Executor;
 import org.apache.ibatis.executor.ExecutorException;
+import org.apache.ibatis.executor.VirtualThreads;
 import org.apache.ibatis.executor.loader.ResultLoader;
 import org.apache.ibatis.executor.loader.ResultLoaderMap;
 import org.apache.ibatis.executor.parameter.ParameterHandler;
 import org.apache.ibatis.executor.result.DefaultResultContext;
 import org.apache.ibatis.executor.result.DefaultResultHandler;
 import org.apache.ibatis.executor.result.ResultMapException;
+import org.apache.ibatis.executor.resultset.AutoMappingPlan.UnMappedColumnAutoMapping;
 import org.apache.ibatis.mapping.BoundSql;
 import org.apache.ibatis.mapping.Discriminator;
 import org.apache.ibatis.mapping.MappedStatement;
@@ -87,6 +90,11 @@ public class DefaultResultSetHandler implements ResultSetHandler {
   private final Map<CacheKey, Object> nestedResultObjects = new HashMap<>();
   private final Map<String, Object> ancestorObjects = new HashMap<>();
   private Object previousRowValue;
+  private CacheKey previousRowKey;
+  // the row keys are built for every row, so the same instances are reused at each nesting depth
+  private final List<CacheKey> rowKeys = new ArrayList<>();
+  private final List<CacheKey> combinedKeys = new ArrayList<>();
+  private int nestingDepth;
 
   // multiple resultsets
   private final Map<String, ResultMapping> nextResultMaps = new HashMap<>();
@@ -103,20 +111,6 @@ public class DefaultResultSetHandler implements ResultSetHandler {
     public ResultMapping propertyMapping;
   }
 
-  private static class UnMappedColumnAutoMapping {
-    private final String column;
-    private final String property;
-    private final TypeHandler<?> typeHandler;
-    private final boolean primitive;
-
-    public UnMappedColumnAutoMapping(String column, String property, TypeHandler<?> typeHandler, boolean primitive) {
-      this.column = column;
-      this.property = property;
-      this.typeHandler = typeHandler;
-      this.primitive = primitive;
-    }
-  }
-
   public DefaultResultSetHandler(Executor executor, MappedStatement mappedStatement, ParameterHandler parameterHandler, ResultHandler<?> resultHandler, BoundSql boundSql,
                                  RowBounds rowBounds) {
     this.executor = executor;
@@ -230,7 +224,13 @@ public class DefaultResultSetHandler implements ResultSetHandler {
     }
 
     ResultMap resultMap = resultMaps.get(0);
-    return new DefaultCursor<>(this, resultMap, rsw, rowBounds);
+    final Cursor<E> cursor = new DefaultCursor<>(this, resultMap, rsw, rowBounds);
+    final Integer prefetchSize = configuration.getCursorPrefetchSize();
+    if (prefetchSize == null || prefetchSize <= 0) {
+      return cursor;
+    }
+    return new PrefetchingCursor<>(cursor, prefetchSize,
+        configuration.isUseVirtualThreads() ? VirtualThreads.getExecutor() : null);
   }
 
   private ResultSetWrapper getFirstResultSet(Statement stmt) throws SQLException {
@@ -393,6 +393,13 @@ public class DefaultResultSetHandler implements ResultSetHandler {
   //
 
   private Object getRowValue(ResultSetWrapper rsw, ResultMap resultMap, String columnPrefix) throws SQLException {
+    if (columnPrefix == null && configuration.isCompiledRowMappersEnabled()) {
+      final CompiledRowMapper rowMapper = getCompiledRowMapper(rsw, resultMap);
+      if (rowMapper != CompiledRowMapper.UNSUPPORTED) {
+        this.useConstructorMappings = false;
+        return rowMapper.map(rsw.getResultSet());
+      }
+    }
     final ResultLoaderMap lazyLoader = new ResultLoaderMap();
     Object rowValue = createResultObject(rsw, resultMap, lazyLoader, columnPrefix);
     if (rowValue != null && !hasTypeHandlerForResultObject(rsw, resultMap.getType())) {
@@ -408,6 +415,21 @@ public class DefaultResultSetHandler implements ResultSetHandler {
     return rowValue;
   }
 
+  private CompiledRowMapper getCompiledRowMapper(ResultSetWrapper rsw, ResultMap resultMap) throws SQLException {
+    CompiledRowMapper rowMapper = rsw.getCompiledRowMapper(resultMap);
+    if (rowMapper == null) {
+      final String key = resultMap.getId() + "\n" + rsw.getColumnSignature();
+      rowMapper = configuration.getCompiledRowMapper(key);
+      if (rowMapper == null) {
+        rowMapper = hasTypeHandlerForResultObject(rsw, resultMap.getType()) ? CompiledRowMapper.UNSUPPORTED
+            : CompiledRowMapper.compile(rsw, resultMap, shouldApplyAutomaticMappings(resultMap, false), mappedStatement, configuration);
+        configuration.addCompiledRowMapper(key, rowMapper);
+      }
+      rsw.putCompiledRowMapper(resultMap, rowMapper);
+    }
+    return rowMapper;
+  }
+
   private boolean shouldApplyAutomaticMappings(ResultMap resultMap, boolean isNested) {
     if (resultMap.getAutoMapping() != null) {
       return resultMap.getAutoMapping();
@@ -438,7 +460,7 @@ public class DefaultResultSetHandler implements ResultSetHandler {
       if (propertyMapping.isCompositeResult()
           || (column != null && mappedColumnNames.contains(column.toUpperCase(Locale.ENGLISH)))
           || propertyMapping.getResultSet() != null) {
-        Object value = getPropertyMappingValue(rsw.getResultSet(), metaObject, propertyMapping, lazyLoader, columnPrefix);
+        Object value = getPropertyMappingValue(rsw, metaObject, propertyMapping, lazyLoader, columnPrefix);
         // issue #541 make property optional
         final String property = propertyMapping.getProperty();
         if (property == null) {
@@ -459,8 +481,9 @@ public class DefaultResultSetHandler implements ResultSetHandler {
     return foundValues;
   }
 
-  private Object getPropertyMappingValue(ResultSet rs, MetaObject metaResultObject, ResultMapping propertyMapping, ResultLoaderMap lazyLoader, String columnPrefix)
+  private Object getPropertyMappingValue(ResultSetWrapper rsw, MetaObject metaResultObject, ResultMapping propertyMapping, ResultLoaderMap lazyLoader, String columnPrefix)
       throws SQLException {
+    final ResultSet rs = rsw.getResultSet();
     if (propertyMapping.getNestedQueryId() != null) {
       return getNestedQueryMappingValue(rs, metaResultObject, propertyMapping, lazyLoader, columnPrefix);
     } else if (propertyMapping.getResultSet() != null) {
@@ -469,16 +492,27 @@ public class DefaultResultSetHandler implements ResultSetHandler {
     } else {
       final TypeHandler<?> typeHandler = propertyMapping.getTypeHandler();
       final String column = prependPrefix(propertyMapping.getColumn(), columnPrefix);
-      return typeHandler.getResult(rs, column);
+      return getResult(rsw, typeHandler, column);
     }
   }
 
+  private Object getResult(ResultSetWrapper rsw, TypeHandler<?> typeHandler, String column) throws SQLException {
+    final int index = rsw.getReadIndex(column);
+    return index > 0 ? typeHandler.getResult(rsw.getResultSet(), index) : typeHandler.getResult(rsw.getResultSet(), column);
+  }
+
   private List<UnMappedColumnAutoMapping> createAutomaticMappings(ResultSetWrapper rsw, ResultMap resultMap, MetaObject metaObject, String columnPrefix) throws SQLException {
     final String mapKey = resultMap.getId() + ":" + columnPrefix;
     List<UnMappedColumnAutoMapping> autoMapping = autoMappingsCache.get(mapKey);
+    if (autoMapping != null) {
+      return autoMapping;
+    }
+    final AutoMappingPlan plan = rsw.getAutoMappingPlan(resultMap, columnPrefix);
+    final Class<?> type = metaObject.getOriginalObject().getClass();
+    autoMapping = plan.getAutoMappings(type);
     if (autoMapping == null) {
       autoMapping = new ArrayList<>();
-      final List<String> unmappedColumnNames = rsw.getUnmappedColumnNames(resultMap, columnPrefix);
+      final List<String> unmappedColumnNames = plan.getUnmappedColumnNames();
       for (String columnName : unmappedColumnNames) {
         String propertyName = columnName;
         if (columnPrefix != null && !columnPrefix.isEmpty()) {
@@ -508,8 +542,9 @@ public class DefaultResultSetHandler implements ResultSetHandler {
               .doAction(mappedStatement, columnName, (property != null) ? property : propertyName, null);
         }
       }
-      autoMappingsCache.put(mapKey, autoMapping);
+      plan.setAutoMappings(type, autoMapping);
     }
+    autoMappingsCache.put(mapKey, autoMapping);
     return autoMapping;
   }
 
@@ -518,7 +553,7 @@ public class DefaultResultSetHandler implements ResultSetHandler {
     boolean foundValues = false;
     if (!autoMapping.isEmpty()) {
       for (UnMappedColumnAutoMapping mapping : autoMapping) {
-        final Object value = mapping.typeHandler.getResult(rsw.getResultSet(), mapping.column);
+        final Object value = getResult(rsw, mapping.typeHandler, mapping.column);
         if (value != null) {
           foundValues = true;
         }
@@ -635,7 +670,7 @@ public class DefaultResultSetHandler implements ResultSetHandler {
           value = getRowValue(rsw, resultMap, getColumnPrefix(columnPrefix, constructorMapping));
         } else {
           final TypeHandler<?> typeHandler = constructorMapping.getTypeHandler();
-          value = typeHandler.getResult(rsw.getResultSet(), prependPrefix(column, columnPrefix));
+          value = getResult(rsw, typeHandler, prependPrefix(column, columnPrefix));
         }
       } catch (ResultMapException | SQLException e) {
         throw new ExecutorException("Could not process result for mapping: " + constructorMapping, e);
@@ -668,7 +703,7 @@ public class DefaultResultSetHandler implements ResultSetHandler {
       Class<?> parameterType = constructor.getParameterTypes()[i];
       String columnName = rsw.getColumnNames().get(i);
       TypeHandler<?> typeHandler = rsw.getTypeHandler(parameterType, columnName);
-      Object value = typeHandler.getResult(rsw.getResultSet(), columnName);
+      Object value = getResult(rsw, typeHandler, columnName);
       constructorArgTypes.add(parameterType);
       constructorArgs.add(value);
       foundValues = value != null || foundValues;
@@ -713,7 +748,7 @@ public class DefaultResultSetHandler implements ResultSetHandler {
       columnName = rsw.getColumnNames().get(0);
     }
     final TypeHandler<?> typeHandler = rsw.getTypeHandler(resultType, columnName);
-    return typeHandler.getResult(rsw.getResultSet(), columnName);
+    return getResult(rsw, typeHandler, columnName);
   }
 
   //
@@ -855,18 +890,25 @@ public class DefaultResultSetHandler implements ResultSetHandler {
     ResultSet resultSet = rsw.getResultSet();
     skipRows(resultSet, rowBounds);
     Object rowValue = previousRowValue;
+    CacheKey parentKey = previousRowKey;
     while (shouldProcessMoreRows(resultContext, rowBounds) && !resultSet.isClosed() && resultSet.next()) {
       final ResultMap discriminatedResultMap = resolveDiscriminatedResultMap(resultSet, resultMap, null);
-      final CacheKey rowKey = createRowKey(discriminatedResultMap, rsw, null);
-      Object partialObject = nestedResultObjects.get(rowKey);
+      final CacheKey rowKey = createRowKey(discriminatedResultMap, rsw, null, getScratchKey(rowKeys, 0));
       // issue #577 && #542
       if (mappedStatement.isResultOrdered()) {
-        if (partialObject == null && rowValue != null) {
+        // the rows of a parent are contiguous, so a new key means that the previous parent is complete: it is
+        // handed over and everything kept to merge its rows is dropped, which bounds memory use to a single parent
+        final boolean sameParent = rowValue != null && rowKey != CacheKey.NULL_CACHE_KEY && rowKey.equals(parentKey);
+        if (!sameParent && rowValue != null) {
           nestedResultObjects.clear();
           storeObject(resultHandler, resultContext, rowValue, parentMapping, resultSet);
         }
-        rowValue = getRowValue(rsw, discriminatedResultMap, rowKey, null, partialObject);
+        rowValue = getRowValue(rsw, discriminatedResultMap, rowKey, null, sameParent ? rowValue : null);
+        if (!sameParent) {
+          parentKey = copyKey(rowKey);
+        }
       } else {
+        Object partialObject = nestedResultObjects.get(rowKey);
         rowValue = getRowValue(rsw, discriminatedResultMap, rowKey, null, partialObject);
         if (partialObject == null) {
           storeObject(resultHandler, resultContext, rowValue, parentMapping, resultSet);
@@ -874,10 +916,13 @@ public class DefaultResultSetHandler implements ResultSetHandler {
       }
     }
     if (rowValue != null && mappedStatement.isResultOrdered() && shouldProcessMoreRows(resultContext, rowBounds)) {
+      nestedResultObjects.clear();
       storeObject(resultHandler, resultContext, rowValue, parentMapping, resultSet);
       previousRowValue = null;
+      previousRowKey = null;
     } else if (rowValue != null) {
       previousRowValue = rowValue;
+      previousRowKey = parentKey;
     }
   }
 
@@ -910,7 +955,8 @@ public class DefaultResultSetHandler implements ResultSetHandler {
         rowValue = foundValues || configuration.isReturnInstanceForEmptyRow() ? rowValue : null;
       }
       if (combinedKey != CacheKey.NULL_CACHE_KEY) {
-        nestedResultObjects.put(combinedKey, rowValue);
+        // the key may be reused for the next rows
+        nestedResultObjects.put(copyKey(combinedKey), rowValue);
       }
     }
     return rowValue;
@@ -925,42 +971,47 @@ public class DefaultResultSetHandler implements ResultSetHandler {
   //
 
   private boolean applyNestedResultMappings(ResultSetWrapper rsw, ResultMap resultMap, MetaObject metaObject, String parentPrefix, CacheKey parentRowKey, boolean newObject) {
-    boolean foundValues = false;
-    for (ResultMapping resultMapping : resultMap.getPropertyResultMappings()) {
-      final String nestedResultMapId = resultMapping.getNestedResultMapId();
-      if (nestedResultMapId != null && resultMapping.getResultSet() == null) {
-        try {
-          final String columnPrefix = getColumnPrefix(parentPrefix, resultMapping);
-          final ResultMap nestedResultMap = getNestedResultMap(rsw.getResultSet(), nestedResultMapId, columnPrefix);
-          if (resultMapping.getColumnPrefix() == null) {
-            // try to fill circular reference only when columnPrefix
-            // is not specified for the nested result map (issue #215)
-            Object ancestorObject = ancestorObjects.get(nestedResultMapId);
-            if (ancestorObject != null) {
-              if (newObject) {
-                linkObjects(metaObject, resultMapping, ancestorObject); // issue #385
+    final int depth = ++nestingDepth;
+    try {
+      boolean foundValues = false;
+      for (ResultMapping resultMapping : resultMap.getPropertyResultMappings()) {
+        final String nestedResultMapId = resultMapping.getNestedResultMapId();
+        if (nestedResultMapId != null && resultMapping.getResultSet() == null) {
+          try {
+            final String columnPrefix = getColumnPrefix(parentPrefix, resultMapping);
+            final ResultMap nestedResultMap = getNestedResultMap(rsw.getResultSet(), nestedResultMapId, columnPrefix);
+            if (resultMapping.getColumnPrefix() == null) {
+              // try to fill circular reference only when columnPrefix
+              // is not specified for the nested result map (issue #215)
+              Object ancestorObject = ancestorObjects.get(nestedResultMapId);
+              if (ancestorObject != null) {
+                if (newObject) {
+                  linkObjects(metaObject, resultMapping, ancestorObject); // issue #385
+                }
+                continue;
               }
-              continue;
             }
-          }
-          final CacheKey rowKey = createRowKey(nestedResultMap, rsw, columnPrefix);
-          final CacheKey combinedKey = combineKeys(rowKey, parentRowKey);
-          Object rowValue = nestedResultObjects.get(combinedKey);
-          boolean knownValue = rowValue != null;
-          instantiateCollectionPropertyIfAppropriate(resultMapping, metaObject); // mandatory
-          if (anyNotNullColumnHasValue(resultMapping, columnPrefix, rsw)) {
-            rowValue = getRowValue(rsw, nestedResultMap, combinedKey, columnPrefix, rowValue);
-            if (rowValue != null && !knownValue) {
-              linkObjects(metaObject, resultMapping, rowValue);
-              foundValues = true;
+            final CacheKey rowKey = createRowKey(nestedResultMap, rsw, columnPrefix, getScratchKey(rowKeys, depth));
+            final CacheKey combinedKey = combineKeys(rowKey, parentRowKey, getScratchKey(combinedKeys, depth));
+            Object rowValue = nestedResultObjects.get(combinedKey);
+            boolean knownValue = rowValue != null;
+            instantiateCollectionPropertyIfAppropriate(resultMapping, metaObject); // mandatory
+            if (anyNotNullColumnHasValue(resultMapping, columnPrefix, rsw)) {
+              rowValue = getRowValue(rsw, nestedResultMap, combinedKey, columnPrefix, rowValue);
+              if (rowValue != null && !knownValue) {
+                linkObjects(metaObject, resultMapping, rowValue);
+                foundValues = true;
+              }
             }
+          } catch (SQLException e) {
+            throw new ExecutorException("Error getting nested result map values for '" + resultMapping.getProperty() + "'.  Cause: " + e, e);
           }
-        } catch (SQLException e) {
-          throw new ExecutorException("Error getting nested result map values for '" + resultMapping.getProperty() + "'.  Cause: " + e, e);
         }
       }
+      return foundValues;
+    } finally {
+      nestingDepth--;
     }
-    return foundValues;
   }
 
   private String getColumnPrefix(String parentPrefix, ResultMapping resultMapping) {
@@ -1005,18 +1056,18 @@ public class DefaultResultSetHandler implements ResultSetHandler {
   // UNIQUE RESULT KEY
   //
 
-  private CacheKey createRowKey(ResultMap resultMap, ResultSetWrapper rsw, String columnPrefix) throws SQLException {
-    final CacheKey cacheKey = new CacheKey();
+  private CacheKey createRowKey(ResultMap resultMap, ResultSetWrapper rsw, String columnPrefix, CacheKey cacheKey) throws SQLException {
+    cacheKey.reset();
     cacheKey.update(resultMap.getId());
-    List<ResultMapping> resultMappings = getResultMappingsForRowKey(resultMap);
-    if (resultMappings.isEmpty()) {
-      if (Map.class.isAssignableFrom(resultMap.getType())) {
-        createRowKeyForMap(rsw, cacheKey);
-      } else {
-        createRowKeyForUnmappedProperties(resultMap, rsw, cacheKey, columnPrefix);
+    final RowKeyColumns columns = getRowKeyColumns(resultMap, rsw, columnPrefix);
+    for (int i = 0; i < columns.size(); i++) {
+      final String column = columns.getColumn(i);
+      final TypeHandler<?> typeHandler = columns.getTypeHandler(i);
+      final Object value = typeHandler != null ? getResult(rsw, typeHandler, column) : getString(rsw, column);
+      if (value != null || (columns.isMapped() && configuration.isReturnInstanceForEmptyRow())) {
+        cacheKey.update(column);
+        cacheKey.update(value);
       }
-    } else {
-      createRowKeyForMappedProperties(resultMap, rsw, cacheKey, resultMappings, columnPrefix);
     }
     if (cacheKey.getUpdateCount() < 2) {
       return CacheKey.NULL_CACHE_KEY;
@@ -1024,20 +1075,58 @@ public class DefaultResultSetHandler implements ResultSetHandler {
     return cacheKey;
   }
 
-  private CacheKey combineKeys(CacheKey rowKey, CacheKey parentRowKey) {
+  private CacheKey combineKeys(CacheKey rowKey, CacheKey parentRowKey, CacheKey combinedKey) {
     if (rowKey.getUpdateCount() > 1 && parentRowKey.getUpdateCount() > 1) {
-      CacheKey combinedKey;
-      try {
-        combinedKey = rowKey.clone();
-      } catch (CloneNotSupportedException e) {
-        throw new ExecutorException("Error cloning cache key.  Cause: " + e, e);
-      }
-      combinedKey.update(parentRowKey);
+      combinedKey.reset();
+      // the values of both keys are copied, so the row key and the parent key can be reused for the next rows,
+      // and the count tells where the row key ends
+      combinedKey.update(rowKey.getUpdateCount());
+      combinedKey.updateAll(rowKey);
+      combinedKey.updateAll(parentRowKey);
       return combinedKey;
     }
     return CacheKey.NULL_CACHE_KEY;
   }
 
+  private CacheKey copyKey(CacheKey cacheKey) {
+    if (cacheKey == CacheKey.NULL_CACHE_KEY) {
+      return cacheKey;
+    }
+    try {
+      return cacheKey.clone();
+    } catch (CloneNotSupportedException e) {
+      throw new ExecutorException("Error cloning cache key.  Cause: " + e, e);
+    }
+  }
+
+  private CacheKey getScratchKey(List<CacheKey> scratchKeys, int depth) {
+    while (scratchKeys.size() <= depth) {
+      scratchKeys.add(new CacheKey());
+    }
+    return scratchKeys.get(depth);
+  }
+
+  private RowKeyColumns getRowKeyColumns(ResultMap resultMap, ResultSetWrapper rsw, String columnPrefix) throws SQLException {
+    RowKeyColumns columns = rsw.getRowKeyColumns(resultMap, columnPrefix);
+    if (columns == null) {
+      final List<String> columnNames = new ArrayList<>();
+      final List<TypeHandler<?>> typeHandlers = new ArrayList<>();
+      final List<ResultMapping> resultMappings = getResultMappingsForRowKey(resultMap);
+      if (resultMappings.isEmpty()) {
+        if (Map.class.isAssignableFrom(resultMap.getType())) {
+          addRowKeyColumnsForMap(rsw, columnNames, typeHandlers);
+        } else {
+          addRowKeyColumnsForUnmappedProperties(resultMap, rsw, columnNames, typeHandlers, columnPrefix);
+        }
+      } else {
+        addRowKeyColumnsForMappedProperties(resultMap, rsw, columnNames, typeHandlers, resultMappings, columnPrefix);
+      }
+      columns = new RowKeyColumns(columnNames, typeHandlers, !resultMappings.isEmpty());
+      rsw.putRowKeyColumns(resultMap, columnPrefix, columns);
+    }
+    return columns;
+  }
+
   private List<ResultMapping> getResultMappingsForRowKey(ResultMap resultMap) {
     List<ResultMapping> resultMappings = resultMap.getIdResultMappings();
     if (resultMappings.isEmpty()) {
@@ -1046,30 +1135,28 @@ public class DefaultResultSetHandler implements ResultSetHandler {
     return resultMappings;
   }
 
-  private void createRowKeyForMappedProperties(ResultMap resultMap, ResultSetWrapper rsw, CacheKey cacheKey, List<ResultMapping> resultMappings, String columnPrefix) throws SQLException {
+  private void addRowKeyColumnsForMappedProperties(ResultMap resultMap, ResultSetWrapper rsw, List<String> columnNames, List<TypeHandler<?>> typeHandlers,
+      List<ResultMapping> resultMappings, String columnPrefix) throws SQLException {
     for (ResultMapping resultMapping : resultMappings) {
       if (resultMapping.getNestedResultMapId() != null && resultMapping.getResultSet() == null) {
         // Issue #392
         final ResultMap nestedResultMap = configuration.getResultMap(resultMapping.getNestedResultMapId());
-        createRowKeyForMappedProperties(nestedResultMap, rsw, cacheKey, nestedResultMap.getConstructorResultMappings(),
+        addRowKeyColumnsForMappedProperties(nestedResultMap, rsw, columnNames, typeHandlers, nestedResultMap.getConstructorResultMappings(),
             prependPrefix(resultMapping.getColumnPrefix(), columnPrefix));
       } else if (resultMapping.getNestedQueryId() == null) {
         final String column = prependPrefix(resultMapping.getColumn(), columnPrefix);
-        final TypeHandler<?> th = resultMapping.getTypeHandler();
         List<String> mappedColumnNames = rsw.getMappedColumnNames(resultMap, columnPrefix);
         // Issue #114
         if (column != null && mappedColumnNames.contains(column.toUpperCase(Locale.ENGLISH))) {
-          final Object value = th.getResult(rsw.getResultSet(), column);
-          if (value != null || configuration.isReturnInstanceForEmptyRow()) {
-            cacheKey.update(column);
-            cacheKey.update(value);
-          }
+          columnNames.add(column);
+          typeHandlers.add(resultMapping.getTypeHandler());
         }
       }
     }
   }
 
-  private void createRowKeyForUnmappedProperties(ResultMap resultMap, ResultSetWrapper rsw, CacheKey cacheKey, String columnPrefix) throws SQLException {
+  private void addRowKeyColumnsForUnmappedProperties(ResultMap resultMap, ResultSetWrapper rsw, List<String> columnNames, List<TypeHandler<?>> typeHandlers,
+      String columnPrefix) throws SQLException {
     final MetaClass metaType = MetaClass.forClass(resultMap.getType(), reflectorFactory);
     List<String> unmappedColumnNames = rsw.getUnmappedColumnNames(resultMap, columnPrefix);
     for (String column : unmappedColumnNames) {
@@ -1083,26 +1170,24 @@ public class DefaultResultSetHandler implements ResultSetHandler {
         }
       }
       if (metaType.findProperty(property, configuration.isMapUnderscoreToCamelCase()) != null) {
-        String value = rsw.getResultSet().getString(column);
-        if (value != null) {
-          cacheKey.update(column);
-          cacheKey.update(value);
-        }
+        columnNames.add(column);
+        typeHandlers.add(null);
       }
     }
   }
 
-  private void createRowKeyForMap(ResultSetWrapper rsw, CacheKey cacheKey) throws SQLException {
-    List<String> columnNames = rsw.getColumnNames();
-    for (String columnName : columnNames) {
-      final String value = rsw.getResultSet().getString(columnName);
-      if (value != null) {
-        cacheKey.update(columnName);
-        cacheKey.update(value);
-      }
+  private void addRowKeyColumnsForMap(ResultSetWrapper rsw, List<String> columnNames, List<TypeHandler<?>> typeHandlers) {
+    for (String columnName : rsw.getColumnNames()) {
+      columnNames.add(columnName);
+      typeHandlers.add(null);
     }
   }
 
+  private String getString(ResultSetWrapper rsw, String column) throws SQLException {
+    final int index = rsw.getReadIndex(column);
+    return index > 0 ? rsw.getResultSet().getString(index) : rsw.getResultSet().getString(column);
+  }
+
   private void linkObjects(MetaObject metaObject, ResultMapping resultMapping, Object rowValue) {
     final Object collectionProperty = instantiateCollectionPropertyIfAppropriate(resultMapping, metaObject);
     if (collectionProperty != null) {
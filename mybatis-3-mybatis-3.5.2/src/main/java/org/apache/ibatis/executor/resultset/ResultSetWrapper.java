@@ -41,16 +41,22 @@ import org.apache.ibatis.type.UnknownTypeHandler;
 public class ResultSetWrapper {
 
   private final ResultSet resultSet;
+  private final Configuration configuration;
   private final TypeHandlerRegistry typeHandlerRegistry;
   private final List<String> columnNames = new ArrayList<>();
   private final List<String> classNames = new ArrayList<>();
   private final List<JdbcType> jdbcTypes = new ArrayList<>();
+  private final Map<String, Integer> columnIndexes = new HashMap<>();
+  private final Map<String, Integer> columnIndexLookups = new HashMap<>();
   private final Map<String, Map<Class<?>, TypeHandler<?>>> typeHandlerMap = new HashMap<>();
-  private final Map<String, List<String>> mappedColumnNamesMap = new HashMap<>();
-  private final Map<String, List<String>> unMappedColumnNamesMap = new HashMap<>();
+  private final Map<String, AutoMappingPlan> autoMappingPlans = new HashMap<>();
+  private final Map<String, CompiledRowMapper> compiledRowMappers = new HashMap<>();
+  private final Map<String, Map<String, RowKeyColumns>> rowKeyColumns = new HashMap<>();
+  private String columnSignature;
 
   public ResultSetWrapper(ResultSet rs, Configuration configuration) throws SQLException {
     super();
+    this.configuration = configuration;
     this.typeHandlerRegistry = configuration.getTypeHandlerRegistry();
     this.resultSet = rs;
     final ResultSetMetaData metaData = rs.getMetaData();
@@ -60,6 +66,10 @@ public class ResultSetWrapper {
       jdbcTypes.add(JdbcType.forCode(metaData.getColumnType(i)));
       classNames.add(metaData.getColumnClassName(i));
     }
+    for (int i = 0; i < columnNames.size(); i++) {
+      // like the drivers, resolve a name to the first column with that name, whatever the case
+      columnIndexes.putIfAbsent(columnNames.get(i).toUpperCase(Locale.ENGLISH), i + 1);
+    }
   }
 
   public ResultSet getResultSet() {
@@ -78,13 +88,61 @@ public class ResultSetWrapper {
     return jdbcTypes;
   }
 
-  public JdbcType getJdbcType(String columnName) {
-    for (int i = 0 ; i < columnNames.size(); i++) {
-      if (columnNames.get(i).equalsIgnoreCase(columnName)) {
-        return jdbcTypes.get(i);
+  /**
+   * Returns a string identifying the columns of the result set, their JDBC types and their Java classes,
+   * so that what is resolved from them can be reused for other result sets with the same columns.
+   *
+   * @since 3.5.3
+   */
+  public String getColumnSignature() {
+    if (columnSignature == null) {
+      StringBuilder signature = new StringBuilder();
+      for (int i = 0; i < columnNames.size(); i++) {
+        signature.append(columnNames.get(i)).append(':').append(jdbcTypes.get(i)).append(':')
+            .append(classNames.get(i)).append(',');
       }
+      columnSignature = signature.toString();
     }
-    return null;
+    return columnSignature;
+  }
+
+  public JdbcType getJdbcType(String columnName) {
+    final int index = getColumnIndex(columnName);
+    return index > 0 ? jdbcTypes.get(index - 1) : null;
+  }
+
+  /**
+   * Returns the index of a column, resolved once for each column name used to read the result set.
+   *
+   * @param columnName - the name of the column, in any case
+   * @return The index of the first column with this name, starting at 1, or -1 if there is none
+   * @since 3.5.3
+   */
+  public int getColumnIndex(String columnName) {
+    if (columnName == null) {
+      return -1;
+    }
+    Integer index = columnIndexLookups.get(columnName);
+    if (index == null) {
+      index = columnIndexes.getOrDefault(columnName.toUpperCase(Locale.ENGLISH), -1);
+      columnIndexLookups.put(columnName, index);
+    }
+    return index;
+  }
+
+  /**
+   * Returns the index the column should be read by, so that the driver does not have to look its name up for every
+   * row. Columns are never read by index when the column names are used instead of the column labels, because the
+   * drivers resolve names against the labels.
+   *
+   * @return The index of the column, or -1 if it should be read by name
+   * @see Configuration#isColumnIndexAccessEnabled()
+   */
+  int getReadIndex(String columnName) {
+    if (!configuration.isColumnIndexAccessEnabled() || !configuration.isUseColumnLabel()) {
+      return -1;
+    }
+    return getColumnIndex(columnName);
   }
 
   /**
@@ -111,8 +169,8 @@ public class ResultSetWrapper {
       // Replicate logic of UnknownTypeHandler#resolveTypeHandler
       // See issue #59 comment 10
       if (handler == null || handler instanceof UnknownTypeHandler) {
-        final int index = columnNames.indexOf(columnName);
-        final Class<?> javaType = resolveClass(classNames.get(index));
+        final int index = getColumnIndex(columnName);
+        final Class<?> javaType = resolveClass(classNames.get(index - 1));
         if (javaType != null && jdbcType != null) {
           handler = typeHandlerRegistry.getTypeHandler(javaType, jdbcType);
         } else if (javaType != null) {
@@ -141,7 +199,7 @@ public class ResultSetWrapper {
     return null;
   }
 
-  private void loadMappedAndUnmappedColumnNames(ResultMap resultMap, String columnPrefix) throws SQLException {
+  private AutoMappingPlan loadMappedAndUnmappedColumnNames(ResultMap resultMap, String columnPrefix) {
     List<String> mappedColumnNames = new ArrayList<>();
     List<String> unmappedColumnNames = new ArrayList<>();
     final String upperColumnPrefix = columnPrefix == null ? null : columnPrefix.toUpperCase(Locale.ENGLISH);
@@ -154,26 +212,48 @@ public class ResultSetWrapper {
         unmappedColumnNames.add(columnName);
       }
     }
-    mappedColumnNamesMap.put(getMapKey(resultMap, columnPrefix), mappedColumnNames);
-    unMappedColumnNamesMap.put(getMapKey(resultMap, columnPrefix), unmappedColumnNames);
+    return new AutoMappingPlan(mappedColumnNames, unmappedColumnNames);
   }
 
   public List<String> getMappedColumnNames(ResultMap resultMap, String columnPrefix) throws SQLException {
-    List<String> mappedColumnNames = mappedColumnNamesMap.get(getMapKey(resultMap, columnPrefix));
-    if (mappedColumnNames == null) {
-      loadMappedAndUnmappedColumnNames(resultMap, columnPrefix);
-      mappedColumnNames = mappedColumnNamesMap.get(getMapKey(resultMap, columnPrefix));
-    }
-    return mappedColumnNames;
+    return getAutoMappingPlan(resultMap, columnPrefix).getMappedColumnNames();
   }
 
   public List<String> getUnmappedColumnNames(ResultMap resultMap, String columnPrefix) throws SQLException {
-    List<String> unMappedColumnNames = unMappedColumnNamesMap.get(getMapKey(resultMap, columnPrefix));
-    if (unMappedColumnNames == null) {
-      loadMappedAndUnmappedColumnNames(resultMap, columnPrefix);
-      unMappedColumnNames = unMappedColumnNamesMap.get(getMapKey(resultMap, columnPrefix));
+    return getAutoMappingPlan(resultMap, columnPrefix).getUnmappedColumnNames();
+  }
+
+  AutoMappingPlan getAutoMappingPlan(ResultMap resultMap, String columnPrefix) {
+    final String mapKey = getMapKey(resultMap, columnPrefix);
+    AutoMappingPlan plan = autoMappingPlans.get(mapKey);
+    if (plan == null) {
+      // shared with the other result sets with the same columns, whichever the statement
+      final String planKey = mapKey + "\n" + getColumnSignature();
+      plan = configuration.getAutoMappingPlan(planKey);
+      if (plan == null) {
+        plan = configuration.addAutoMappingPlan(planKey, loadMappedAndUnmappedColumnNames(resultMap, columnPrefix));
+      }
+      autoMappingPlans.put(mapKey, plan);
     }
-    return unMappedColumnNames;
+    return plan;
+  }
+
+  CompiledRowMapper getCompiledRowMapper(ResultMap resultMap) {
+    return compiledRowMappers.get(resultMap.getId());
+  }
+
+  void putCompiledRowMapper(ResultMap resultMap, CompiledRowMapper rowMapper) {
+    compiledRowMappers.put(resultMap.getId(), rowMapper);
+  }
+
+  RowKeyColumns getRowKeyColumns(ResultMap resultMap, String columnPrefix) {
+    // looked up for every row, so without building a key
+    final Map<String, RowKeyColumns> prefixes = rowKeyColumns.get(resultMap.getId());
+    return prefixes == null ? null : prefixes.get(columnPrefix);
+  }
+
+  void putRowKeyColumns(ResultMap resultMap, String columnPrefix, RowKeyColumns columns) {
+    rowKeyColumns.computeIfAbsent(resultMap.getId(), k -> new HashMap<>()).put(columnPrefix, columns);
   }
 
   private String getMapKey(ResultMap resultMap, String columnPrefix) {
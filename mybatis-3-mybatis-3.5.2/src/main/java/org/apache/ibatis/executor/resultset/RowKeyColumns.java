@@ -0,0 +1,60 @@
+/**
+ *    Copyright ${license.git.copyrightYears} the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.resultset;
+
+import java.util.List;
+
+import org.apache.ibatis.type.TypeHandler;
+
+/**
+ * The columns the row key of a result map with a column prefix is built from, resolved once for each result set
+ * instead of for each row.
+ */
+final class RowKeyColumns {
+
+  private final String[] columns;
+  private final TypeHandler<?>[] typeHandlers;
+  private final boolean mapped;
+
+  /**
+   * @param columns - the names of the columns
+   * @param typeHandlers - the type handlers of the mapped columns, or null for the columns to read as strings
+   * @param mapped - whether the columns are mapped by the result map, in which case a null value is part of the key
+   *     when empty rows return an instance
+   */
+  RowKeyColumns(List<String> columns, List<TypeHandler<?>> typeHandlers, boolean mapped) {
+    this.columns = columns.toArray(new String[0]);
+    this.typeHandlers = typeHandlers.toArray(new TypeHandler<?>[0]);
+    this.mapped = mapped;
+  }
+
+  int size() {
+    return columns.length;
+  }
+
+  String getColumn(int i) {
+    return columns[i];
+  }
+
+  TypeHandler<?> getTypeHandler(int i) {
+    return typeHandlers[i];
+  }
+
+  boolean isMapped() {
+    return mapped;
+  }
+
+}
@@ -24,13 +24,21 @@ import java.util.Properties;
 import org.apache.ibatis.builder.InitializingObject;
 import org.apache.ibatis.cache.Cache;
 import org.apache.ibatis.cache.CacheException;
+import org.apache.ibatis.cache.CacheStatistics;
+import org.apache.ibatis.cache.Serializer;
+import org.apache.ibatis.cache.ThreadSafeCache;
+import org.apache.ibatis.cache.WeightBudget;
 import org.apache.ibatis.cache.decorators.BlockingCache;
+import org.apache.ibatis.cache.decorators.CopyingCache;
 import org.apache.ibatis.cache.decorators.LoggingCache;
 import org.apache.ibatis.cache.decorators.LruCache;
 import org.apache.ibatis.cache.decorators.ScheduledCache;
 import org.apache.ibatis.cache.decorators.SerializedCache;
 import org.apache.ibatis.cache.decorators.SynchronizedCache;
+import org.apache.ibatis.cache.impl.ConcurrentPerpetualCache;
+import org.apache.ibatis.cache.impl.OffHeapCache;
 import org.apache.ibatis.cache.impl.PerpetualCache;
+import org.apache.ibatis.cache.serializer.CompactSerializer;
 import org.apache.ibatis.reflection.MetaObject;
 import org.apache.ibatis.reflection.SystemMetaObject;
 
@@ -46,6 +54,8 @@ public class CacheBuilder {
   private boolean readWrite;
   private Properties properties;
   private boolean blocking;
+  private WeightBudget weightBudget;
+  private CacheStatistics statistics;
 
   public CacheBuilder(String id) {
     this.id = id;
@@ -89,20 +99,47 @@ public class CacheBuilder {
     return this;
   }
 
+  /**
+   * Sets the budget shared with other caches, applied to the decorators that have a <code>weightBudget</code> property.
+   *
+   * @since 3.5.3
+   */
+  public CacheBuilder weightBudget(WeightBudget weightBudget) {
+    this.weightBudget = weightBudget;
+    return this;
+  }
+
+  /**
+   * Sets the statistics of the cache. When not set, the cache records its statistics to a new instance.
+   *
+   * @since 3.5.3
+   */
+  public CacheBuilder statistics(CacheStatistics statistics) {
+    this.statistics = statistics;
+    return this;
+  }
+
   public Cache build() {
     setDefaultImplementations();
     Cache cache = newBaseCacheInstance(implementation, id);
     setCacheProperties(cache);
+    setStatistics(cache);
     // issue #352, do not apply decorators to custom caches
-    if (PerpetualCache.class.equals(cache.getClass())) {
+    if (PerpetualCache.class.equals(cache.getClass()) || ConcurrentPerpetualCache.class.equals(cache.getClass())) {
       for (Class<? extends Cache> decorator : decorators) {
         cache = newCacheDecoratorInstance(decorator, cache);
         setCacheProperties(cache);
+        setWeightBudget(cache);
+        setStatistics(cache);
       }
       cache = setStandardDecorators(cache);
+    } else if (OffHeapCache.class.equals(cache.getClass())) {
+      // it evicts the least recently used values itself, so the eviction decorators do not apply
+      cache = setStandardDecorators(cache);
     } else if (!LoggingCache.class.isAssignableFrom(cache.getClass())) {
-      cache = new LoggingCache(cache);
+      cache = new LoggingCache(cache, statistics);
     }
+    statistics.setCache(cache);
     return cache;
   }
 
@@ -113,10 +150,14 @@ public class CacheBuilder {
         decorators.add(LruCache.class);
       }
     }
+    if (statistics == null) {
+      statistics = new CacheStatistics(id);
+    }
   }
 
   private Cache setStandardDecorators(Cache cache) {
     try {
+      OffHeapCache offHeap = cache instanceof OffHeapCache ? (OffHeapCache) cache : null;
       MetaObject metaCache = SystemMetaObject.forObject(cache);
       if (size != null && metaCache.hasSetter("size")) {
         metaCache.setValue("size", size);
@@ -124,14 +165,36 @@ public class CacheBuilder {
       if (clearInterval != null) {
         cache = new ScheduledCache(cache);
         ((ScheduledCache) cache).setClearInterval(clearInterval);
+        ((ScheduledCache) cache).setStatistics(statistics);
+        // e.g. the time to live or the refresh ahead
+        setCacheProperties(cache);
+      } else if (properties != null
+          && (properties.getProperty("timeToLive") != null || properties.getProperty("refreshAhead") != null)) {
+        cache = new ScheduledCache(cache);
+        ((ScheduledCache) cache).setClearInterval(Long.MAX_VALUE);
+        ((ScheduledCache) cache).setStatistics(statistics);
+        setCacheProperties(cache);
       }
-      if (readWrite) {
-        cache = new SerializedCache(cache);
+      Serializer serializer = null;
+      if (offHeap != null) {
+        // every read already returns a new copy
+        serializer = readWrite ? offHeap.getSerializer() : null;
+      } else if (readWrite) {
+        cache = isDeepCopy() ? new CopyingCache(cache) : new SerializedCache(cache);
+        // e.g. the serializer
+        setCacheProperties(cache);
+        serializer = cache instanceof SerializedCache ? ((SerializedCache) cache).getSerializer() : new CompactSerializer();
+      }
+      cache = new LoggingCache(cache, statistics);
+      if (!isThreadSafe()) {
+        cache = new SynchronizedCache(cache);
       }
-      cache = new LoggingCache(cache);
-      cache = new SynchronizedCache(cache);
       if (blocking) {
         cache = new BlockingCache(cache);
+        // the stale values are copied as the values of a read-write cache
+        ((BlockingCache) cache).setSerializer(serializer);
+        // e.g. the single flight mode
+        setCacheProperties(cache);
       }
       return cache;
     } catch (Exception e) {
@@ -139,6 +202,43 @@ public class CacheBuilder {
     }
   }
 
+  private boolean isDeepCopy() {
+    return properties != null && Boolean.parseBoolean(properties.getProperty("deepCopy"));
+  }
+
+  private boolean isThreadSafe() {
+    // the standard decorators are thread-safe, so only the base cache and the added decorators are checked
+    if (!ThreadSafeCache.class.isAssignableFrom(implementation)) {
+      return false;
+    }
+    if (OffHeapCache.class.equals(implementation)) {
+      // the decorators are not applied to it
+      return true;
+    }
+    for (Class<? extends Cache> decorator : decorators) {
+      if (!ThreadSafeCache.class.isAssignableFrom(decorator)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private void setWeightBudget(Cache cache) {
+    if (weightBudget != null) {
+      MetaObject metaCache = SystemMetaObject.forObject(cache);
+      if (metaCache.hasSetter("weightBudget")) {
+        metaCache.setValue("weightBudget", weightBudget);
+      }
+    }
+  }
+
+  private void setStatistics(Cache cache) {
+    MetaObject metaCache = SystemMetaObject.forObject(cache);
+    if (metaCache.hasSetter("statistics") && metaCache.getSetterType("statistics") == CacheStatistics.class) {
+      metaCache.setValue("statistics", statistics);
+    }
+  }
+
   private void setCacheProperties(Cache cache) {
     if (properties != null) {
       MetaObject metaCache = SystemMetaObject.forObject(cache);
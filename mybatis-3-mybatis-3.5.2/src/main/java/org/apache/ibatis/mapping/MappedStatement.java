@@ -17,7 +17,10 @@ package org.apache.ibatis.mapping;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Set;
 
 import org.apache.ibatis.cache.Cache;
 import org.apache.ibatis.executor.keygen.Jdbc3KeyGenerator;
@@ -56,6 +59,7 @@ public final class MappedStatement {
   private Log statementLog;
   private LanguageDriver lang;
   private String[] resultSets;
+  private Set<String> tables;
 
   MappedStatement() {
     // constructor disabled
@@ -174,6 +178,23 @@ public final class MappedStatement {
       return this;
     }
 
+    /**
+     * Sets the tables the statement reads or writes, for the second level caches to be invalidated by table.
+     *
+     * @since 3.5.3
+     */
+    public Builder tables(String tables) {
+      String[] names = delimitedStringToArray(tables);
+      if (names != null) {
+        Set<String> set = new LinkedHashSet<>();
+        for (String name : names) {
+          set.add(name.trim().toLowerCase(Locale.ENGLISH));
+        }
+        mappedStatement.tables = Collections.unmodifiableSet(set);
+      }
+      return this;
+    }
+
     /**
      * @deprecated Use {@link #resultSets}
      */
@@ -285,6 +306,16 @@ public final class MappedStatement {
     return resultSets;
   }
 
+  /**
+   * Returns the tables declared on the statement.
+   *
+   * @return The lower case table names, or null if none were declared
+   * @since 3.5.3
+   */
+  public Set<String> getTables() {
+    return tables;
+  }
+
   /**
    * @deprecated Use {@link #getResultSets()}
    */
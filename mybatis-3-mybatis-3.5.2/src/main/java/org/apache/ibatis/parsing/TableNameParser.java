@@ -0,0 +1,158 @@
+/**
+ *    Copyright ${license.git.copyrightYears} the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.parsing;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Finds the names of the tables an SQL statement reads or writes.
+ * <p>
+ * This is a scan of the tokens following FROM, JOIN, UPDATE, INTO and similar keywords, not a full SQL parser.
+ * It may report names that are not tables, e.g. the argument of {@code EXTRACT(YEAR FROM ...)}, which is
+ * harmless for cache invalidation, but callers should treat an empty result as unknown.
+ *
+ * @since 3.5.3
+ */
+public class TableNameParser {
+
+  private static final Set<String> TABLE_KEYWORDS = new HashSet<>(Arrays.asList(
+      "from", "join", "update", "into", "using", "table"));
+
+  private static final Set<String> MODIFIERS = new HashSet<>(Arrays.asList(
+      "as", "only", "if", "not", "exists", "ignore", "low_priority", "quick"));
+
+  private static final Set<String> RESERVED_WORDS = new HashSet<>(Arrays.asList(
+      "select", "where", "on", "group", "order", "having", "limit", "offset", "union", "intersect", "except",
+      "minus", "set", "values", "value", "inner", "outer", "left", "right", "full", "cross", "natural",
+      "lateral", "of", "nowait", "skip", "wait", "fetch", "for", "window", "returning", "when", "with",
+      "straight_join", "partition", "default"));
+
+  private TableNameParser() {
+    // Prevent Instantiation
+  }
+
+  /**
+   * Returns the lower case names, without schema or quotes, of the tables in the statement.
+   *
+   * @param sql - the SQL statement
+   * @return The table names, empty if none could be found, e.g. in a stored procedure call
+   */
+  public static Set<String> parse(String sql) {
+    Set<String> tables = new LinkedHashSet<>();
+    boolean expectTable = false;
+    boolean inTableList = false;
+    int length = sql.length();
+    int i = 0;
+    while (i < length) {
+      char c = sql.charAt(i);
+      if (Character.isWhitespace(c)) {
+        i++;
+      } else if (c == '\'') {
+        i = skipLiteral(sql, i);
+        expectTable = false;
+        inTableList = false;
+      } else if (c == '-' && i + 1 < length && sql.charAt(i + 1) == '-') {
+        i = skipTo(sql, i + 2, "\n");
+      } else if (c == '/' && i + 1 < length && sql.charAt(i + 1) == '*') {
+        i = skipTo(sql, i + 2, "*/");
+      } else if (c == ',') {
+        expectTable = inTableList;
+        i++;
+      } else if (isIdentifierStart(c)) {
+        int end = skipIdentifier(sql, i);
+        String word = sql.substring(i, end).toLowerCase(Locale.ENGLISH);
+        if (TABLE_KEYWORDS.contains(word)) {
+          expectTable = true;
+          inTableList = word.equals("from") || word.equals("update");
+        } else if (RESERVED_WORDS.contains(word)) {
+          expectTable = false;
+          inTableList = false;
+        } else if (expectTable && !MODIFIERS.contains(word)) {
+          // modifiers such as ONLY or IF EXISTS may come before the table
+          tables.add(unquote(word));
+          expectTable = false;
+        }
+        i = end;
+      } else {
+        // parentheses, operators and parameter markers
+        expectTable = false;
+        if (c == '(' || c == ')' || c == ';') {
+          inTableList = false;
+        }
+        i++;
+      }
+    }
+    return tables;
+  }
+
+  private static boolean isIdentifierStart(char c) {
+    return Character.isLetterOrDigit(c) || c == '_' || c == '$' || c == '"' || c == '`' || c == '[';
+  }
+
+  private static int skipIdentifier(String sql, int start) {
+    int i = start;
+    while (i < sql.length()) {
+      char c = sql.charAt(i);
+      if (c == '"' || c == '`' || c == '[') {
+        char close = c == '[' ? ']' : c;
+        int end = sql.indexOf(close, i + 1);
+        i = end < 0 ? sql.length() : end + 1;
+      } else if (Character.isLetterOrDigit(c) || c == '_' || c == '$' || c == '.') {
+        i++;
+      } else {
+        break;
+      }
+    }
+    return i;
+  }
+
+  private static int skipLiteral(String sql, int start) {
+    int i = start + 1;
+    while (i < sql.length()) {
+      if (sql.charAt(i) == '\'') {
+        if (i + 1 < sql.length() && sql.charAt(i + 1) == '\'') {
+          i += 2;
+          continue;
+        }
+        return i + 1;
+      }
+      i++;
+    }
+    return i;
+  }
+
+  private static int skipTo(String sql, int start, String terminator) {
+    int end = sql.indexOf(terminator, start);
+    return end < 0 ? sql.length() : end + terminator.length();
+  }
+
+  private static String unquote(String name) {
+    String table = name.substring(name.lastIndexOf('.') + 1);
+    StringBuilder builder = new StringBuilder(table.length());
+    for (int i = 0; i < table.length(); i++) {
+      char c = table.charAt(i);
+      if (c != '"' && c != '`' && c != '[' && c != ']') {
+        builder.append(c);
+      }
+    }
+    return builder.toString();
+  }
+
+}
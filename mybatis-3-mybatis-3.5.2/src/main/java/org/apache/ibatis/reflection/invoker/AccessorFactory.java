@@ -0,0 +1,124 @@
+/**
+ *    Copyright ${license.git.copyrightYears} the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.reflection.invoker;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Generates accessors that call a getter or a setter directly, through {@link LambdaMetafactory}, instead of
+ * through {@link Method#invoke(Object, Object...)}.
+ * <p>
+ * On Java 9 and later the accessors are defined in the lookup context of the class declaring the method, so
+ * any method can be called. On Java 8 they are defined next to this class, so only public methods of public
+ * classes visible from the class loader of MyBatis can be. A method for which no accessor can be generated
+ * is left to reflection.
+ */
+final class AccessorFactory {
+
+  private static final Method privateLookupInMethod;
+
+  static {
+    Method method;
+    try {
+      method = MethodHandles.class.getMethod("privateLookupIn", Class.class, MethodHandles.Lookup.class);
+    } catch (NoSuchMethodException e) {
+      method = null;
+    }
+    privateLookupInMethod = method;
+  }
+
+  private AccessorFactory() {
+    // Prevent Instantiation of Static Class
+  }
+
+  /**
+   * @param method - a getter, that has no parameter
+   * @return A function calling the getter, or null if it can not be generated
+   */
+  @SuppressWarnings("unchecked")
+  static Function<Object, Object> newGetter(Method method) {
+    try {
+      MethodHandles.Lookup lookup = lookupFor(method);
+      if (lookup == null) {
+        return null;
+      }
+      MethodHandle handle = lookup.unreflect(method);
+      CallSite site = LambdaMetafactory.metafactory(lookup, "apply", MethodType.methodType(Function.class),
+          MethodType.methodType(Object.class, Object.class), handle,
+          MethodType.methodType(method.getReturnType(), method.getDeclaringClass()).wrap());
+      return (Function<Object, Object>) site.getTarget().invokeWithArguments();
+    } catch (Throwable t) {
+      return null;
+    }
+  }
+
+  /**
+   * @param method - a setter, that has one parameter
+   * @return A consumer calling the setter, or null if it can not be generated
+   */
+  @SuppressWarnings("unchecked")
+  static BiConsumer<Object, Object> newSetter(Method method) {
+    try {
+      MethodHandles.Lookup lookup = lookupFor(method);
+      if (lookup == null) {
+        return null;
+      }
+      MethodHandle handle = lookup.unreflect(method);
+      CallSite site = LambdaMetafactory.metafactory(lookup, "accept", MethodType.methodType(BiConsumer.class),
+          MethodType.methodType(void.class, Object.class, Object.class), handle,
+          MethodType.methodType(void.class, method.getDeclaringClass(), wrap(method.getParameterTypes()[0])));
+      return (BiConsumer<Object, Object>) site.getTarget().invokeWithArguments();
+    } catch (Throwable t) {
+      return null;
+    }
+  }
+
+  static Class<?> wrap(Class<?> type) {
+    return MethodType.methodType(type).wrap().returnType();
+  }
+
+  private static MethodHandles.Lookup lookupFor(Method method) throws Exception {
+    Class<?> declaringClass = method.getDeclaringClass();
+    if (Modifier.isStatic(method.getModifiers())) {
+      return null;
+    }
+    if (privateLookupInMethod != null) {
+      return (MethodHandles.Lookup) privateLookupInMethod.invoke(null, declaringClass, MethodHandles.lookup());
+    }
+    if (!Modifier.isPublic(declaringClass.getModifiers()) || !Modifier.isPublic(method.getModifiers())
+        || !isVisible(declaringClass)) {
+      return null;
+    }
+    return MethodHandles.lookup();
+  }
+
+  private static boolean isVisible(Class<?> type) {
+    try {
+      return Class.forName(type.getName(), false, AccessorFactory.class.getClassLoader()) == type;
+    } catch (ClassNotFoundException e) {
+      return false;
+    }
+  }
+
+}
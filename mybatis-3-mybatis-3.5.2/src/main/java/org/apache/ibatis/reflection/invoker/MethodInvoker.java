@@ -17,29 +17,65 @@ package org.apache.ibatis.reflection.invoker;
 
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
 
 import org.apache.ibatis.reflection.Reflector;
 
 /**
+ * Invokes a method. Getters and setters are called through an accessor generated on their first call, and the
+ * calls that the accessor can not make as reflection would, e.g. with an argument of the wrong type, are made
+ * through reflection.
+ *
  * @author Clinton Begin
  */
 public class MethodInvoker implements Invoker {
 
   private final Class<?> type;
   private final Method method;
+  private final Class<?> declaringClass;
+  private final Class<?> parameterType;
+  private final Class<?> wrappedParameterType;
+  private volatile boolean accessorResolved;
+  private Function<Object, Object> getter;
+  private BiConsumer<Object, Object> setter;
 
   public MethodInvoker(Method method) {
     this.method = method;
+    this.declaringClass = method.getDeclaringClass();
 
     if (method.getParameterTypes().length == 1) {
       type = method.getParameterTypes()[0];
+      parameterType = type;
+      wrappedParameterType = AccessorFactory.wrap(type);
     } else {
       type = method.getReturnType();
+      parameterType = null;
+      wrappedParameterType = null;
     }
   }
 
   @Override
   public Object invoke(Object target, Object[] args) throws IllegalAccessException, InvocationTargetException {
+    if (!accessorResolved) {
+      resolveAccessor();
+    }
+    if (getter != null && (args == null || args.length == 0) && declaringClass.isInstance(target)) {
+      try {
+        return getter.apply(target);
+      } catch (Throwable t) {
+        throw new InvocationTargetException(t);
+      }
+    }
+    if (setter != null && args != null && args.length == 1 && declaringClass.isInstance(target)
+        && isAssignable(args[0])) {
+      try {
+        setter.accept(target, args[0]);
+        return null;
+      } catch (Throwable t) {
+        throw new InvocationTargetException(t);
+      }
+    }
     try {
       return method.invoke(target, args);
     } catch (IllegalAccessException e) {
@@ -56,4 +92,21 @@ public class MethodInvoker implements Invoker {
   public Class<?> getType() {
     return type;
   }
+
+  private boolean isAssignable(Object value) {
+    if (value == null) {
+      return !parameterType.isPrimitive();
+    }
+    return wrappedParameterType.isInstance(value);
+  }
+
+  private void resolveAccessor() {
+    // generating the same accessor twice is harmless, so there is no lock
+    if (parameterType != null) {
+      setter = AccessorFactory.newSetter(method);
+    } else if (method.getParameterTypes().length == 0 && method.getReturnType() != void.class) {
+      getter = AccessorFactory.newGetter(method);
+    }
+    accessorResolved = true;
+  }
 }
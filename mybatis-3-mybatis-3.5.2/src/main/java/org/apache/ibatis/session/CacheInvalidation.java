@@ -0,0 +1,34 @@
+/**
+ *    Copyright ${license.git.copyrightYears} the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.session;
+
+/**
+ * Specifies which second level cache entries a statement with flushCache enabled invalidates.
+ *
+ * @since 3.5.3
+ */
+public enum CacheInvalidation {
+
+  /**
+   * Clears the whole cache of the namespace of the statement.
+   */
+  NAMESPACE,
+
+  /**
+   * Invalidates the entries of all the caches that were read from the tables the statement writes.
+   */
+  TABLE
+}
@@ -20,11 +20,14 @@ import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.BiFunction;
 
 import org.apache.ibatis.binding.MapperRegistry;
@@ -34,10 +37,17 @@ import org.apache.ibatis.builder.ResultMapResolver;
 import org.apache.ibatis.builder.annotation.MethodResolver;
 import org.apache.ibatis.builder.xml.XMLStatementBuilder;
 import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.cache.CacheStatistics;
+import org.apache.ibatis.cache.TableDependencyIndex;
+import org.apache.ibatis.cache.WeightBudget;
 import org.apache.ibatis.cache.decorators.FifoCache;
 import org.apache.ibatis.cache.decorators.LruCache;
 import org.apache.ibatis.cache.decorators.SoftCache;
+import org.apache.ibatis.cache.decorators.TinyLfuCache;
+import org.apache.ibatis.cache.decorators.WeightedCache;
 import org.apache.ibatis.cache.decorators.WeakCache;
+import org.apache.ibatis.cache.impl.ConcurrentPerpetualCache;
+import org.apache.ibatis.cache.impl.OffHeapCache;
 import org.apache.ibatis.cache.impl.PerpetualCache;
 import org.apache.ibatis.datasource.jndi.JndiDataSourceFactory;
 import org.apache.ibatis.datasource.pooled.PooledDataSourceFactory;
@@ -52,6 +62,8 @@ import org.apache.ibatis.executor.loader.ProxyFactory;
 import org.apache.ibatis.executor.loader.cglib.CglibProxyFactory;
 import org.apache.ibatis.executor.loader.javassist.JavassistProxyFactory;
 import org.apache.ibatis.executor.parameter.ParameterHandler;
+import org.apache.ibatis.executor.resultset.AutoMappingPlan;
+import org.apache.ibatis.executor.resultset.CompiledRowMapper;
 import org.apache.ibatis.executor.resultset.DefaultResultSetHandler;
 import org.apache.ibatis.executor.resultset.ResultSetHandler;
 import org.apache.ibatis.executor.statement.RoutingStatementHandler;
@@ -102,6 +114,9 @@ import org.apache.ibatis.type.TypeHandlerRegistry;
  */
 public class Configuration {
 
+  private static final int MAXIMUM_COMPILED_ROW_MAPPERS = 4096;
+  private static final int MAXIMUM_AUTO_MAPPING_PLANS = 4096;
+
   // 环境，对应<environments>节点
   protected Environment environment;
 
@@ -117,14 +132,23 @@ public class Configuration {
   protected boolean callSettersOnNulls;
   protected boolean useActualParamName = true;
   protected boolean returnInstanceForEmptyRow;
+  protected boolean compiledRowMappersEnabled;
+  protected boolean columnIndexAccessEnabled;
   protected String logPrefix;
   protected Class<? extends Log> logImpl;
   protected Class<? extends VFS> vfsImpl;
   protected LocalCacheScope localCacheScope = LocalCacheScope.SESSION;
+  protected CacheInvalidation cacheInvalidation = CacheInvalidation.NAMESPACE;
+  protected Integer localCacheSize;
+  protected Long localCacheMaximumWeight;
+  protected Class<? extends Cache> localCacheEviction;
   protected JdbcType jdbcTypeForNull = JdbcType.OTHER;
   protected Set<String> lazyLoadTriggerMethods = new HashSet<>(Arrays.asList("equals", "clone", "hashCode", "toString"));
   protected Integer defaultStatementTimeout;
   protected Integer defaultFetchSize;
+  protected Integer cursorPrefetchSize;
+  protected java.util.concurrent.Executor publisherExecutor;
+  protected boolean useVirtualThreads;
   protected ResultSetType defaultResultSetType;
   protected ExecutorType defaultExecutorType = ExecutorType.SIMPLE;// 默认为简单执行器
   protected AutoMappingBehavior autoMappingBehavior = AutoMappingBehavior.PARTIAL;
@@ -158,6 +182,14 @@ public class Configuration {
       .conflictMessageProducer((savedValue, targetValue) ->
           ". please check " + savedValue.getResource() + " and " + targetValue.getResource());// 映射的语句
   protected final Map<String, Cache> caches = new StrictMap<>("Caches collection");// 缓存
+  protected final Map<String, CacheStatistics> cacheStatistics = new HashMap<>();
+  // the least recently used row mappers and plans are dropped, e.g. for dynamic statements selecting many columns
+  private final Map<String, CompiledRowMapper> compiledRowMappers = newLruMap(MAXIMUM_COMPILED_ROW_MAPPERS);
+  private final Map<String, AutoMappingPlan> autoMappingPlans = newLruMap(MAXIMUM_AUTO_MAPPING_PLANS);
+  // guards the row mappers and the plans, whose order changes on every read
+  private final ReentrantLock mappingLock = new ReentrantLock();
+  protected final WeightBudget cacheWeightBudget = new WeightBudget();
+  protected final TableDependencyIndex cacheTableIndex = new TableDependencyIndex();
   protected final Map<String, ResultMap> resultMaps = new StrictMap<>("Result Maps collection");// 结果映射
   protected final Map<String, ParameterMap> parameterMaps = new StrictMap<>("Parameter Maps collection");
   protected final Map<String, KeyGenerator> keyGenerators = new StrictMap<>("Key Generators collection");
@@ -191,10 +223,14 @@ public class Configuration {
     typeAliasRegistry.registerAlias("UNPOOLED", UnpooledDataSourceFactory.class);
 
     typeAliasRegistry.registerAlias("PERPETUAL", PerpetualCache.class);
+    typeAliasRegistry.registerAlias("CONCURRENT_PERPETUAL", ConcurrentPerpetualCache.class);
+    typeAliasRegistry.registerAlias("OFF_HEAP", OffHeapCache.class);
     typeAliasRegistry.registerAlias("FIFO", FifoCache.class);
     typeAliasRegistry.registerAlias("LRU", LruCache.class);
     typeAliasRegistry.registerAlias("SOFT", SoftCache.class);
     typeAliasRegistry.registerAlias("WEAK", WeakCache.class);
+    typeAliasRegistry.registerAlias("TINYLFU", TinyLfuCache.class);
+    typeAliasRegistry.registerAlias("WEIGHTED", WeightedCache.class);
 
     typeAliasRegistry.registerAlias("DB_VENDOR", VendorDatabaseIdProvider.class);
 
@@ -270,6 +306,40 @@ public class Configuration {
     this.returnInstanceForEmptyRow = returnEmptyInstance;
   }
 
+  /**
+   * @since 3.5.3
+   */
+  public boolean isCompiledRowMappersEnabled() {
+    return compiledRowMappersEnabled;
+  }
+
+  /**
+   * Sets whether the rows of simple result maps are mapped by a {@link CompiledRowMapper}, compiled once for each
+   * result map and column layout, instead of interpreting the result map for every row.
+   *
+   * @since 3.5.3
+   */
+  public void setCompiledRowMappersEnabled(boolean compiledRowMappersEnabled) {
+    this.compiledRowMappersEnabled = compiledRowMappersEnabled;
+  }
+
+  /**
+   * @since 3.5.3
+   */
+  public boolean isColumnIndexAccessEnabled() {
+    return columnIndexAccessEnabled;
+  }
+
+  /**
+   * Sets whether the mapped columns are read with {@code TypeHandler#getResult(ResultSet, int)}, the index of each
+   * column name being resolved once for each result set, instead of having the driver look the name up for every row.
+   *
+   * @since 3.5.3
+   */
+  public void setColumnIndexAccessEnabled(boolean columnIndexAccessEnabled) {
+    this.columnIndexAccessEnabled = columnIndexAccessEnabled;
+  }
+
   public String getDatabaseId() {
     return databaseId;
   }
@@ -459,6 +529,51 @@ public class Configuration {
     this.useColumnLabel = useColumnLabel;
   }
 
+  /**
+   * @since 3.5.3
+   */
+  public Long getCacheMaximumWeight() {
+    long maximumWeight = cacheWeightBudget.getMaximumWeight();
+    return maximumWeight > 0 ? maximumWeight : null;
+  }
+
+  /**
+   * Sets the maximum total weight, usually in bytes, of the weighted caches of this configuration.
+   *
+   * @since 3.5.3
+   */
+  public void setCacheMaximumWeight(Long cacheMaximumWeight) {
+    cacheWeightBudget.setMaximumWeight(cacheMaximumWeight == null ? 0 : cacheMaximumWeight);
+  }
+
+  /**
+   * @since 3.5.3
+   */
+  public WeightBudget getCacheWeightBudget() {
+    return cacheWeightBudget;
+  }
+
+  /**
+   * @since 3.5.3
+   */
+  public CacheInvalidation getCacheInvalidation() {
+    return cacheInvalidation;
+  }
+
+  /**
+   * @since 3.5.3
+   */
+  public void setCacheInvalidation(CacheInvalidation cacheInvalidation) {
+    this.cacheInvalidation = cacheInvalidation;
+  }
+
+  /**
+   * @since 3.5.3
+   */
+  public TableDependencyIndex getCacheTableIndex() {
+    return cacheTableIndex;
+  }
+
   public LocalCacheScope getLocalCacheScope() {
     return localCacheScope;
   }
@@ -467,6 +582,118 @@ public class Configuration {
     this.localCacheScope = localCacheScope;
   }
 
+  /**
+   * @since 3.5.3
+   */
+  public Integer getLocalCacheSize() {
+    return localCacheSize;
+  }
+
+  /**
+   * Sets the maximum number of entries of the local cache of a session, which is unbounded by default.
+   *
+   * @since 3.5.3
+   */
+  public void setLocalCacheSize(Integer localCacheSize) {
+    this.localCacheSize = localCacheSize;
+  }
+
+  /**
+   * @since 3.5.3
+   */
+  public Long getLocalCacheMaximumWeight() {
+    return localCacheMaximumWeight;
+  }
+
+  /**
+   * Sets the maximum weight, an estimate in bytes, of the entries of the local cache of a session.
+   *
+   * @since 3.5.3
+   */
+  public void setLocalCacheMaximumWeight(Long localCacheMaximumWeight) {
+    this.localCacheMaximumWeight = localCacheMaximumWeight;
+  }
+
+  /**
+   * @since 3.5.3
+   */
+  public Class<? extends Cache> getLocalCacheEviction() {
+    return localCacheEviction;
+  }
+
+  /**
+   * Sets the eviction decorator of the local cache of a session, e.g. {@code LruCache} or {@code SoftCache}.
+   *
+   * @since 3.5.3
+   */
+  public void setLocalCacheEviction(Class<? extends Cache> localCacheEviction) {
+    this.localCacheEviction = localCacheEviction;
+  }
+
+  /**
+   * @since 3.5.3
+   */
+  public Integer getCursorPrefetchSize() {
+    return cursorPrefetchSize;
+  }
+
+  /**
+   * Sets the number of items the cursors fetch and map on a background thread ahead of the consumer, or null for
+   * the cursors to fetch each item when it is requested, which is the default.
+   *
+   * @since 3.5.3
+   * @see org.apache.ibatis.cursor.defaults.PrefetchingCursor
+   */
+  public void setCursorPrefetchSize(Integer cursorPrefetchSize) {
+    this.cursorPrefetchSize = cursorPrefetchSize;
+  }
+
+  /**
+   * @since 3.5.3
+   */
+  public java.util.concurrent.Executor getPublisherExecutor() {
+    return publisherExecutor;
+  }
+
+  /**
+   * Sets the executor the publishers run their queries on, or null for a shared pool of daemon threads, which is the
+   * default.
+   *
+   * @since 3.5.3
+   * @see org.apache.ibatis.cursor.CursorPublisher
+   */
+  public void setPublisherExecutor(java.util.concurrent.Executor publisherExecutor) {
+    this.publisherExecutor = publisherExecutor;
+  }
+
+  /**
+   * @since 3.5.3
+   */
+  public boolean isUseVirtualThreads() {
+    return useVirtualThreads;
+  }
+
+  /**
+   * Sets whether the prefetching cursors, and the publishers without an executor of their own, run their queries on
+   * virtual threads. The other statements are not affected and run on the thread calling the mapper. It has no
+   * effect on the Java versions without virtual threads.
+   *
+   * @since 3.5.3
+   * @see org.apache.ibatis.executor.VirtualThreads
+   */
+  public void setUseVirtualThreads(boolean useVirtualThreads) {
+    this.useVirtualThreads = useVirtualThreads;
+  }
+
+  /**
+   * Returns whether the local cache of a session is bounded by an eviction policy.
+   *
+   * @since 3.5.3
+   */
+  public boolean isLocalCacheBounded() {
+    return localCacheSize != null || localCacheMaximumWeight != null || localCacheEviction != null;
+  }
+
   public JdbcType getJdbcTypeForNull() {
     return jdbcTypeForNull;
   }
@@ -614,7 +841,7 @@ public class Configuration {
       executor = new SimpleExecutor(this, transaction);
     }
     if (cacheEnabled) {
-      executor = new CachingExecutor(executor);
+      executor = new CachingExecutor(executor, cacheInvalidation == CacheInvalidation.TABLE ? cacheTableIndex : null);
     }
     executor = (Executor) interceptorChain.pluginAll(executor);
     return executor;
@@ -660,6 +887,90 @@ public class Configuration {
     return caches.containsKey(id);
   }
 
+  /**
+   * @since 3.5.3
+   */
+  public void addCacheStatistics(CacheStatistics statistics) {
+    cacheStatistics.put(statistics.getId(), statistics);
+  }
+
+  /**
+   * Returns the statistics of the second level caches, e.g. to publish them to a metrics system.
+   *
+   * @since 3.5.3
+   */
+  public Collection<CacheStatistics> getCacheStatistics() {
+    return cacheStatistics.values();
+  }
+
+  /**
+   * @param id - the id of a cache
+   * @return The statistics of the cache, or null if they are not registered
+   * @since 3.5.3
+   */
+  public CacheStatistics getCacheStatistics(String id) {
+    return cacheStatistics.get(id);
+  }
+
+  /**
+   * @param key - the id of a result map and the column signature of a result set
+   * @return The row mapper compiled for them, or null if there is none yet
+   * @since 3.5.3
+   */
+  public CompiledRowMapper getCompiledRowMapper(String key) {
+    mappingLock.lock();
+    try {
+      return compiledRowMappers.get(key);
+    } finally {
+      mappingLock.unlock();
+    }
+  }
+
+  /**
+   * Keeps a compiled row mapper, dropping the least recently used one once the maximum number of row mappers is
+   * reached, e.g. because of dynamic statements selecting many different columns.
+   *
+   * @since 3.5.3
+   */
+  public void addCompiledRowMapper(String key, CompiledRowMapper rowMapper) {
+    mappingLock.lock();
+    try {
+      compiledRowMappers.putIfAbsent(key, rowMapper);
+    } finally {
+      mappingLock.unlock();
+    }
+  }
+
+  /**
+   * @param key - the id of a result map, a column prefix and the column signature of a result set
+   * @return The auto-mapping plan resolved for them, or null if there is none yet
+   * @since 3.5.3
+   */
+  public AutoMappingPlan getAutoMappingPlan(String key) {
+    mappingLock.lock();
+    try {
+      return autoMappingPlans.get(key);
+    } finally {
+      mappingLock.unlock();
+    }
+  }
+
+  /**
+   * Keeps an auto-mapping plan, dropping the least recently used one once the maximum number of plans is reached.
+   *
+   * @return The plan kept for the key, which is the given one unless another one has been kept meanwhile
+   * @since 3.5.3
+   */
+  public AutoMappingPlan addAutoMappingPlan(String key, AutoMappingPlan plan) {
+    mappingLock.lock();
+    try {
+      AutoMappingPlan existing = autoMappingPlans.putIfAbsent(key, plan);
+      return existing != null ? existing : plan;
+    } finally {
+      mappingLock.unlock();
+    }
+  }
+
   public void addResultMap(ResultMap rm) {
     resultMaps.put(rm.getId(), rm);
     checkLocallyForDiscriminatedNestedResultMaps(rm);
@@ -904,6 +1215,17 @@ public class Configuration {
     }
   }
 
+  private static <V> Map<String, V> newLruMap(int maximumSize) {
+    return new LinkedHashMap<String, V>(16, .75F, true) {
+      private static final long serialVersionUID = 1L;
+
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, V> eldest) {
+        return size() > maximumSize;
+      }
+    };
+  }
+
   protected static class StrictMap<V> extends HashMap<String, V> {
 
     private static final long serialVersionUID = -4950446264854982944L;
@@ -19,9 +19,12 @@ import java.io.Closeable;
 import java.sql.Connection;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Executor;
 
 import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.cursor.CursorPublisher;
 import org.apache.ibatis.executor.BatchResult;
+import org.apache.ibatis.executor.VirtualThreads;
 
 /**
  * The primary Java interface for working with MyBatis.
@@ -143,6 +146,51 @@ public interface SqlSession extends Closeable {
    */
   <T> Cursor<T> selectCursor(String statement, Object parameter, RowBounds rowBounds);
 
+  /**
+   * A publisher emits the same results as a Cursor to a subscriber, as fast as the subscriber requests them.
+   * The query runs on the executor of the configuration when the publisher is subscribed to.
+   * @param <T> the published element type.
+   * @param statement Unique identifier matching the statement to use.
+   * @return Publisher of mapped objects
+   * @since 3.5.3
+   */
+  default <T> CursorPublisher<T> selectPublisher(String statement) {
+    return selectPublisher(statement, null, RowBounds.DEFAULT);
+  }
+
+  /**
+   * A publisher emits the same results as a Cursor to a subscriber, as fast as the subscriber requests them.
+   * The query runs on the executor of the configuration when the publisher is subscribed to.
+   * @param <T> the published element type.
+   * @param statement Unique identifier matching the statement to use.
+   * @param parameter A parameter object to pass to the statement.
+   * @return Publisher of mapped objects
+   * @since 3.5.3
+   */
+  default <T> CursorPublisher<T> selectPublisher(String statement, Object parameter) {
+    return selectPublisher(statement, parameter, RowBounds.DEFAULT);
+  }
+
+  /**
+   * A publisher emits the same results as a Cursor to a subscriber, as fast as the subscriber requests them.
+   * The query runs on the executor of the configuration when the publisher is subscribed to, so the session must
+   * not be closed nor used by another thread until the subscription is over.
+   * @param <T> the published element type.
+   * @param statement Unique identifier matching the statement to use.
+   * @param parameter A parameter object to pass to the statement.
+   * @param rowBounds  Bounds to limit object retrieval
+   * @return Publisher of mapped objects
+   * @since 3.5.3
+   */
+  default <T> CursorPublisher<T> selectPublisher(String statement, Object parameter, RowBounds rowBounds) {
+    Configuration configuration = getConfiguration();
+    Executor executor = configuration.getPublisherExecutor();
+    if (executor == null && configuration.isUseVirtualThreads()) {
+      executor = VirtualThreads.getExecutor();
+    }
+    return new CursorPublisher<>(() -> selectCursor(statement, parameter, rowBounds), executor);
+  }
+
   /**
    * Retrieve a single row mapped from the statement key and parameter
    * using a {@code ResultHandler}.
@@ -26,6 +26,7 @@ import java.util.Map;
 
 import org.apache.ibatis.binding.BindingException;
 import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.cursor.defaults.PrefetchingCursor;
 import org.apache.ibatis.exceptions.ExceptionFactory;
 import org.apache.ibatis.exceptions.TooManyResultsException;
 import org.apache.ibatis.executor.BatchResult;
@@ -223,6 +224,7 @@ public class DefaultSqlSession implements SqlSession {
   @Override
   public void commit(boolean force) {
     try {
+      stopPrefetchingCursors();
       executor.commit(isCommitOrRollbackRequired(force));
       dirty = false;
     } catch (Exception e) {
@@ -240,6 +242,7 @@ public class DefaultSqlSession implements SqlSession {
   @Override
   public void rollback(boolean force) {
     try {
+      stopPrefetchingCursors();
       executor.rollback(isCommitOrRollbackRequired(force));
       dirty = false;
     } catch (Exception e) {
@@ -263,8 +266,12 @@ public class DefaultSqlSession implements SqlSession {
   @Override
   public void close() {
     try {
-      executor.close(isCommitOrRollbackRequired(false));
-      closeCursors();
+      try {
+        // the background threads of the prefetching cursors may still use the connection
+        closeCursors();
+      } finally {
+        executor.close(isCommitOrRollbackRequired(false));
+      }
       dirty = false;
     } finally {
       ErrorContext.instance().reset();
@@ -284,6 +291,16 @@ public class DefaultSqlSession implements SqlSession {
     }
   }
 
+  private void stopPrefetchingCursors() {
+    if (cursorList != null) {
+      for (Cursor<?> cursor : cursorList) {
+        if (cursor instanceof PrefetchingCursor) {
+          ((PrefetchingCursor<?>) cursor).stopPrefetching();
+        }
+      }
+    }
+  }
+
   @Override
   public Configuration getConfiguration() {
     return configuration;
@@ -0,0 +1,196 @@
+/**
+ *    Copyright ${license.git.copyrightYears} the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.ibatis.cache.decorators.BlockingCache;
+import org.apache.ibatis.cache.impl.PerpetualCache;
+import org.apache.ibatis.cache.serializer.JdkSerializer;
+import org.junit.jupiter.api.Test;
+
+class BlockingCacheTest {
+
+  @Test
+  void shouldLoadOnceForConcurrentMisses() throws Exception {
+    BlockingCache cache = newSingleFlightCache();
+    AtomicInteger loads = new AtomicInteger();
+    CountDownLatch start = new CountDownLatch(1);
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    try {
+      List<Future<Object>> results = new ArrayList<>();
+      for (int i = 0; i < 8; i++) {
+        results.add(executor.submit(() -> {
+          start.await();
+          Object value = cache.getObject("key");
+          if (value == null) {
+            loads.incrementAndGet();
+            Thread.sleep(50);
+            value = "value";
+            cache.putObject("key", value);
+          }
+          return value;
+        }));
+      }
+      start.countDown();
+      for (Future<Object> result : results) {
+        assertEquals("value", result.get(5, TimeUnit.SECONDS));
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+    assertEquals(1, loads.get());
+  }
+
+  @Test
+  void shouldHandOverTheLoadWhenTheLoaderGivesUp() throws Exception {
+    BlockingCache cache = newSingleFlightCache();
+    assertNull(cache.getObject("key"));
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      Future<Object> waiter = executor.submit(() -> cache.getObject("key"));
+      Thread.sleep(50);
+      assertFalse(waiter.isDone());
+      // e.g. the transaction is rolled back
+      cache.removeObject("key");
+      assertNull(waiter.get(5, TimeUnit.SECONDS));
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  void shouldLetTheLoaderReadTheKeyAgain() {
+    BlockingCache cache = newSingleFlightCache();
+    assertNull(cache.getObject("key"));
+    assertNull(cache.getObject("key"));
+    cache.putObject("key", "value");
+    assertEquals("value", cache.getObject("key"));
+  }
+
+  @Test
+  void shouldReturnStaleValueOnTimeout() throws Exception {
+    PerpetualCache delegate = new PerpetualCache("default");
+    BlockingCache cache = newSingleFlightCache(delegate);
+    cache.setTimeout(50);
+    assertNull(cache.getObject("key"));
+    cache.putObject("key", "stale");
+    delegate.removeObject("key");
+    assertNull(cache.getObject("key"));
+    assertNull(cache.getObject("other"));
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      assertEquals("stale", executor.submit(() -> cache.getObject("key")).get(5, TimeUnit.SECONDS));
+      Future<Object> waiter = executor.submit(() -> cache.getObject("other"));
+      ExecutionException e = assertThrows(ExecutionException.class, () -> waiter.get(5, TimeUnit.SECONDS));
+      assertTrue(e.getCause() instanceof CacheException);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  void shouldReturnCopiesOfTheStaleValueWithASerializer() throws Exception {
+    PerpetualCache delegate = new PerpetualCache("default");
+    BlockingCache cache = newSingleFlightCache(delegate);
+    cache.setTimeout(50);
+    cache.setSerializer(new JdkSerializer());
+    List<String> value = new ArrayList<>(Collections.singletonList("a"));
+    assertNull(cache.getObject("key"));
+    cache.putObject("key", value);
+    value.add("put after");
+    delegate.removeObject("key");
+    assertNull(cache.getObject("key"));
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      @SuppressWarnings("unchecked")
+      List<String> stale = (List<String>) executor.submit(() -> cache.getObject("key")).get(5, TimeUnit.SECONDS);
+      assertEquals(Collections.singletonList("a"), stale);
+      stale.add("mutated");
+      assertEquals(Collections.singletonList("a"), executor.submit(() -> cache.getObject("key")).get(5, TimeUnit.SECONDS));
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  void shouldDropStaleValuesOnClear() throws Exception {
+    BlockingCache cache = newSingleFlightCache();
+    cache.setTimeout(50);
+    assertNull(cache.getObject("key"));
+    cache.putObject("key", "stale");
+    cache.clear();
+    assertNull(cache.getObject("key"));
+    assertTimesOut(cache, "key");
+  }
+
+  @Test
+  void shouldDropTheLeastRecentlyUsedStaleValueWhenFull() throws Exception {
+    PerpetualCache delegate = new PerpetualCache("default");
+    BlockingCache cache = newSingleFlightCache(delegate);
+    cache.setTimeout(50);
+    cache.setStaleSize(2);
+    for (int i = 0; i < 3; i++) {
+      assertNull(cache.getObject(i));
+      cache.putObject(i, "stale" + i);
+    }
+    for (int i = 0; i < 3; i++) {
+      delegate.removeObject(i);
+      assertNull(cache.getObject(i));
+    }
+    assertTimesOut(cache, 0);
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      assertEquals("stale1", executor.submit(() -> cache.getObject(1)).get(5, TimeUnit.SECONDS));
+      assertEquals("stale2", executor.submit(() -> cache.getObject(2)).get(5, TimeUnit.SECONDS));
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private void assertTimesOut(BlockingCache cache, Object key) {
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      Future<Object> waiter = executor.submit(() -> cache.getObject(key));
+      ExecutionException e = assertThrows(ExecutionException.class, () -> waiter.get(5, TimeUnit.SECONDS));
+      assertTrue(e.getCause() instanceof CacheException);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private BlockingCache newSingleFlightCache() {
+    return newSingleFlightCache(new PerpetualCache("default"));
+  }
+
+  private BlockingCache newSingleFlightCache(Cache delegate) {
+    BlockingCache cache = new BlockingCache(delegate);
+    cache.setSingleFlight(true);
+    return cache;
+  }
+
+}
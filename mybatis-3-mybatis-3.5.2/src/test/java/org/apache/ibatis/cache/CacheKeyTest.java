@@ -87,6 +87,74 @@ class CacheKeyTest {
     assertEquals(key1, key2);
   }
 
+  @Test
+  void shouldTreatPrimitiveValuesLikeTheirWrappers() throws Exception {
+    CacheKey key1 = new CacheKey();
+    key1.update(1);
+    key1.update(2L);
+    key1.update("hello");
+    CacheKey key2 = new CacheKey(new Object[] { 1, 2L, "hello" });
+    assertEquals(key1, key2);
+    assertEquals(key1.hashCode(), key2.hashCode());
+    assertEquals(key1.toString(), key2.toString());
+    assertEquals(3, key1.getUpdateCount());
+    assertEquals(key1, key1.clone());
+    assertEquals(key1, serialize(key1));
+  }
+
+  @Test
+  void shouldTestCacheKeysNotEqualDueToPrimitiveType() {
+    assertNotEquals(new CacheKey(new Object[] { 1 }), new CacheKey(new Object[] { 1L }));
+    assertNotEquals(new CacheKey(new Object[] { (short) 1 }), new CacheKey(new Object[] { (byte) 1 }));
+    assertNotEquals(new CacheKey(new Object[] { 1.0d }), new CacheKey(new Object[] { 1.0f }));
+    assertEquals(new CacheKey(new Object[] { 1.5d, 'c', true }), new CacheKey(new Object[] { 1.5d, 'c', true }));
+    assertEquals("1:a:true:1.5", new CacheKey(new Object[] { 1, 'a', true, 1.5d }).toString().split(":", 3)[2]);
+  }
+
+  @Test
+  void shouldGrowBeyondTheInitialCapacity() {
+    CacheKey key1 = new CacheKey();
+    CacheKey key2 = new CacheKey();
+    for (int i = 0; i < 100; i++) {
+      key1.update(i % 2 == 0 ? "value" + i : i);
+      key2.update(i % 2 == 0 ? "value" + i : i);
+    }
+    assertEquals(key1, key2);
+    key2.update(100);
+    assertNotEquals(key1, key2);
+  }
+
+  @Test
+  void shouldCopyTheValuesOfAnotherKey() {
+    CacheKey other = new CacheKey(new Object[] { "id", 1, 2L, 3.0d, true, 'c', null });
+    CacheKey key = new CacheKey();
+    key.update("prefix");
+    key.updateAll(other);
+    CacheKey expected = new CacheKey(new Object[] { "prefix", "id", 1, 2L, 3.0d, true, 'c', null });
+    assertEquals(expected, key);
+    assertEquals(expected.hashCode(), key.hashCode());
+    other.reset();
+    assertEquals(expected, key);
+  }
+
+  @Test
+  void shouldBeReusableOnceReset() {
+    CacheKey key = new CacheKey(new Object[] { "first", 1, 2L });
+    key.reset();
+    assertEquals(0, key.getUpdateCount());
+    assertEquals(new CacheKey(), key);
+    key.update("second");
+    key.update(3);
+    assertEquals(new CacheKey(new Object[] { "second", 3 }), key);
+    assertEquals(new CacheKey(new Object[] { "second", 3 }).hashCode(), key.hashCode());
+  }
+
+  @Test
+  void shouldNotResetNullCacheKey() {
+    assertThrows(CacheException.class, CacheKey.NULL_CACHE_KEY::reset);
+    assertThrows(CacheException.class, () -> CacheKey.NULL_CACHE_KEY.updateAll(new CacheKey()));
+  }
+
   @Test
   void serializationExceptionTest() {
     CacheKey cacheKey = new CacheKey();
@@ -0,0 +1,114 @@
+/**
+ *    Copyright ${license.git.copyrightYears} the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.lang.management.ManagementFactory;
+import java.util.Properties;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.apache.ibatis.cache.decorators.LoggingCache;
+import org.apache.ibatis.cache.decorators.WeightedCache;
+import org.apache.ibatis.cache.impl.PerpetualCache;
+import org.apache.ibatis.mapping.CacheBuilder;
+import org.junit.jupiter.api.Test;
+
+class CacheStatisticsTest {
+
+  @Test
+  void shouldCountHitsMissesPutsAndEvictions() {
+    CacheStatistics statistics = new CacheStatistics("default");
+    Cache cache = new CacheBuilder("default").size(2).statistics(statistics).build();
+    for (int i = 0; i < 3; i++) {
+      cache.putObject(i, i);
+    }
+    assertNull(cache.getObject(0));
+    assertEquals(2, cache.getObject(2));
+    assertEquals(1, statistics.getHits());
+    assertEquals(1, statistics.getMisses());
+    assertEquals(0.5, statistics.getHitRatio());
+    assertEquals(3, statistics.getPuts());
+    assertEquals(1, statistics.getEvictions());
+    assertEquals(2, statistics.getSize());
+  }
+
+  @Test
+  @SuppressWarnings("deprecation")
+  void shouldUpdateTheProtectedCountersOfLoggingCacheWhenRead() {
+    class CountingCache extends LoggingCache {
+      CountingCache(Cache delegate) {
+        super(delegate);
+      }
+
+      int[] counters() {
+        return new int[] { requests, hits };
+      }
+    }
+    CountingCache cache = new CountingCache(new PerpetualCache("default"));
+    cache.putObject(1, 1);
+    cache.getObject(1);
+    cache.getObject(2);
+    assertEquals(1, cache.getStatistics().getHits());
+    assertArrayEquals(new int[] { 2, 1 }, cache.counters());
+  }
+
+  @Test
+  void shouldCountExpiredEntriesAsEvictions() throws Exception {
+    Properties properties = new Properties();
+    properties.setProperty("timeToLive", "1");
+    CacheStatistics statistics = new CacheStatistics("default");
+    Cache cache = new CacheBuilder("default").properties(properties).statistics(statistics).build();
+    cache.putObject(0, 0);
+    Thread.sleep(5);
+    assertNull(cache.getObject(0));
+    assertEquals(1, statistics.getEvictions());
+    assertEquals(1, statistics.getMisses());
+  }
+
+  @Test
+  void shouldRecordTheWeightOfWeightedCaches() {
+    Properties properties = new Properties();
+    properties.setProperty("maximumWeight", "1000000");
+    CacheStatistics statistics = new CacheStatistics("default");
+    Cache cache = new CacheBuilder("default").addDecorator(WeightedCache.class).properties(properties)
+        .statistics(statistics).build();
+    cache.putObject("key", "value");
+    assertTrue(statistics.getWeight() > 0);
+    cache.clear();
+    assertEquals(0, statistics.getWeight());
+  }
+
+  @Test
+  void shouldBeRegisteredAsMXBean() throws Exception {
+    CacheStatistics statistics = new CacheStatistics("default");
+    Cache cache = new CacheBuilder("default").statistics(statistics).build();
+    cache.putObject(0, 0);
+    cache.getObject(0);
+    MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+    ObjectName name = new ObjectName("org.apache.ibatis:type=Cache,name=" + ObjectName.quote(statistics.getId()));
+    server.registerMBean(statistics, name);
+    try {
+      assertEquals(1L, server.getAttribute(name, "Hits"));
+      assertEquals(1, server.getAttribute(name, "Size"));
+    } finally {
+      server.unregisterMBean(name);
+    }
+  }
+
+}
@@ -0,0 +1,142 @@
+/**
+ *    Copyright ${license.git.copyrightYears} the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache;
+
+import org.apache.ibatis.cache.impl.OffHeapCache;
+import org.apache.ibatis.domain.blog.Author;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+class OffHeapCacheTest {
+
+  @Test
+  void shouldReturnCopiesOfStoredObjects() {
+    OffHeapCache cache = new OffHeapCache("default");
+    Author author = new Author(1, "jim", "******", "jim@ibatis.apache.org", "bio", null);
+    cache.putObject(0, author);
+    Object copy = cache.getObject(0);
+    assertEquals(author.toString(), copy.toString());
+    assertNotSame(author, copy);
+    assertEquals(1, cache.getSize());
+  }
+
+  @Test
+  void shouldDemonstrateHowAllObjectsAreKept() {
+    OffHeapCache cache = new OffHeapCache("default");
+    for (int i = 0; i < 10000; i++) {
+      cache.putObject(i, "value" + i);
+      assertEquals("value" + i, cache.getObject(i));
+    }
+    assertEquals(10000, cache.getSize());
+    assertEquals(cache.getPageSize(), cache.getAllocatedMemory());
+  }
+
+  @Test
+  void shouldEvictLeastRecentlyUsedObjectsWhenMemoryIsFull() {
+    OffHeapCache cache = new OffHeapCache("default");
+    cache.setPageSize(1024);
+    cache.setMaximumMemory(1024);
+    for (int i = 0; i < 100; i++) {
+      cache.putObject(i, i);
+      cache.getObject(0);
+    }
+    assertTrue(cache.getSize() < 100);
+    assertEquals(0, cache.getObject(0));
+    assertEquals(99, cache.getObject(99));
+    assertNull(cache.getObject(1));
+    assertEquals(1024, cache.getAllocatedMemory());
+  }
+
+  @Test
+  void shouldCacheAnotherSizeOnceMemoryIsFullOfOneSize() {
+    OffHeapCache cache = new OffHeapCache("default");
+    cache.setPageSize(1024);
+    cache.setMaximumMemory(2048);
+    for (int i = 0; i < 100; i++) {
+      cache.putObject(i, i);
+    }
+    assertEquals(2048, cache.getAllocatedMemory());
+    int size = cache.getSize();
+    cache.putObject("large", new byte[600]);
+    assertNotNull(cache.getObject("large"));
+    // only the values of one page were evicted
+    assertEquals(size / 2 + 1, cache.getSize());
+    assertEquals(2048, cache.getAllocatedMemory());
+  }
+
+  @Test
+  void shouldReuseAllPagesForAnotherSizeAfterClear() {
+    OffHeapCache cache = new OffHeapCache("default");
+    cache.setPageSize(1024);
+    cache.setMaximumMemory(2048);
+    for (int i = 0; i < 100; i++) {
+      cache.putObject(i, i);
+    }
+    cache.clear();
+    cache.putObject(0, new byte[600]);
+    cache.putObject(1, new byte[600]);
+    assertNotNull(cache.getObject(0));
+    assertNotNull(cache.getObject(1));
+    assertEquals(2, cache.getSize());
+    assertEquals(2048, cache.getAllocatedMemory());
+  }
+
+  @Test
+  void shouldNotCacheObjectsLargerThanAPage() {
+    OffHeapCache cache = new OffHeapCache("default");
+    cache.setPageSize(1024);
+    cache.putObject(0, new byte[2048]);
+    assertNull(cache.getObject(0));
+    assertEquals(0, cache.getSize());
+  }
+
+  @Test
+  void shouldReuseMemoryOfReplacedObjects() {
+    OffHeapCache cache = new OffHeapCache("default");
+    cache.setPageSize(1024);
+    cache.setMaximumMemory(1024);
+    for (int i = 0; i < 1000; i++) {
+      cache.putObject(0, i);
+      cache.putObject(1, i);
+    }
+    assertEquals(999, cache.getObject(0));
+    assertEquals(999, cache.getObject(1));
+  }
+
+  @Test
+  void shouldRemoveItemOnDemand() {
+    Cache cache = new OffHeapCache("default");
+    cache.putObject(0, 0);
+    assertNotNull(cache.getObject(0));
+    cache.removeObject(0);
+    assertNull(cache.getObject(0));
+  }
+
+  @Test
+  void shouldFlushAllItemsOnDemand() {
+    Cache cache = new OffHeapCache("default");
+    for (int i = 0; i < 5; i++) {
+      cache.putObject(i, i);
+    }
+    assertNotNull(cache.getObject(0));
+    assertNotNull(cache.getObject(4));
+    cache.clear();
+    assertNull(cache.getObject(0));
+    assertNull(cache.getObject(4));
+    assertEquals(0, cache.getSize());
+  }
+
+}
@@ -65,4 +65,69 @@ class ScheduledCacheTest {
     assertNull(cache.getObject(4));
   }
 
-}
\ No newline at end of file
+  @Test
+  void shouldExpireEachItemAfterItsTimeToLive() throws Exception {
+    ScheduledCache cache = new ScheduledCache(new PerpetualCache("DefaultCache"));
+    cache.setClearInterval(Long.MAX_VALUE);
+    cache.setTimeToLive(200);
+    cache.putObject(0, 0);
+    Thread.sleep(120);
+    cache.putObject(1, 1);
+    Thread.sleep(120);
+    assertNull(cache.getObject(0));
+    assertEquals(1, cache.getObject(1));
+    Thread.sleep(120);
+    assertNull(cache.getObject(1));
+    assertEquals(0, cache.getSize());
+  }
+
+  @Test
+  void shouldExpireEachItemAfterTheClearIntervalWithATimeToLive() throws Exception {
+    ScheduledCache cache = new ScheduledCache(new PerpetualCache("DefaultCache"));
+    cache.setClearInterval(200);
+    cache.setTimeToLive(60000);
+    cache.putObject(0, 0);
+    Thread.sleep(120);
+    cache.putObject(1, 1);
+    Thread.sleep(120);
+    assertNull(cache.getObject(0));
+    assertEquals(1, cache.getObject(1));
+  }
+
+  @Test
+  void shouldServeTheCurrentValueAndRequestOneRefresh() throws Exception {
+    ScheduledCache cache = new ScheduledCache(new PerpetualCache("DefaultCache"));
+    cache.setClearInterval(Long.MAX_VALUE);
+    cache.setTimeToLive(60000);
+    cache.setRefreshAhead(59900);
+    cache.putObject(0, 0);
+    assertEquals(0, cache.getObject(0));
+    assertFalse(RefreshAhead.takeRequest());
+    Thread.sleep(150);
+    assertEquals(0, cache.getObject(0));
+    assertTrue(RefreshAhead.takeRequest());
+    assertEquals(0, cache.getObject(0));
+    assertFalse(RefreshAhead.takeRequest());
+    RefreshAhead.putRefreshed(() -> cache.putObject(0, 1));
+    assertEquals(1, cache.getObject(0));
+    assertFalse(RefreshAhead.takeRequest());
+  }
+
+  @Test
+  void shouldDropTheRefreshedValueOfAClearedItem() throws Exception {
+    ScheduledCache cache = new ScheduledCache(new PerpetualCache("DefaultCache"));
+    cache.setClearInterval(60000);
+    cache.setRefreshAhead(60000);
+    cache.putObject(0, 0);
+    assertEquals(0, cache.getObject(0));
+    assertTrue(RefreshAhead.takeRequest());
+    cache.clear();
+    RefreshAhead.putRefreshed(() -> cache.putObject(0, 1));
+    assertNull(cache.getObject(0));
+    cache.putObject(0, 2);
+    RefreshAhead.putRefreshed(() -> cache.putObject(0, 3));
+    assertEquals(2, cache.getObject(0));
+    assertTrue(RefreshAhead.takeRequest());
+  }
+
+}
@@ -0,0 +1,67 @@
+/**
+ *    Copyright ${license.git.copyrightYears} the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Collections;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.ibatis.cache.decorators.BlockingCache;
+import org.apache.ibatis.cache.impl.PerpetualCache;
+import org.junit.jupiter.api.Test;
+
+class TableDependencyIndexTest {
+
+  @Test
+  void shouldInvalidateOnlyTheEntriesReadFromTheWrittenTables() {
+    TableDependencyIndex index = new TableDependencyIndex();
+    Cache cache = new PerpetualCache("default");
+    index.putObject(cache, "blog", "value", Collections.singleton("blog"));
+    index.putObject(cache, "author", "value", Collections.singleton("author"));
+    index.invalidate(Collections.singleton("blog"));
+    assertNull(cache.getObject("blog"));
+    assertEquals("value", cache.getObject("author"));
+  }
+
+  @Test
+  void shouldNotEndTheLoadOfAnInvalidatedEntry() throws Exception {
+    TableDependencyIndex index = new TableDependencyIndex();
+    Cache delegate = new PerpetualCache("default");
+    BlockingCache cache = new BlockingCache(delegate);
+    cache.setSingleFlight(true);
+    index.putObject(cache, "key", "old", Collections.singleton("blog"));
+    // e.g. evicted by the eviction policy, so that this thread loads it again
+    delegate.removeObject("key");
+    assertNull(cache.getObject("key"));
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      Future<Object> waiter = executor.submit(() -> cache.getObject("key"));
+      Thread.sleep(50);
+      index.invalidate(Collections.singleton("blog"));
+      Thread.sleep(50);
+      assertFalse(waiter.isDone());
+      cache.putObject("key", "new");
+      assertEquals("new", waiter.get(5, TimeUnit.SECONDS));
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+}
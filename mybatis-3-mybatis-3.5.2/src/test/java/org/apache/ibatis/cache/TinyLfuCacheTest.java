@@ -0,0 +1,158 @@
+/**
+ *    Copyright ${license.git.copyrightYears} the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Function;
+
+import org.apache.ibatis.cache.decorators.FifoCache;
+import org.apache.ibatis.cache.decorators.LruCache;
+import org.apache.ibatis.cache.decorators.TinyLfuCache;
+import org.apache.ibatis.cache.impl.ConcurrentPerpetualCache;
+import org.apache.ibatis.cache.impl.PerpetualCache;
+import org.junit.jupiter.api.Test;
+
+class TinyLfuCacheTest {
+
+  @Test
+  void shouldKeepSizeBounded() {
+    TinyLfuCache cache = new TinyLfuCache(new PerpetualCache("default"));
+    cache.setSize(5);
+    for (int i = 0; i < 100; i++) {
+      cache.putObject(i, i);
+    }
+    assertEquals(5, cache.getSize());
+  }
+
+  @Test
+  void shouldKeepFrequentlyUsedItemsWhenScanned() {
+    TinyLfuCache cache = new TinyLfuCache(new PerpetualCache("default"));
+    cache.setSize(100);
+    for (int i = 0; i < 50; i++) {
+      cache.putObject(i, i);
+      for (int j = 0; j < 5; j++) {
+        cache.getObject(i);
+      }
+    }
+    for (int i = 1000; i < 2000; i++) {
+      cache.putObject(i, i);
+    }
+    for (int i = 0; i < 50; i++) {
+      assertEquals(i, cache.getObject(i));
+    }
+  }
+
+  @Test
+  void shouldRemoveItemOnDemand() {
+    TinyLfuCache cache = new TinyLfuCache(new PerpetualCache("default"));
+    cache.putObject(0, 0);
+    assertNotNull(cache.getObject(0));
+    cache.removeObject(0);
+    assertNull(cache.getObject(0));
+  }
+
+  @Test
+  void shouldFlushAllItemsOnDemand() {
+    TinyLfuCache cache = new TinyLfuCache(new PerpetualCache("default"));
+    for (int i = 0; i < 5; i++) {
+      cache.putObject(i, i);
+    }
+    assertNotNull(cache.getObject(0));
+    assertNotNull(cache.getObject(4));
+    cache.clear();
+    assertNull(cache.getObject(0));
+    assertNull(cache.getObject(4));
+  }
+
+  @Test
+  void shouldHaveBetterHitRatioThanLruAndFifoOnSkewedTraceWithScans() {
+    long[] trace = skewedTraceWithScans(200000, new Random(42));
+    double tinyLfu = hitRatio(TinyLfuCache::new, 500, trace);
+    double lru = hitRatio(LruCache::new, 500, trace);
+    double fifo = hitRatio(FifoCache::new, 500, trace);
+    assertTrue(tinyLfu > lru, "TinyLFU " + tinyLfu + " LRU " + lru);
+    assertTrue(tinyLfu > fifo, "TinyLFU " + tinyLfu + " FIFO " + fifo);
+  }
+
+  /**
+   * Replays a recorded trace, one key per line, given by the <code>cache.trace</code> system property
+   * and prints the hit ratios of the eviction policies.
+   */
+  @Test
+  void compareHitRatiosOnRecordedTrace() throws IOException {
+    String path = System.getProperty("cache.trace");
+    assumeTrue(path != null, "no recorded trace given");
+    List<String> lines = Files.readAllLines(Paths.get(path));
+    long[] trace = lines.stream().filter(line -> !line.trim().isEmpty()).mapToLong(line -> line.trim().hashCode()).toArray();
+    int size = Integer.getInteger("cache.size", 1024);
+    System.out.println("TinyLFU: " + hitRatio(TinyLfuCache::new, size, trace));
+    System.out.println("LRU:     " + hitRatio(LruCache::new, size, trace));
+    System.out.println("FIFO:    " + hitRatio(FifoCache::new, size, trace));
+  }
+
+  private static double hitRatio(Function<Cache, Cache> eviction, int size, long[] trace) {
+    Cache cache = eviction.apply(new ConcurrentPerpetualCache("default"));
+    try {
+      cache.getClass().getMethod("setSize", int.class).invoke(cache, size);
+    } catch (ReflectiveOperationException e) {
+      throw new IllegalStateException(e);
+    }
+    int hits = 0;
+    for (long key : trace) {
+      if (cache.getObject(key) != null) {
+        hits++;
+      } else {
+        cache.putObject(key, key);
+      }
+    }
+    return (double) hits / trace.length;
+  }
+
+  /**
+   * Zipf distributed lookups over 10000 keys, interrupted by scans of keys that are read only once.
+   */
+  private static long[] skewedTraceWithScans(int length, Random random) {
+    int keys = 10000;
+    double[] cumulative = new double[keys];
+    double sum = 0;
+    for (int i = 0; i < keys; i++) {
+      sum += 1 / Math.pow(i + 1, 0.9);
+      cumulative[i] = sum;
+    }
+    List<Long> trace = new ArrayList<>(length);
+    long scanKey = keys;
+    while (trace.size() < length) {
+      for (int i = 0; i < 5000; i++) {
+        int index = Arrays.binarySearch(cumulative, random.nextDouble() * sum);
+        trace.add((long) (index < 0 ? -index - 1 : index));
+      }
+      for (int i = 0; i < 1000; i++) {
+        trace.add(scanKey++);
+      }
+    }
+    return trace.stream().mapToLong(Long::longValue).toArray();
+  }
+
+}
@@ -0,0 +1,132 @@
+/**
+ *    Copyright ${license.git.copyrightYears} the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.ibatis.cache.decorators.SerializedCache;
+import org.apache.ibatis.cache.decorators.WeightedCache;
+import org.apache.ibatis.cache.impl.PerpetualCache;
+import org.apache.ibatis.domain.blog.Author;
+import org.apache.ibatis.mapping.CacheBuilder;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+class WeightedCacheTest {
+
+  @Test
+  void shouldEvictLeastRecentlyUsedItemsBeyondMaximumWeight() {
+    WeightedCache cache = new WeightedCache(new PerpetualCache("default"));
+    cache.setWeigher((key, value) -> (Integer) value);
+    cache.setMaximumWeight(100);
+    cache.putObject(0, 40);
+    cache.putObject(1, 40);
+    cache.getObject(0);
+    cache.putObject(2, 40);
+    assertNotNull(cache.getObject(0));
+    assertNull(cache.getObject(1));
+    assertNotNull(cache.getObject(2));
+    assertEquals(80, cache.getWeight());
+  }
+
+  @Test
+  void shouldWeighListsByTheirElements() {
+    WeightedCache cache = new WeightedCache(new PerpetualCache("default"));
+    cache.putObject(0, Collections.singletonList(new Author(1, "jim", "******", "jim@ibatis.apache.org", "", null)));
+    long single = cache.getWeight();
+    cache.clear();
+    assertEquals(0, cache.getWeight());
+    cache.putObject(0, authors(100));
+    assertTrue(cache.getWeight() > 50 * single, cache.getWeight() + " vs " + single);
+  }
+
+  @Test
+  void shouldWeighSerializedValuesByTheirLength() {
+    WeightedCache weighted = new WeightedCache(new PerpetualCache("default"));
+    Cache cache = new SerializedCache(weighted);
+    cache.putObject(0, authors(100));
+    long weight = weighted.getWeight();
+    weighted.setMaximumWeight(weight * 3 / 2);
+    cache.putObject(1, authors(100));
+    assertNull(cache.getObject(0));
+    assertNotNull(cache.getObject(1));
+  }
+
+  @Test
+  void shouldEvictWhenSharedBudgetIsExceeded() {
+    WeightBudget budget = new WeightBudget();
+    Cache first = new CacheBuilder("first").addDecorator(WeightedCache.class).weightBudget(budget).build();
+    Cache second = new CacheBuilder("second").addDecorator(WeightedCache.class).weightBudget(budget).build();
+    first.putObject(0, "x");
+    second.putObject(0, "y");
+    long entryWeight = budget.getWeight() / 2;
+    budget.setMaximumWeight(entryWeight * 3);
+    first.putObject(1, "x");
+    second.putObject(1, "y");
+    assertTrue(budget.getWeight() <= budget.getMaximumWeight());
+    // the first cache was the heaviest one when the second grew the budget
+    assertNull(first.getObject(0));
+    assertNotNull(first.getObject(1));
+    assertNotNull(second.getObject(0));
+    assertNotNull(second.getObject(1));
+    first.clear();
+    second.clear();
+    assertEquals(0, budget.getWeight());
+  }
+
+  @Test
+  void shouldEvictFromTheHeaviestCacheOfTheBudget() {
+    WeightBudget budget = new WeightBudget();
+    WeightedCache large = new WeightedCache(new PerpetualCache("large"));
+    WeightedCache small = new WeightedCache(new PerpetualCache("small"));
+    large.setWeightBudget(budget);
+    small.setWeightBudget(budget);
+    for (int i = 0; i < 10; i++) {
+      large.putObject(i, "x");
+    }
+    long entryWeight = large.getWeight() / 10;
+    budget.setMaximumWeight(entryWeight * 10);
+    small.putObject(0, "y");
+    small.putObject(1, "y");
+    assertEquals(2, small.getSize());
+    assertEquals(8, large.getSize());
+    assertNull(large.getObject(0));
+    assertNull(large.getObject(1));
+    assertNotNull(large.getObject(2));
+    assertEquals(budget.getMaximumWeight(), budget.getWeight());
+  }
+
+  @Test
+  void shouldRemoveItemOnDemand() {
+    WeightedCache cache = new WeightedCache(new PerpetualCache("default"));
+    cache.putObject(0, 0);
+    assertNotNull(cache.getObject(0));
+    cache.removeObject(0);
+    assertNull(cache.getObject(0));
+    assertEquals(0, cache.getWeight());
+  }
+
+  private static List<Author> authors(int count) {
+    List<Author> authors = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      authors.add(new Author(i, "author" + i, "******", "author" + i + "@ibatis.apache.org", "bio " + i, null));
+    }
+    return authors;
+  }
+
+}
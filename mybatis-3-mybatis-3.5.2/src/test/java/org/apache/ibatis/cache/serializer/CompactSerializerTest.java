@@ -0,0 +1,172 @@
+/**
+ *    Copyright ${license.git.copyrightYears} the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache.serializer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.cache.CacheException;
+import org.apache.ibatis.cache.Serializer;
+import org.apache.ibatis.cache.decorators.SerializedCache;
+import org.apache.ibatis.cache.impl.PerpetualCache;
+import org.apache.ibatis.domain.blog.Author;
+import org.apache.ibatis.domain.blog.ImmutableAuthor;
+import org.apache.ibatis.domain.blog.Section;
+import org.apache.ibatis.mapping.CacheBuilder;
+import org.junit.jupiter.api.Test;
+
+class CompactSerializerTest {
+
+  private final CompactSerializer serializer = new CompactSerializer();
+
+  @Test
+  void shouldCopyCommonValues() {
+    Timestamp timestamp = new Timestamp(1000000L);
+    timestamp.setNanos(123456789);
+    List<Object> values = Arrays.asList("text", 1, 2L, (short) 3, (byte) 4, 5.0, 6.0f, true, 'c',
+        new BigDecimal("123.456"), new java.util.Date(1000L), new java.sql.Date(2000L), timestamp,
+        Section.NEWS, LocalDate.of(2019, 7, 15), null);
+    for (Object value : values) {
+      assertEquals(value, copy(value));
+    }
+    assertArrayEquals(new byte[] {1, 2, 3}, (byte[]) copy(new byte[] {1, 2, 3}));
+    assertArrayEquals(new int[] {1, 2, 3}, (int[]) copy(new int[] {1, 2, 3}));
+    assertArrayEquals(new String[] {"a", null}, (String[]) copy(new String[] {"a", null}));
+  }
+
+  @Test
+  void shouldCopyBeansAndCollections() {
+    List<Author> authors = new ArrayList<>();
+    for (int i = 0; i < 10; i++) {
+      authors.add(new Author(i, "author" + i, "******", "author" + i + "@ibatis.apache.org", "bio", Section.VIDEOS));
+    }
+    Map<String, Object> map = new HashMap<>();
+    map.put("authors", authors);
+    map.put("ids", new LinkedHashSet<>(Arrays.asList(3, 1, 2)));
+    @SuppressWarnings("unchecked")
+    Map<String, Object> copy = (Map<String, Object>) copy(map);
+    assertEquals(map, copy);
+    assertNotSame(authors.get(0), ((List<?>) copy.get("authors")).get(0));
+    assertEquals(Arrays.asList(3, 1, 2), new ArrayList<>((LinkedHashSet<?>) copy.get("ids")));
+  }
+
+  @Test
+  void shouldPreserveSharedAndCyclicReferences() {
+    Node parent = new Node();
+    parent.name = "parent";
+    Node child = new Node();
+    child.name = "child";
+    child.parent = parent;
+    parent.children.add(child);
+    parent.children.add(child);
+    parent.cached = "not copied";
+    Node copy = (Node) copy(parent);
+    assertEquals("parent", copy.name);
+    assertEquals(2, copy.children.size());
+    assertSame(copy.children.get(0), copy.children.get(1));
+    assertSame(copy, copy.children.get(0).parent);
+    assertNotEquals("not copied", copy.cached);
+  }
+
+  @Test
+  void shouldFallBackToJavaSerialization() {
+    ImmutableAuthor author = new ImmutableAuthor(1, "jim", "******", "jim@ibatis.apache.org", "bio", Section.NEWS);
+    ImmutableAuthor copy = (ImmutableAuthor) copy(author);
+    assertEquals(author.getUsername(), copy.getUsername());
+    assertEquals(Collections.singletonList("a"), copy(Collections.singletonList("a")));
+  }
+
+  @Test
+  void shouldRejectNonSerializableBeans() {
+    assertThrows(CacheException.class, () -> serializer.serialize(Collections.singletonList(new Object[] {new NotSerializable()})));
+  }
+
+  @Test
+  void shouldBeSmallerThanJavaSerialization() {
+    List<Author> authors = new ArrayList<>();
+    for (int i = 0; i < 100; i++) {
+      authors.add(new Author(i, "author" + i, "******", "author" + i + "@ibatis.apache.org", "bio", Section.VIDEOS));
+    }
+    int compact = serializer.serialize(authors).length;
+    int jdk = new JdkSerializer().serialize(authors).length;
+    assertTrue(compact < jdk, compact + " vs " + jdk);
+  }
+
+  @Test
+  void shouldBeConfiguredAsSerializedCacheProperty() {
+    java.util.Properties properties = new java.util.Properties();
+    properties.setProperty("serializerType", CompactSerializer.class.getName());
+    Cache cache = new CacheBuilder("test").readWrite(true).properties(properties).build();
+    Author author = new Author(1, "jim", "******", "jim@ibatis.apache.org", "bio", Section.NEWS);
+    cache.putObject(0, author);
+    assertEquals(author, cache.getObject(0));
+    assertNotSame(author, cache.getObject(0));
+
+    SerializedCache serializedCache = new SerializedCache(new PerpetualCache("test"));
+    serializedCache.setSerializer(serializer);
+    serializedCache.putObject(0, author);
+    assertEquals(author, serializedCache.getObject(0));
+  }
+
+  @Test
+  void shouldLeaveTheSerializableCheckToTheSerializer() {
+    SerializedCache serializedCache = new SerializedCache(new PerpetualCache("test"));
+    assertThrows(CacheException.class, () -> serializedCache.putObject(0, new NotSerializable()));
+
+    serializedCache.setSerializer(new Serializer() {
+      @Override
+      public byte[] serialize(Object value) {
+        return new byte[0];
+      }
+
+      @Override
+      public Object deserialize(byte[] bytes) {
+        return new NotSerializable();
+      }
+    });
+    serializedCache.putObject(0, new NotSerializable());
+    assertTrue(serializedCache.getObject(0) instanceof NotSerializable);
+  }
+
+  private Object copy(Object value) {
+    return serializer.deserialize(serializer.serialize(value));
+  }
+
+  public static class Node implements Serializable {
+    private static final long serialVersionUID = 1L;
+    private String name;
+    private Node parent;
+    private List<Node> children = new ArrayList<>();
+    private transient Object cached = new Object();
+  }
+
+  public static class NotSerializable {
+    private String name;
+  }
+
+}
@@ -0,0 +1,142 @@
+/**
+ *    Copyright ${license.git.copyrightYears} the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache.serializer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.lang.reflect.Field;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.cache.decorators.CopyingCache;
+import org.apache.ibatis.cache.decorators.SerializedCache;
+import org.apache.ibatis.domain.blog.Author;
+import org.apache.ibatis.domain.blog.ImmutableAuthor;
+import org.apache.ibatis.domain.blog.Section;
+import org.apache.ibatis.mapping.CacheBuilder;
+import org.junit.jupiter.api.Test;
+
+class DeepCopierTest {
+
+  private final DeepCopier copier = new DeepCopier();
+
+  @Test
+  void shouldShareImmutableValuesAndCopyMutableOnes() {
+    BigDecimal decimal = new BigDecimal("1.5");
+    LocalDate date = LocalDate.of(2019, 7, 15);
+    assertSame(decimal, copier.copy(decimal));
+    assertSame(date, copier.copy(date));
+    assertSame(Section.NEWS, copier.copy(Section.NEWS));
+    Timestamp timestamp = new Timestamp(1000L);
+    timestamp.setNanos(5);
+    Object copy = copier.copy(timestamp);
+    assertEquals(timestamp, copy);
+    assertNotSame(timestamp, copy);
+    int[] numbers = {1, 2, 3};
+    assertArrayEquals(numbers, (int[]) copier.copy(numbers));
+    assertNotSame(numbers, copier.copy(numbers));
+  }
+
+  @Test
+  void shouldCopyBeansAndCollections() {
+    List<Author> authors = new ArrayList<>();
+    for (int i = 0; i < 10; i++) {
+      authors.add(new Author(i, "author" + i, "******", "author" + i + "@ibatis.apache.org", "bio", Section.VIDEOS));
+    }
+    Map<String, Object> map = new HashMap<>();
+    map.put("authors", authors);
+    @SuppressWarnings("unchecked")
+    Map<String, Object> copy = (Map<String, Object>) copier.copy(map);
+    assertEquals(map, copy);
+    List<?> copiedAuthors = (List<?>) copy.get("authors");
+    assertNotSame(authors, copiedAuthors);
+    assertNotSame(authors.get(0), copiedAuthors.get(0));
+  }
+
+  @Test
+  void shouldCopyObjectsThatAreNotSerializable() {
+    Node parent = new Node();
+    parent.name = "parent";
+    Node child = new Node();
+    child.parent = parent;
+    parent.children.add(child);
+    parent.children.add(child);
+    Node copy = (Node) copier.copy(parent);
+    assertNotSame(parent, copy);
+    assertEquals("parent", copy.name);
+    assertSame(copy.children.get(0), copy.children.get(1));
+    assertSame(copy, copy.children.get(0).parent);
+  }
+
+  @Test
+  void shouldFallBackToJavaSerialization() {
+    ImmutableAuthor author = new ImmutableAuthor(1, "jim", "******", "jim@ibatis.apache.org", "bio", Section.NEWS);
+    ImmutableAuthor copy = (ImmutableAuthor) copier.copy(author);
+    assertNotSame(author, copy);
+    assertEquals(author.getUsername(), copy.getUsername());
+    assertEquals(Collections.singletonList("a"), copier.copy(Collections.singletonList("a")));
+  }
+
+  @Test
+  void shouldBeUsedByReadWriteCacheWhenDeepCopyIsEnabled() throws Exception {
+    Properties properties = new Properties();
+    properties.setProperty("deepCopy", "true");
+    Cache cache = new CacheBuilder("test").readWrite(true).properties(properties).build();
+    Node node = new Node();
+    node.name = "node";
+    cache.putObject(0, node);
+    node.name = "changed";
+    Node copy = (Node) cache.getObject(0);
+    assertEquals("node", copy.name);
+    copy.name = "changed";
+    assertEquals("node", ((Node) cache.getObject(0)).name);
+    assertTrue(hasDecorator(cache, CopyingCache.class));
+    assertFalse(hasDecorator(cache, SerializedCache.class));
+  }
+
+  private static boolean hasDecorator(Cache cache, Class<?> type) throws ReflectiveOperationException {
+    Object current = cache;
+    while (current != null) {
+      if (type.isInstance(current)) {
+        return true;
+      }
+      Field field;
+      try {
+        field = current.getClass().getDeclaredField("delegate");
+      } catch (NoSuchFieldException e) {
+        return false;
+      }
+      field.setAccessible(true);
+      current = field.get(current);
+    }
+    return false;
+  }
+
+  public static class Node {
+    private String name;
+    private Node parent;
+    private List<Node> children = new ArrayList<>();
+  }
+
+}
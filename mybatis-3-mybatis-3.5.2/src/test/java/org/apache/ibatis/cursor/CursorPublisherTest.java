@@ -0,0 +1,215 @@
+/**
+ *    Copyright ${license.git.copyrightYears} the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cursor;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+class CursorPublisherTest {
+
+  @Test
+  void shouldEmitOnlyTheRequestedItems() {
+    ListCursor<Integer> cursor = new ListCursor<>(Arrays.asList(1, 2, 3, 4, 5));
+    RecordingSubscriber<Integer> subscriber = new RecordingSubscriber<>();
+    new CursorPublisher<>(() -> cursor, Runnable::run).subscribe(subscriber);
+    assertEquals(0, cursor.opened.get());
+
+    subscriber.subscription.request(2);
+    assertEquals(Arrays.asList(1, 2), subscriber.items);
+    assertEquals(2, cursor.fetched.get());
+    assertFalse(subscriber.completed);
+
+    subscriber.subscription.request(3);
+    assertEquals(Arrays.asList(1, 2, 3, 4, 5), subscriber.items);
+    assertFalse(subscriber.completed);
+
+    subscriber.subscription.request(1);
+    assertTrue(subscriber.completed);
+    assertTrue(cursor.closed);
+    assertEquals(1, cursor.opened.get());
+  }
+
+  @Test
+  void shouldCompleteWithAnUnboundedDemand() {
+    ListCursor<Integer> cursor = new ListCursor<>(Arrays.asList(1, 2, 3));
+    RecordingSubscriber<Integer> subscriber = new RecordingSubscriber<>();
+    new CursorPublisher<>(() -> cursor, Runnable::run).subscribe(subscriber);
+    subscriber.subscription.request(1);
+    subscriber.subscription.request(Long.MAX_VALUE);
+    assertEquals(Arrays.asList(1, 2, 3), subscriber.items);
+    assertTrue(subscriber.completed);
+    assertTrue(cursor.closed);
+  }
+
+  @Test
+  void shouldCloseTheCursorWhenCancelled() {
+    ListCursor<Integer> cursor = new ListCursor<>(Arrays.asList(1, 2, 3));
+    RecordingSubscriber<Integer> subscriber = new RecordingSubscriber<>();
+    new CursorPublisher<>(() -> cursor, Runnable::run).subscribe(subscriber);
+    subscriber.subscription.request(1);
+    subscriber.subscription.cancel();
+    subscriber.subscription.request(5);
+    assertEquals(Arrays.asList(1), subscriber.items);
+    assertTrue(cursor.closed);
+    assertFalse(subscriber.completed);
+    assertNull(subscriber.error);
+  }
+
+  @Test
+  void shouldSignalFetchErrors() {
+    ListCursor<Integer> cursor = new ListCursor<>(Arrays.asList(1, null, 3));
+    RecordingSubscriber<Integer> subscriber = new RecordingSubscriber<>();
+    new CursorPublisher<>(() -> cursor, Runnable::run).subscribe(subscriber);
+    subscriber.subscription.request(5);
+    assertEquals(Arrays.asList(1), subscriber.items);
+    assertTrue(subscriber.error instanceof IllegalStateException);
+    assertTrue(cursor.closed);
+    assertFalse(subscriber.completed);
+  }
+
+  @Test
+  void shouldSignalInvalidRequests() {
+    ListCursor<Integer> cursor = new ListCursor<>(Arrays.asList(1, 2));
+    RecordingSubscriber<Integer> subscriber = new RecordingSubscriber<>();
+    new CursorPublisher<>(() -> cursor, Runnable::run).subscribe(subscriber);
+    subscriber.subscription.request(1);
+    subscriber.subscription.request(0);
+    assertEquals(Arrays.asList(1), subscriber.items);
+    assertTrue(subscriber.error instanceof IllegalArgumentException);
+    assertTrue(cursor.closed);
+  }
+
+  @Test
+  void shouldRunOnTheDefaultExecutor() throws Exception {
+    List<String> threads = new ArrayList<>();
+    CountDownLatch completed = new CountDownLatch(1);
+    RecordingSubscriber<Integer> subscriber = new RecordingSubscriber<Integer>() {
+      @Override
+      public void onNext(Integer item) {
+        threads.add(Thread.currentThread().getName());
+        super.onNext(item);
+      }
+
+      @Override
+      public void onComplete() {
+        super.onComplete();
+        completed.countDown();
+      }
+    };
+    new CursorPublisher<>(() -> new ListCursor<>(Arrays.asList(1, 2)), null).subscribe(subscriber);
+    subscriber.subscription.request(Long.MAX_VALUE);
+    assertTrue(completed.await(10, TimeUnit.SECONDS));
+    assertEquals(Arrays.asList(1, 2), subscriber.items);
+    assertTrue(threads.get(0).startsWith("mybatis-cursor-publisher-"));
+  }
+
+  @Test
+  void shouldRejectNullSubscribers() {
+    CursorPublisher<Integer> publisher = new CursorPublisher<>(() -> new ListCursor<>(Arrays.asList(1)), Runnable::run);
+    assertThrows(NullPointerException.class, () -> publisher.subscribe(null));
+  }
+
+  private static class RecordingSubscriber<T> implements CursorPublisher.Subscriber<T> {
+    private final List<T> items = new ArrayList<>();
+    private CursorPublisher.Subscription subscription;
+    private volatile Throwable error;
+    private volatile boolean completed;
+
+    @Override
+    public void onSubscribe(CursorPublisher.Subscription subscription) {
+      this.subscription = subscription;
+    }
+
+    @Override
+    public void onNext(T item) {
+      items.add(item);
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+      error = throwable;
+    }
+
+    @Override
+    public void onComplete() {
+      completed = true;
+    }
+  }
+
+  /**
+   * A cursor over a list, where a null item stands for a fetch error.
+   */
+  private static class ListCursor<T> implements Cursor<T> {
+    private final List<T> items;
+    private final AtomicInteger opened = new AtomicInteger();
+    private final AtomicInteger fetched = new AtomicInteger();
+    private volatile boolean closed;
+
+    ListCursor(List<T> items) {
+      this.items = items;
+    }
+
+    @Override
+    public boolean isOpen() {
+      return opened.get() > 0 && !closed;
+    }
+
+    @Override
+    public boolean isConsumed() {
+      return fetched.get() == items.size();
+    }
+
+    @Override
+    public int getCurrentIndex() {
+      return fetched.get() - 1;
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+      opened.incrementAndGet();
+      return new Iterator<T>() {
+        @Override
+        public boolean hasNext() {
+          return !closed && fetched.get() < items.size();
+        }
+
+        @Override
+        public T next() {
+          T item = items.get(fetched.getAndIncrement());
+          if (item == null) {
+            throw new IllegalStateException("fetch failed");
+          }
+          return item;
+        }
+      };
+    }
+
+    @Override
+    public void close() {
+      closed = true;
+    }
+  }
+
+}
@@ -0,0 +1,188 @@
+/**
+ *    Copyright ${license.git.copyrightYears} the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cursor.defaults;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.ibatis.cursor.Cursor;
+import org.junit.jupiter.api.Test;
+
+class PrefetchingCursorTest {
+
+  @Test
+  void shouldReturnAllItemsInOrder() throws Exception {
+    ListCursor<Integer> delegate = new ListCursor<>(Arrays.asList(1, 2, 3, 4, 5), -1);
+    try (PrefetchingCursor<Integer> cursor = new PrefetchingCursor<>(delegate, 2)) {
+      assertFalse(cursor.isOpen());
+      assertEquals(-1, cursor.getCurrentIndex());
+      List<Integer> items = new ArrayList<>();
+      for (Integer item : cursor) {
+        items.add(item);
+        assertEquals(items.size() - 1, cursor.getCurrentIndex());
+      }
+      assertEquals(Arrays.asList(1, 2, 3, 4, 5), items);
+      assertTrue(cursor.isConsumed());
+      assertFalse(cursor.isOpen());
+    }
+    assertTrue(delegate.closed.get());
+  }
+
+  @Test
+  void shouldStopFetchingWhenClosed() throws Exception {
+    List<Integer> values = new ArrayList<>();
+    for (int i = 0; i < 1000; i++) {
+      values.add(i);
+    }
+    ListCursor<Integer> delegate = new ListCursor<>(values, -1);
+    PrefetchingCursor<Integer> cursor = new PrefetchingCursor<>(delegate, 3);
+    Iterator<Integer> iterator = cursor.iterator();
+    assertEquals(0, iterator.next());
+    assertTrue(cursor.isOpen());
+    cursor.close();
+    // no more than the items buffered ahead of the consumer are fetched
+    assertTrue(delegate.fetched.get() <= 6, "fetched " + delegate.fetched.get());
+    assertTrue(delegate.closed.get());
+    assertFalse(iterator.hasNext());
+    assertFalse(cursor.isOpen());
+  }
+
+  @Test
+  void shouldFetchOnTheConsumerThreadOnceStopped() throws Exception {
+    List<Integer> values = new ArrayList<>();
+    for (int i = 0; i < 100; i++) {
+      values.add(i);
+    }
+    ListCursor<Integer> delegate = new ListCursor<>(values, -1);
+    try (PrefetchingCursor<Integer> cursor = new PrefetchingCursor<>(delegate, 3)) {
+      Iterator<Integer> iterator = cursor.iterator();
+      List<Integer> items = new ArrayList<>();
+      for (int i = 0; i < 5; i++) {
+        items.add(iterator.next());
+      }
+      cursor.stopPrefetching();
+      int fetched = delegate.fetched.get();
+      Thread.sleep(50);
+      // the background thread is stopped
+      assertEquals(fetched, delegate.fetched.get());
+      while (iterator.hasNext()) {
+        items.add(iterator.next());
+      }
+      assertEquals(values, items);
+      assertTrue(cursor.isConsumed());
+    }
+  }
+
+  @Test
+  void shouldRethrowFetchErrorsAfterThePreviousItems() throws Exception {
+    ListCursor<Integer> delegate = new ListCursor<>(Arrays.asList(1, 2, null), -1);
+    try (PrefetchingCursor<Integer> cursor = new PrefetchingCursor<>(delegate, 5)) {
+      Iterator<Integer> iterator = cursor.iterator();
+      assertEquals(1, iterator.next());
+      assertEquals(2, iterator.next());
+      IllegalStateException e = assertThrows(IllegalStateException.class, iterator::hasNext);
+      assertEquals("fetch failed", e.getMessage());
+      assertFalse(iterator.hasNext());
+    }
+    assertTrue(delegate.closed.get());
+  }
+
+  @Test
+  void shouldCountFromTheDelegateIndex() throws Exception {
+    ListCursor<Integer> delegate = new ListCursor<>(Arrays.asList(1, 2), 9);
+    try (PrefetchingCursor<Integer> cursor = new PrefetchingCursor<>(delegate, 1)) {
+      assertEquals(9, cursor.getCurrentIndex());
+      cursor.iterator().next();
+      assertEquals(10, cursor.getCurrentIndex());
+    }
+  }
+
+  @Test
+  void shouldFetchInBatches() throws Exception {
+    try (PrefetchingCursor<Integer> cursor = new PrefetchingCursor<>(new ListCursor<>(Arrays.asList(1, 2, 3, 4, 5), -1), 2)) {
+      List<List<Integer>> batches = new ArrayList<>();
+      cursor.forEachBatch(2, batch -> batches.add(new ArrayList<>(batch)));
+      assertEquals(Arrays.asList(Arrays.asList(1, 2), Arrays.asList(3, 4), Arrays.asList(5)), batches);
+      assertTrue(cursor.isConsumed());
+    }
+  }
+
+  @Test
+  void shouldRejectInvalidPrefetchSize() {
+    assertThrows(IllegalArgumentException.class, () -> new PrefetchingCursor<>(new ListCursor<>(new ArrayList<>(), -1), 0));
+  }
+
+  /**
+   * A cursor over a list, where a null item stands for a fetch error.
+   */
+  private static class ListCursor<T> implements Cursor<T> {
+    private final List<T> items;
+    private final int initialIndex;
+    private final AtomicInteger fetched = new AtomicInteger();
+    private final AtomicBoolean closed = new AtomicBoolean();
+
+    ListCursor(List<T> items, int initialIndex) {
+      this.items = items;
+      this.initialIndex = initialIndex;
+    }
+
+    @Override
+    public boolean isOpen() {
+      return fetched.get() > 0 && !closed.get();
+    }
+
+    @Override
+    public boolean isConsumed() {
+      return fetched.get() == items.size();
+    }
+
+    @Override
+    public int getCurrentIndex() {
+      return initialIndex;
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+      return new Iterator<T>() {
+        @Override
+        public boolean hasNext() {
+          return !closed.get() && fetched.get() < items.size();
+        }
+
+        @Override
+        public T next() {
+          T item = items.get(fetched.getAndIncrement());
+          if (item == null) {
+            throw new IllegalStateException("fetch failed");
+          }
+          return item;
+        }
+      };
+    }
+
+    @Override
+    public void close() {
+      closed.set(true);
+    }
+  }
+
+}
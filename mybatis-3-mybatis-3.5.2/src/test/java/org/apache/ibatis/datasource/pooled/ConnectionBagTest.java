@@ -0,0 +1,66 @@
+/**
+ *    Copyright ${license.git.copyrightYears} the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.datasource.pooled;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+import java.sql.Connection;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+class ConnectionBagTest {
+
+  @Test
+  void shouldHandOverAConnectionReturnedWhileWaiting() throws Exception {
+    PooledDataSource dataSource = new PooledDataSource();
+    ConnectionBag bag = new ConnectionBag();
+    assertTrue(bag.reserve(1));
+    PooledConnection conn = new PooledConnection(mock(Connection.class), dataSource);
+    bag.activate(conn);
+
+    CompletableFuture<PooledConnection> waiter = CompletableFuture.supplyAsync(() -> {
+      try {
+        return bag.await(10000, 1);
+      } catch (InterruptedException e) {
+        throw new IllegalStateException(e);
+      }
+    });
+    while (!bag.hasWaiters()) {
+      Thread.sleep(1);
+    }
+    assertTrue(bag.deactivate(conn));
+    PooledConnection returned = new PooledConnection(conn.getRealConnection(), dataSource);
+    // returns right away whether or not the waiter is polling yet
+    bag.requite(returned);
+    assertSame(returned, waiter.get(1, TimeUnit.SECONDS));
+    assertEquals(0, bag.getIdleCount());
+    assertEquals(1, bag.getActiveCount());
+  }
+
+  @Test
+  void shouldGiveUpWaitingAfterTheTimeToWait() throws Exception {
+    ConnectionBag bag = new ConnectionBag();
+    assertTrue(bag.reserve(1));
+    long start = System.nanoTime();
+    assertNull(bag.await(50, 1));
+    assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(50));
+    assertFalse(bag.hasWaiters());
+  }
+
+}
@@ -0,0 +1,128 @@
+/**
+ *    Copyright ${license.git.copyrightYears} the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.datasource.pooled;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.sql.Connection;
+import java.sql.Driver;
+import java.sql.DriverManager;
+import java.sql.DriverPropertyInfo;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+import org.junit.jupiter.api.Test;
+
+class PoolMaintenanceTest {
+
+  @Test
+  void shouldCountConnectionsBeingCreatedAgainstTheMaximum() throws Exception {
+    PooledDataSource ds = new PooledDataSource(BlockingDriver.class.getName(), "jdbc:blocking:hsqldb:mem:maintenance", "sa", "");
+    ds.setPoolMaximumActiveConnections(1);
+    ds.setPoolMinimumIdle(1);
+    ds.setPoolTimeToWait(50);
+    BlockingDriver.connects.set(0);
+    BlockingDriver.entered = new CountDownLatch(1);
+    BlockingDriver.release = new CountDownLatch(1);
+    try {
+      CompletableFuture<Void> maintenance = CompletableFuture.runAsync(ds::maintain);
+      assertTrue(BlockingDriver.entered.await(10, TimeUnit.SECONDS));
+
+      // the only slot is taken by the connection the maintenance is creating, so this waits for it
+      CompletableFuture<Connection> checkout = CompletableFuture.supplyAsync(() -> {
+        try {
+          return ds.getConnection();
+        } catch (SQLException e) {
+          throw new IllegalStateException(e);
+        }
+      });
+      Thread.sleep(200);
+      assertFalse(checkout.isDone());
+      assertEquals(1, BlockingDriver.connects.get());
+
+      BlockingDriver.release.countDown();
+      maintenance.get(10, TimeUnit.SECONDS);
+      checkout.get(10, TimeUnit.SECONDS).close();
+      assertEquals(1, BlockingDriver.connects.get());
+      assertEquals(1, ds.getPoolState().getIdleConnectionCount());
+    } finally {
+      BlockingDriver.release.countDown();
+      ds.forceCloseAll();
+    }
+  }
+
+  /**
+   * Opens HSQLDB connections, the first one only once it is released.
+   */
+  public static class BlockingDriver implements Driver {
+    static final AtomicInteger connects = new AtomicInteger();
+    static volatile CountDownLatch entered;
+    static volatile CountDownLatch release;
+
+    @Override
+    public Connection connect(String url, Properties info) throws SQLException {
+      if (!acceptsURL(url)) {
+        return null;
+      }
+      if (connects.incrementAndGet() == 1) {
+        entered.countDown();
+        try {
+          release.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      }
+      return DriverManager.getConnection("jdbc:" + url.substring("jdbc:blocking:".length()), info);
+    }
+
+    @Override
+    public boolean acceptsURL(String url) {
+      return url.startsWith("jdbc:blocking:");
+    }
+
+    @Override
+    public DriverPropertyInfo[] getPropertyInfo(String url, Properties info) {
+      return new DriverPropertyInfo[0];
+    }
+
+    @Override
+    public int getMajorVersion() {
+      return 1;
+    }
+
+    @Override
+    public int getMinorVersion() {
+      return 0;
+    }
+
+    @Override
+    public boolean jdbcCompliant() {
+      return false;
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+      throw new SQLFeatureNotSupportedException();
+    }
+  }
+
+}
@@ -0,0 +1,57 @@
+/**
+ *    Copyright ${license.git.copyrightYears} the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.datasource.pooled;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+class PoolStateTest {
+
+  @Test
+  @SuppressWarnings("deprecation")
+  void shouldUpdateTheProtectedCountersInMillisecondsWhenRead() {
+    PoolState state = new PoolState(new PooledDataSource());
+    state.recordRequest(TimeUnit.MILLISECONDS.toNanos(30));
+    state.recordRequest(TimeUnit.MILLISECONDS.toNanos(10));
+    state.recordHadToWait();
+    state.recordWait(TimeUnit.MILLISECONDS.toNanos(8));
+    state.recordCheckin(100);
+    state.recordClaimedOverdue(300);
+    state.recordBadConnection();
+
+    assertEquals(0, state.requestCount);
+    assertEquals(0, state.badConnectionCount);
+    assertEquals(1, state.getBadConnectionCount());
+    assertEquals(2, state.requestCount);
+    assertEquals(40, state.accumulatedRequestTime);
+    assertEquals(1, state.hadToWaitCount);
+    assertEquals(8, state.accumulatedWaitTime);
+    assertEquals(400, state.accumulatedCheckoutTime);
+    assertEquals(1, state.claimedOverdueConnectionCount);
+    assertEquals(300, state.accumulatedCheckoutTimeOfOverdueConnections);
+    assertEquals(1, state.badConnectionCount);
+
+    assertEquals(2, state.getRequestCount());
+    assertEquals(20, state.getAverageRequestTime());
+    assertEquals(8, state.getAverageWaitTime());
+    assertEquals(200, state.getAverageCheckoutTime());
+    assertEquals(300, state.getAverageOverdueCheckoutTime());
+  }
+
+}
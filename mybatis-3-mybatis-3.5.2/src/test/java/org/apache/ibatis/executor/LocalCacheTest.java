@@ -0,0 +1,75 @@
+/**
+ *    Copyright ${license.git.copyrightYears} the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Collections;
+
+import org.apache.ibatis.cache.decorators.FifoCache;
+import org.junit.jupiter.api.Test;
+
+class LocalCacheTest {
+
+  @Test
+  void shouldEvictOnlyWhenTheStatementCompletes() {
+    LocalCache cache = new LocalCache("LocalCache", null, 2, null);
+    for (int i = 0; i < 5; i++) {
+      cache.putObject(i, Collections.singletonList(i));
+    }
+    assertEquals(5, cache.getSize());
+    for (int i = 0; i < 5; i++) {
+      assertNotNull(cache.getObject(i));
+    }
+    cache.statementCompleted();
+    assertEquals(2, cache.getSize());
+    assertEquals(3, cache.getEvictions());
+    assertEquals(5, cache.getPeakSize());
+    assertNull(cache.getObject(0));
+    assertNotNull(cache.getObject(4));
+    assertEquals(7, cache.getRequests());
+    assertEquals(6, cache.getHits());
+  }
+
+  @Test
+  void shouldKeepTheEntriesReadByTheRunningStatement() {
+    LocalCache cache = new LocalCache("LocalCache", FifoCache.class, 2, null);
+    cache.putObject(0, "0");
+    cache.putObject(1, "1");
+    cache.statementCompleted();
+    assertEquals("0", cache.getObject(0));
+    cache.putObject(2, "2");
+    cache.putObject(3, "3");
+    assertEquals(4, cache.getSize());
+    assertEquals("0", cache.getObject(0));
+    cache.statementCompleted();
+    assertEquals(2, cache.getSize());
+    assertEquals(2, cache.getEvictions());
+  }
+
+  @Test
+  void shouldDropThePlaceholdersOfFailedStatements() {
+    LocalCache cache = new LocalCache("LocalCache", null, null, null);
+    cache.putObject(0, ExecutionPlaceholder.EXECUTION_PLACEHOLDER);
+    assertSame(ExecutionPlaceholder.EXECUTION_PLACEHOLDER, cache.getObject(0));
+    assertEquals(0, cache.getRequests());
+    cache.statementCompleted();
+    assertNull(cache.getObject(0));
+    assertEquals(0, cache.getSize());
+    assertEquals(0, cache.getEvictions());
+  }
+
+}
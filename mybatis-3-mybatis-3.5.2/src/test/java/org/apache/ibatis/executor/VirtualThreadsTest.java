@@ -0,0 +1,129 @@
+/**
+ *    Copyright ${license.git.copyrightYears} the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.binding.BoundAuthorMapper;
+import org.apache.ibatis.binding.BoundBlogMapper;
+import org.apache.ibatis.datasource.pooled.PooledDataSource;
+import org.apache.ibatis.domain.blog.Author;
+import org.apache.ibatis.domain.blog.Blog;
+import org.apache.ibatis.domain.blog.Post;
+import org.apache.ibatis.mapping.Environment;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.RowBounds;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.apache.ibatis.transaction.jdbc.JdbcTransactionFactory;
+import org.junit.jupiter.api.Test;
+
+class VirtualThreadsTest {
+
+  @Test
+  void shouldDetectVirtualThreadSupport() {
+    boolean supported;
+    try {
+      // a final feature since Java 21, before that a preview one
+      Thread.class.getMethod("ofVirtual");
+      supported = !System.getProperty("java.specification.version").matches("19|20");
+    } catch (NoSuchMethodException e) {
+      supported = false;
+    }
+    assertEquals(supported, VirtualThreads.isSupported());
+    assertEquals(supported, VirtualThreads.getExecutor() != null);
+  }
+
+  @Test
+  void shouldRunMapperStatementsConcurrently() throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(50);
+    try {
+      runMapperStatements(false, executor, 500);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  void shouldNotStarveCarrierThreadsWhenSessionsWaitForConnections() throws Exception {
+    assumeTrue(VirtualThreads.isSupported());
+    runMapperStatements(true, VirtualThreads.getExecutor(), 10000);
+  }
+
+  private void runMapperStatements(boolean useVirtualThreads, Executor executor, int sessionCount) throws Exception {
+    BaseDataTest.createBlogDataSource();
+    PooledDataSource ds = BaseDataTest.createPooledDataSource(BaseDataTest.BLOG_PROPERTIES);
+    ds.setPoolMaximumActiveConnections(10);
+    ds.setPoolMaximumIdleConnections(10);
+    ds.setPoolTimeToWait(60000);
+    Configuration configuration = new Configuration(new Environment("test", new JdbcTransactionFactory(), ds));
+    configuration.setLazyLoadingEnabled(true);
+    configuration.setCursorPrefetchSize(1);
+    configuration.setUseVirtualThreads(useVirtualThreads);
+    configuration.getTypeAliasRegistry().registerAlias(Blog.class);
+    configuration.getTypeAliasRegistry().registerAlias(Post.class);
+    configuration.getTypeAliasRegistry().registerAlias(Author.class);
+    configuration.addMapper(BoundBlogMapper.class);
+    configuration.addMapper(BoundAuthorMapper.class);
+    SqlSessionFactory sqlSessionFactory = new SqlSessionFactoryBuilder().build(configuration);
+    try {
+      AtomicInteger completed = new AtomicInteger();
+      CompletableFuture<?>[] sessions = new CompletableFuture<?>[sessionCount];
+      for (int i = 0; i < sessions.length; i++) {
+        sessions[i] = CompletableFuture.runAsync(() -> {
+          try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+            BoundBlogMapper mapper = sqlSession.getMapper(BoundBlogMapper.class);
+            // cached in the second level cache once the first session is closed, with their lazy loaded properties
+            List<Blog> blogs = mapper.selectBlogsWithAutorAndPosts();
+            assertEquals(101, blogs.get(0).getAuthor().getId());
+            assertEquals(1, blogs.get(0).getPosts().size());
+            // a prefetching cursor queries on the executor of the cursors
+            int count = 0;
+            for (Blog blog : mapper.openRangeBlogs(RowBounds.DEFAULT)) {
+              assertNotNull(blog.getTitle());
+              count++;
+            }
+            assertEquals(2, count);
+            completed.incrementAndGet();
+          }
+        }, executor);
+      }
+      // while most sessions wait for one of the 10 connections, other tasks still get a thread
+      long start = System.nanoTime();
+      CompletableFuture.runAsync(() -> { }, executor).get(5, TimeUnit.SECONDS);
+      assertTrue(TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - start) < 5);
+
+      CompletableFuture.allOf(sessions).get(120, TimeUnit.SECONDS);
+      assertEquals(sessions.length, completed.get());
+      assertTrue(configuration.getCache(BoundBlogMapper.class.getName()).getSize() > 0);
+      assertEquals(0, ds.getPoolState().getActiveConnectionCount());
+    } finally {
+      ds.forceCloseAll();
+    }
+  }
+
+}
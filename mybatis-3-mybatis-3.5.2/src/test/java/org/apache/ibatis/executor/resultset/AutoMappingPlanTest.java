@@ -0,0 +1,116 @@
+/**
+ *    Copyright ${license.git.copyrightYears} the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.resultset;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.builder.StaticSqlSource;
+import org.apache.ibatis.domain.blog.Author;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ResultMap;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.RowBounds;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+class AutoMappingPlanTest {
+
+  private static DataSource ds;
+
+  @BeforeAll
+  static void setup() throws Exception {
+    ds = BaseDataTest.createBlogDataSource();
+  }
+
+  @Test
+  void shouldShareAutoMappingsAcrossStatements() throws Exception {
+    Configuration config = new Configuration();
+    ResultMap resultMap = new ResultMap.Builder(config, "authorMap", Author.class, new ArrayList<>(), true).build();
+    List<Object> first = select(config, statement(config, "selectAuthors", resultMap, "SELECT * FROM author ORDER BY id"));
+    AutoMappingPlan plan = plan(config, resultMap, "SELECT * FROM author ORDER BY id");
+    List<AutoMappingPlan.UnMappedColumnAutoMapping> autoMappings = plan.getAutoMappings(Author.class);
+    assertNotNull(autoMappings);
+    assertNull(plan.getAutoMappings(Object.class));
+    assertTrue(plan.getMappedColumnNames().isEmpty());
+    assertTrue(plan.getUnmappedColumnNames().contains("USERNAME"));
+
+    List<Object> second = select(config, statement(config, "selectAuthor", resultMap, "SELECT * FROM author WHERE id = 101"));
+    assertSame(plan, plan(config, resultMap, "SELECT * FROM author WHERE id = 101"));
+    assertSame(autoMappings, plan.getAutoMappings(Author.class));
+    assertEquals(2, first.size());
+    assertEquals("jim", ((Author) second.get(0)).getUsername());
+  }
+
+  @Test
+  void shouldResolveOnePlanPerColumnSignature() throws Exception {
+    Configuration config = new Configuration();
+    ResultMap resultMap = new ResultMap.Builder(config, "authorMap", Author.class, new ArrayList<>(), true).build();
+    select(config, statement(config, "selectAuthors", resultMap, "SELECT * FROM author"));
+    select(config, statement(config, "selectNames", resultMap, "SELECT id, username FROM author"));
+    AutoMappingPlan all = plan(config, resultMap, "SELECT * FROM author");
+    AutoMappingPlan names = plan(config, resultMap, "SELECT id, username FROM author");
+    assertNotSame(all, names);
+    assertEquals(2, names.getUnmappedColumnNames().size());
+    assertEquals(2, names.getAutoMappings(Author.class).size());
+  }
+
+  @Test
+  void shouldDropTheLeastRecentlyUsedPlanWhenFull() {
+    Configuration config = new Configuration();
+    AutoMappingPlan kept = new AutoMappingPlan(Collections.emptyList(), Collections.emptyList());
+    config.addAutoMappingPlan("kept", kept);
+    for (int i = 0; i < 4096; i++) {
+      assertSame(kept, config.getAutoMappingPlan("kept"));
+      config.addAutoMappingPlan("plan" + i, new AutoMappingPlan(Collections.emptyList(), Collections.emptyList()));
+    }
+    assertSame(kept, config.getAutoMappingPlan("kept"));
+    assertNull(config.getAutoMappingPlan("plan0"));
+    assertNotNull(config.getAutoMappingPlan("plan1"));
+    assertNotNull(config.getAutoMappingPlan("plan4095"));
+  }
+
+  private AutoMappingPlan plan(Configuration config, ResultMap resultMap, String sql) throws Exception {
+    try (Connection conn = ds.getConnection(); Statement stmt = conn.createStatement();
+        ResultSet rs = stmt.executeQuery(sql)) {
+      return new ResultSetWrapper(rs, config).getAutoMappingPlan(resultMap, null);
+    }
+  }
+
+  private MappedStatement statement(Configuration config, String id, ResultMap resultMap, String sql) {
+    return new MappedStatement.Builder(config, id, new StaticSqlSource(config, sql), SqlCommandType.SELECT)
+        .resultMaps(Collections.singletonList(resultMap)).build();
+  }
+
+  private List<Object> select(Configuration config, MappedStatement ms) throws Exception {
+    try (Connection conn = ds.getConnection(); Statement stmt = conn.createStatement()) {
+      stmt.execute(ms.getBoundSql(null).getSql());
+      DefaultResultSetHandler handler = new DefaultResultSetHandler(null, ms, null, null, null, new RowBounds());
+      return handler.handleResultSets(stmt);
+    }
+  }
+
+}
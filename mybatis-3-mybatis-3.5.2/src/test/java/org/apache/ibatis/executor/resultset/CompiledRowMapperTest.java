@@ -0,0 +1,121 @@
+/**
+ *    Copyright ${license.git.copyrightYears} the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.resultset;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.builder.StaticSqlSource;
+import org.apache.ibatis.domain.blog.Author;
+import org.apache.ibatis.domain.blog.Section;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ResultMap;
+import org.apache.ibatis.mapping.ResultMapping;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.session.Configuration;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+class CompiledRowMapperTest {
+
+  private static DataSource ds;
+
+  @BeforeAll
+  static void setup() throws Exception {
+    ds = BaseDataTest.createBlogDataSource();
+  }
+
+  @Test
+  void shouldMapMappedAndAutoMappedColumns() throws Exception {
+    Configuration config = new Configuration();
+    ResultMap resultMap = new ResultMap.Builder(config, "authorMap", Author.class,
+        Collections.singletonList(new ResultMapping.Builder(config, "favouriteSection", "favourite_section",
+            config.getTypeHandlerRegistry().getTypeHandler(Section.class)).build())).build();
+    List<Author> authors = mapAll(config, resultMap);
+    assertEquals(2, authors.size());
+    Author author = authors.get(0);
+    assertEquals(101, author.getId());
+    assertEquals("jim", author.getUsername());
+    assertEquals("jim@ibatis.apache.org", author.getEmail());
+    assertEquals("", author.getBio());
+    assertEquals(Section.NEWS, author.getFavouriteSection());
+  }
+
+  @Test
+  void shouldMapUnderscoreToCamelCase() throws Exception {
+    Configuration config = new Configuration();
+    config.setMapUnderscoreToCamelCase(true);
+    ResultMap resultMap = new ResultMap.Builder(config, "authorMap", Author.class, new ArrayList<>(), true).build();
+    List<Author> authors = mapAll(config, resultMap);
+    assertEquals(Section.VIDEOS, authors.get(1).getFavouriteSection());
+    assertNull(authors.get(1).getBio());
+  }
+
+  @Test
+  void shouldNotCompileResultMapsOfMaps() throws Exception {
+    Configuration config = new Configuration();
+    ResultMap resultMap = new ResultMap.Builder(config, "mapMap", HashMap.class, new ArrayList<>(), true).build();
+    try (Connection conn = ds.getConnection(); Statement stmt = conn.createStatement();
+        ResultSet rs = stmt.executeQuery("SELECT * FROM author ORDER BY id")) {
+      ResultSetWrapper rsw = new ResultSetWrapper(rs, config);
+      assertSame(CompiledRowMapper.UNSUPPORTED, CompiledRowMapper.compile(rsw, resultMap, true, statement(config), config));
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  @Test
+  void shouldDropTheLeastRecentlyUsedRowMapperWhenFull() {
+    Configuration config = new Configuration();
+    config.addCompiledRowMapper("kept", CompiledRowMapper.UNSUPPORTED);
+    for (int i = 0; i < 4096; i++) {
+      assertNotNull(config.getCompiledRowMapper("kept"));
+      config.addCompiledRowMapper("rowMapper" + i, CompiledRowMapper.UNSUPPORTED);
+    }
+    assertNotNull(config.getCompiledRowMapper("kept"));
+    assertNull(config.getCompiledRowMapper("rowMapper0"));
+    assertNotNull(config.getCompiledRowMapper("rowMapper4095"));
+  }
+
+  private <T> List<T> mapAll(Configuration config, ResultMap resultMap) throws Exception {
+    List<T> results = new ArrayList<>();
+    try (Connection conn = ds.getConnection(); Statement stmt = conn.createStatement();
+        ResultSet rs = stmt.executeQuery("SELECT * FROM author ORDER BY id")) {
+      ResultSetWrapper rsw = new ResultSetWrapper(rs, config);
+      CompiledRowMapper rowMapper = CompiledRowMapper.compile(rsw, resultMap, true, statement(config), config);
+      assertNotSame(CompiledRowMapper.UNSUPPORTED, rowMapper);
+      while (rs.next()) {
+        results.add((T) rowMapper.map(rs));
+      }
+    }
+    return results;
+  }
+
+  private MappedStatement statement(Configuration config) {
+    return new MappedStatement.Builder(config, "selectAuthors", new StaticSqlSource(config, "SELECT * FROM author"),
+        SqlCommandType.SELECT).build();
+  }
+
+}
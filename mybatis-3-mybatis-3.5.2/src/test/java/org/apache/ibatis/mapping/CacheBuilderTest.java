@@ -18,6 +18,14 @@ package org.apache.ibatis.mapping;
 import org.apache.ibatis.builder.InitializingObject;
 import org.apache.ibatis.cache.Cache;
 import org.apache.ibatis.cache.CacheException;
+import org.apache.ibatis.cache.decorators.BlockingCache;
+import org.apache.ibatis.cache.decorators.FifoCache;
+import org.apache.ibatis.cache.decorators.LoggingCache;
+import org.apache.ibatis.cache.decorators.LruCache;
+import org.apache.ibatis.cache.decorators.ScheduledCache;
+import org.apache.ibatis.cache.decorators.SynchronizedCache;
+import org.apache.ibatis.cache.impl.ConcurrentPerpetualCache;
+import org.apache.ibatis.cache.impl.OffHeapCache;
 import org.apache.ibatis.cache.impl.PerpetualCache;
 import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.Test;
@@ -43,6 +51,34 @@ class CacheBuilderTest {
       .hasMessage("Failed cache initialization for 'test' on 'org.apache.ibatis.mapping.CacheBuilderTest$InitializingFailureCache'");
   }
 
+  @Test
+  void shouldSkipSynchronizationWhenWholeChainIsThreadSafe() {
+    Cache cache = new CacheBuilder("test").implementation(ConcurrentPerpetualCache.class)
+      .addDecorator(FifoCache.class).readWrite(true).build();
+    Assertions.assertThat(cache).isInstanceOf(LoggingCache.class);
+  }
+
+  @Test
+  void shouldSynchronizeWhenDecoratorIsNotThreadSafe() {
+    Cache cache = new CacheBuilder("test").implementation(ConcurrentPerpetualCache.class)
+      .addDecorator(LruCache.class).build();
+    Assertions.assertThat(cache).isInstanceOf(SynchronizedCache.class);
+    cache = new CacheBuilder("test").implementation(PerpetualCache.class).addDecorator(FifoCache.class).build();
+    Assertions.assertThat(cache).isInstanceOf(SynchronizedCache.class);
+  }
+
+  @Test
+  void shouldApplyTheStandardDecoratorsToAnOffHeapCache() {
+    Cache cache = new CacheBuilder("test").implementation(OffHeapCache.class).addDecorator(LruCache.class)
+      .clearInterval(60000L).readWrite(true).blocking(true).build();
+    Assertions.assertThat(cache).isInstanceOf(BlockingCache.class);
+    Cache logging = unwrap(cache);
+    Assertions.assertThat(logging).isInstanceOf(LoggingCache.class);
+    Cache scheduled = unwrap(logging);
+    Assertions.assertThat(scheduled).isInstanceOf(ScheduledCache.class);
+    Assertions.assertThat((Cache) unwrap(scheduled)).isInstanceOf(OffHeapCache.class);
+  }
+
   @SuppressWarnings("unchecked")
   private <T> T unwrap(Cache cache) {
     Field field;
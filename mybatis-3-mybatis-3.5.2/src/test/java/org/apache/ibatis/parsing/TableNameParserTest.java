@@ -0,0 +1,58 @@
+/**
+ *    Copyright ${license.git.copyrightYears} the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.parsing;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+class TableNameParserTest {
+
+  @Test
+  void shouldFindTablesOfQueries() {
+    assertEquals(tables("author"), TableNameParser.parse("select * from AUTHOR where id = ?"));
+    assertEquals(tables("blog", "author", "post"), TableNameParser.parse(
+        "select * from blog b join \"Author\" a on b.author_id = a.id\n left outer join ibtest.post p on p.blog_id = b.id"));
+    assertEquals(tables("blog", "author"), TableNameParser.parse("select * from blog b, author as a where b.author_id = a.id"));
+    assertEquals(tables("blog", "post"), TableNameParser.parse(
+        "select * from blog where id in (select blog_id from post where subject = 'from comment')"));
+    assertEquals(tables("post"), TableNameParser.parse("select * from -- author\n post /* from blog */"));
+  }
+
+  @Test
+  void shouldFindTablesOfUpdates() {
+    assertEquals(tables("author"), TableNameParser.parse("insert into author (id, username) values (?, ?)"));
+    assertEquals(tables("author"), TableNameParser.parse("update `author` set username = ? where id = ?"));
+    assertEquals(tables("author"), TableNameParser.parse("delete from author where id = ?"));
+    assertEquals(tables("post", "blog"), TableNameParser.parse("insert into post (id, blog_id) select ?, id from blog"));
+    assertEquals(tables("author"), TableNameParser.parse("drop table if exists author"));
+  }
+
+  @Test
+  void shouldFindNoTableInProcedureCalls() {
+    assertEquals(Collections.emptySet(), TableNameParser.parse("{call adder(?, ?, ?)}"));
+  }
+
+  private static Set<String> tables(String... names) {
+    return new LinkedHashSet<>(Arrays.asList(names));
+  }
+
+}
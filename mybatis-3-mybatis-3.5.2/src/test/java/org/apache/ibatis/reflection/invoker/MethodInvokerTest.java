@@ -0,0 +1,95 @@
+/**
+ *    Copyright ${license.git.copyrightYears} the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.reflection.invoker;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+import org.junit.jupiter.api.Test;
+
+class MethodInvokerTest {
+
+  @Test
+  void shouldGenerateAccessorsForPublicMethods() throws Exception {
+    assertNotNull(AccessorFactory.newGetter(Bean.class.getMethod("getAge")));
+    assertNotNull(AccessorFactory.newSetter(Bean.class.getMethod("setAge", int.class)));
+  }
+
+  @Test
+  void shouldGetAndSetProperties() throws Exception {
+    Bean bean = new Bean();
+    new MethodInvoker(Bean.class.getMethod("setAge", int.class)).invoke(bean, new Object[] { 42 });
+    new MethodInvoker(Bean.class.getMethod("setName", String.class)).invoke(bean, new Object[] { "bob" });
+    assertEquals(42, new MethodInvoker(Bean.class.getMethod("getAge")).invoke(bean, new Object[0]));
+    assertEquals("bob", new MethodInvoker(Bean.class.getMethod("getName")).invoke(bean, new Object[0]));
+    new MethodInvoker(Bean.class.getMethod("setName", String.class)).invoke(bean, new Object[] { null });
+    assertNull(bean.getName());
+  }
+
+  @Test
+  void shouldGetPrivateProperties() throws Exception {
+    Method method = Bean.class.getDeclaredMethod("getSecret");
+    method.setAccessible(true);
+    assertEquals("secret", new MethodInvoker(method).invoke(new Bean(), new Object[0]));
+  }
+
+  @Test
+  void shouldFailAsReflectionOnIllegalArguments() throws Exception {
+    MethodInvoker invoker = new MethodInvoker(Bean.class.getMethod("setAge", int.class));
+    assertThrows(IllegalArgumentException.class, () -> invoker.invoke(new Bean(), new Object[] { "42" }));
+    assertThrows(IllegalArgumentException.class, () -> invoker.invoke(new Bean(), new Object[] { null }));
+    assertThrows(IllegalArgumentException.class, () -> invoker.invoke("bean", new Object[] { 42 }));
+  }
+
+  @Test
+  void shouldWrapExceptionsOfTheMethod() throws Exception {
+    MethodInvoker invoker = new MethodInvoker(Bean.class.getMethod("setAge", int.class));
+    InvocationTargetException e = assertThrows(InvocationTargetException.class,
+        () -> invoker.invoke(new Bean(), new Object[] { -1 }));
+    assertTrue(e.getTargetException() instanceof IllegalStateException);
+  }
+
+  public static class Bean {
+    private int age;
+    private String name;
+
+    public int getAge() {
+      return age;
+    }
+
+    public void setAge(int age) {
+      if (age < 0) {
+        throw new IllegalStateException("negative age");
+      }
+      this.age = age;
+    }
+
+    public String getName() {
+      return name;
+    }
+
+    public void setName(String name) {
+      this.name = name;
+    }
+
+    private String getSecret() {
+      return "secret";
+    }
+  }
+
+}
@@ -23,6 +23,7 @@ import org.apache.ibatis.annotations.CacheNamespace;
 import org.apache.ibatis.annotations.Property;
 import org.apache.ibatis.cache.Cache;
 import org.apache.ibatis.cache.CacheException;
+import org.apache.ibatis.cache.CacheStatistics;
 import org.apache.ibatis.annotations.CacheNamespaceRef;
 import org.apache.ibatis.builder.BuilderException;
 import org.apache.ibatis.io.Resources;
@@ -250,6 +251,25 @@ class CacheTest {
     }
   }
 
+  @Test
+  void shouldRecordCacheStatistics() {
+    CacheStatistics statistics = sqlSessionFactory.getConfiguration().getCacheStatistics(PersonMapper.class.getName());
+    try (SqlSession sqlSession = sqlSessionFactory.openSession(true)) {
+      PersonMapper pm = sqlSession.getMapper(PersonMapper.class);
+      Assertions.assertEquals(2, pm.findAll().size());
+    }
+    try (SqlSession sqlSession = sqlSessionFactory.openSession(true)) {
+      PersonMapper pm = sqlSession.getMapper(PersonMapper.class);
+      Assertions.assertEquals(2, pm.findAll().size());
+    }
+    Assertions.assertEquals(1, statistics.getHits());
+    Assertions.assertEquals(1, statistics.getMisses());
+    Assertions.assertEquals(1, statistics.getPuts());
+    Assertions.assertEquals(1, statistics.getLoads());
+    Assertions.assertTrue(statistics.getTotalLoadTime() > 0);
+    Assertions.assertEquals(1, statistics.getSize());
+  }
+
   @Test
   void shouldApplyCustomCacheProperties() {
     CustomCache customCache = unwrap(sqlSessionFactory.getConfiguration().getCache(CustomCacheMapper.class.getName()));
@@ -0,0 +1,133 @@
+/**
+ *    Copyright ${license.git.copyrightYears} the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.compiled_row_mapper;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.Reader;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.executor.resultset.CompiledRowMapper;
+import org.apache.ibatis.executor.resultset.ResultSetWrapper;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+class CompiledRowMapperTest {
+
+  @BeforeAll
+  static void setUp() throws Exception {
+    SqlSessionFactory sqlSessionFactory = sqlSessionFactory(false, false, false);
+    BaseDataTest.runScript(sqlSessionFactory.getConfiguration().getEnvironment().getDataSource(),
+        "org/apache/ibatis/submitted/compiled_row_mapper/CreateDB.sql");
+  }
+
+  @Test
+  void shouldMapDiscriminatedResultsAsTheInterpreter() throws Exception {
+    List<Vehicle> vehicles = select(sqlSessionFactory(true, false, false), Mapper::getVehicles);
+    assertEquals(3, vehicles.size());
+    assertEquals(Integer.valueOf(4), ((Car) vehicles.get(0)).getDoorCount());
+    assertEquals(Integer.valueOf(20), ((Truck) vehicles.get(1)).getLoadCapacity());
+    assertNull(((Car) vehicles.get(2)).getDoorCount());
+    assertEquals(describe(select(sqlSessionFactory(false, false, false), Mapper::getVehicles)), describe(vehicles));
+  }
+
+  @Test
+  void shouldCallSettersOnNullsAsTheInterpreter() throws Exception {
+    List<Vehicle> vehicles = select(sqlSessionFactory(true, true, false), Mapper::getNames);
+    assertEquals("Speedy", vehicles.get(0).getNickname());
+    assertNull(vehicles.get(1).getNickname());
+    assertEquals(describe(select(sqlSessionFactory(false, true, false), Mapper::getNames)), describe(vehicles));
+
+    vehicles = select(sqlSessionFactory(true, false, false), Mapper::getNames);
+    assertEquals("unnamed", vehicles.get(1).getNickname());
+    assertEquals(describe(select(sqlSessionFactory(false, false, false), Mapper::getNames)), describe(vehicles));
+  }
+
+  @Test
+  void shouldReturnInstanceForEmptyRowAsTheInterpreter() throws Exception {
+    List<Vehicle> vehicles = select(sqlSessionFactory(true, false, true), Mapper::getNames);
+    assertEquals(4, vehicles.size());
+    assertNotNull(vehicles.get(3));
+    assertNull(vehicles.get(3).getName());
+    assertEquals(describe(select(sqlSessionFactory(false, false, true), Mapper::getNames)), describe(vehicles));
+
+    vehicles = select(sqlSessionFactory(true, false, false), Mapper::getNames);
+    assertNull(vehicles.get(vehicles.size() - 1));
+    assertEquals(describe(select(sqlSessionFactory(false, false, false), Mapper::getNames)), describe(vehicles));
+  }
+
+  @Test
+  void shouldKeepCompiledRowMappersInTheConfiguration() throws Exception {
+    SqlSessionFactory sqlSessionFactory = sqlSessionFactory(true, false, false);
+    Configuration configuration = sqlSessionFactory.getConfiguration();
+    select(sqlSessionFactory, Mapper::getVehicles);
+    String signature;
+    try (Connection conn = configuration.getEnvironment().getDataSource().getConnection();
+        Statement stmt = conn.createStatement();
+        ResultSet rs = stmt.executeQuery("select * from vehicles where id < 4 order by id")) {
+      signature = new ResultSetWrapper(rs, configuration).getColumnSignature();
+    }
+    CompiledRowMapper carMapper = configuration.getCompiledRowMapper(
+        "org.apache.ibatis.submitted.compiled_row_mapper.Mapper.carResult\n" + signature);
+    CompiledRowMapper truckMapper = configuration.getCompiledRowMapper(
+        "org.apache.ibatis.submitted.compiled_row_mapper.Mapper.truckResult\n" + signature);
+    assertNotNull(carMapper);
+    // result maps that can not be compiled share the same instance
+    assertNotSame(carMapper, truckMapper);
+
+    select(sqlSessionFactory, Mapper::getVehicles);
+    assertSame(carMapper, configuration.getCompiledRowMapper(
+        "org.apache.ibatis.submitted.compiled_row_mapper.Mapper.carResult\n" + signature));
+  }
+
+  private static SqlSessionFactory sqlSessionFactory(boolean compiledRowMappersEnabled, boolean callSettersOnNulls,
+      boolean returnInstanceForEmptyRow) throws Exception {
+    try (Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/compiled_row_mapper/mybatis-config.xml")) {
+      SqlSessionFactory sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+      Configuration configuration = sqlSessionFactory.getConfiguration();
+      configuration.setCompiledRowMappersEnabled(compiledRowMappersEnabled);
+      configuration.setCallSettersOnNulls(callSettersOnNulls);
+      configuration.setReturnInstanceForEmptyRow(returnInstanceForEmptyRow);
+      return sqlSessionFactory;
+    }
+  }
+
+  private static List<Vehicle> select(SqlSessionFactory sqlSessionFactory, Function<Mapper, List<Vehicle>> statement) {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      return statement.apply(sqlSession.getMapper(Mapper.class));
+    }
+  }
+
+  private static List<String> describe(List<Vehicle> vehicles) {
+    List<String> descriptions = new ArrayList<>();
+    for (Vehicle vehicle : vehicles) {
+      descriptions.add(String.valueOf(vehicle));
+    }
+    return descriptions;
+  }
+
+}
@@ -0,0 +1,31 @@
+--
+--    Copyright ${license.git.copyrightYears} the original author or authors.
+--
+--    Licensed under the Apache License, Version 2.0 (the "License");
+--    you may not use this file except in compliance with the License.
+--    You may obtain a copy of the License at
+--
+--       http://www.apache.org/licenses/LICENSE-2.0
+--
+--    Unless required by applicable law or agreed to in writing, software
+--    distributed under the License is distributed on an "AS IS" BASIS,
+--    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+--    See the License for the specific language governing permissions and
+--    limitations under the License.
+--
+
+drop table vehicles if exists;
+
+create table vehicles (
+  id int,
+  vehicle_type int,
+  name varchar(20),
+  nickname varchar(20),
+  door_count int,
+  load_capacity int
+);
+
+insert into vehicles values(1, 1, 'Car1', 'Speedy', 4, null);
+insert into vehicles values(2, 2, 'Truck1', null, null, 20);
+insert into vehicles values(3, 1, 'Car2', null, null, null);
+insert into vehicles values(4, null, null, null, null, null);
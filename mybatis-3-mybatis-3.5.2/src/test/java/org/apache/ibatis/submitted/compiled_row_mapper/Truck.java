@@ -0,0 +1,35 @@
+/**
+ *    Copyright ${license.git.copyrightYears} the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.compiled_row_mapper;
+
+public class Truck extends Vehicle {
+
+  private Integer loadCapacity;
+
+  public Integer getLoadCapacity() {
+    return loadCapacity;
+  }
+
+  public void setLoadCapacity(Integer loadCapacity) {
+    this.loadCapacity = loadCapacity;
+  }
+
+  @Override
+  public String toString() {
+    return super.toString() + "[loadCapacity=" + loadCapacity + "]";
+  }
+
+}
@@ -27,7 +27,11 @@ import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 
 import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Iterator;
+import java.util.List;
 
 class CursorNestedTest {
 
@@ -105,4 +109,26 @@ class CursorNestedTest {
       Assertions.assertTrue(usersCursor.isConsumed());
     }
   }
+
+  @Test
+  void shouldGetAllUsersInBatches() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Cursor<User> usersCursor = sqlSession.getMapper(Mapper.class).getAllUsers();
+      List<List<String>> batches = new ArrayList<>();
+      List<Integer> groupCounts = new ArrayList<>();
+      usersCursor.forEachBatch(3, batch -> {
+        List<String> names = new ArrayList<>();
+        for (User user : batch) {
+          names.add(user.getName());
+          groupCounts.add(user.getGroups().size());
+        }
+        batches.add(names);
+      });
+
+      Assertions.assertEquals(Arrays.asList(Arrays.asList("User1", "User2", "User3"), Collections.singletonList("User4")), batches);
+      Assertions.assertEquals(Arrays.asList(2, 1, 3, 2), groupCounts);
+      Assertions.assertEquals(3, usersCursor.getCurrentIndex());
+      Assertions.assertTrue(usersCursor.isConsumed());
+    }
+  }
 }
@@ -17,6 +17,7 @@ package org.apache.ibatis.submitted.cursor_simple;
 
 import org.apache.ibatis.BaseDataTest;
 import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.cursor.CursorPublisher;
 import org.apache.ibatis.io.Resources;
 import org.apache.ibatis.session.RowBounds;
 import org.apache.ibatis.session.SqlSession;
@@ -29,9 +30,13 @@ import org.junit.jupiter.api.Test;
 import java.io.IOException;
 import java.io.Reader;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 class CursorSimpleTest {
 
@@ -157,6 +162,120 @@ class CursorSimpleTest {
     }
   }
 
+  @Test
+  void shouldGetUsersInBatches() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Cursor<User> usersCursor = sqlSession.selectCursor("getAllUsers", null, new RowBounds(1, 3));
+      List<List<String>> batches = new ArrayList<>();
+      usersCursor.forEachBatch(2, batch -> {
+        List<String> names = new ArrayList<>();
+        for (User user : batch) {
+          names.add(user.getName());
+        }
+        batches.add(names);
+      });
+
+      Assertions.assertEquals(2, batches.size());
+      Assertions.assertEquals(Arrays.asList("User2", "User3"), batches.get(0));
+      Assertions.assertEquals(Collections.singletonList("User4"), batches.get(1));
+      Assertions.assertEquals(3, usersCursor.getCurrentIndex());
+      Assertions.assertFalse(usersCursor.isOpen());
+      Assertions.assertTrue(usersCursor.isConsumed());
+      Assertions.assertThrows(IllegalStateException.class, usersCursor::iterator);
+    }
+  }
+
+  @Test
+  void shouldGetUsersFromAnOffsetWithoutLimit() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Cursor<User> usersCursor = sqlSession.selectCursor("getAllUsers", null, new RowBounds(2, RowBounds.NO_ROW_LIMIT));
+      List<String> names = new ArrayList<>();
+      for (User user : usersCursor) {
+        names.add(user.getName());
+      }
+      Assertions.assertEquals(Arrays.asList("User3", "User4", "User5"), names);
+      Assertions.assertTrue(usersCursor.isConsumed());
+    }
+  }
+
+  @Test
+  void shouldGetUsersInBatchesFromAnOffsetWithoutLimit() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Cursor<User> usersCursor = sqlSession.selectCursor("getAllUsers", null, new RowBounds(2, RowBounds.NO_ROW_LIMIT));
+      List<List<String>> batches = new ArrayList<>();
+      usersCursor.forEachBatch(2, batch -> {
+        List<String> names = new ArrayList<>();
+        for (User user : batch) {
+          names.add(user.getName());
+        }
+        batches.add(names);
+      });
+      Assertions.assertEquals(2, batches.size());
+      Assertions.assertEquals(Arrays.asList("User3", "User4"), batches.get(0));
+      Assertions.assertEquals(Collections.singletonList("User5"), batches.get(1));
+      Assertions.assertEquals(4, usersCursor.getCurrentIndex());
+      Assertions.assertTrue(usersCursor.isConsumed());
+    }
+  }
+
+  @Test
+  void shouldEndBatchesAtAnEmptyRowAsTheIteratorDoes() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      List<String> iterated = new ArrayList<>();
+      for (User user : sqlSession.<User>selectCursor("getUsersUntilAnEmptyRow")) {
+        iterated.add(user.getName());
+      }
+      Cursor<User> usersCursor = sqlSession.selectCursor("getUsersUntilAnEmptyRow");
+      List<String> batched = new ArrayList<>();
+      usersCursor.forEachBatch(10, batch -> {
+        for (User user : batch) {
+          batched.add(user.getName());
+        }
+      });
+      Assertions.assertEquals(Arrays.asList("User1", "User2"), iterated);
+      Assertions.assertEquals(iterated, batched);
+      Assertions.assertEquals(1, usersCursor.getCurrentIndex());
+      Assertions.assertTrue(usersCursor.isConsumed());
+    }
+  }
+
+  @Test
+  void shouldStopPrefetchingWhenTheSessionIsClosedDuringIteration() throws Exception {
+    SqlSessionFactory prefetchingSqlSessionFactory = prefetchingSqlSessionFactory();
+    Cursor<User> usersCursor;
+    Iterator<User> iterator;
+    try (SqlSession sqlSession = prefetchingSqlSessionFactory.openSession()) {
+      usersCursor = sqlSession.getMapper(Mapper.class).getAllUsers();
+      iterator = usersCursor.iterator();
+      Assertions.assertEquals("User1", iterator.next().getName());
+    }
+    Assertions.assertFalse(usersCursor.isOpen());
+    Assertions.assertFalse(iterator.hasNext());
+  }
+
+  @Test
+  void shouldGoOnIteratingAfterACommitWhilePrefetching() throws Exception {
+    try (SqlSession sqlSession = prefetchingSqlSessionFactory().openSession()) {
+      Cursor<User> usersCursor = sqlSession.getMapper(Mapper.class).getAllUsers();
+      List<String> names = new ArrayList<>();
+      for (User user : usersCursor) {
+        names.add(user.getName());
+        if (names.size() == 2) {
+          sqlSession.commit(true);
+        }
+      }
+      Assertions.assertEquals(Arrays.asList("User1", "User2", "User3", "User4", "User5"), names);
+    }
+  }
+
+  private SqlSessionFactory prefetchingSqlSessionFactory() throws IOException {
+    try (Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/cursor_simple/mybatis-config.xml")) {
+      SqlSessionFactory prefetchingSqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+      prefetchingSqlSessionFactory.getConfiguration().setCursorPrefetchSize(1);
+      return prefetchingSqlSessionFactory;
+    }
+  }
+
   @Test
   void testCursorIteratorNoSuchElementExceptionWithHasNext() throws IOException {
 
@@ -387,4 +506,43 @@ class CursorSimpleTest {
 
   }
 
+  @Test
+  void shouldPublishUsersAsRequested() throws Exception {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      CursorPublisher<User> publisher = sqlSession.getMapper(Mapper.class).publishAllUsers(new RowBounds(1, 3));
+
+      List<String> names = Collections.synchronizedList(new ArrayList<>());
+      CountDownLatch completed = new CountDownLatch(1);
+      publisher.subscribe(new CursorPublisher.Subscriber<User>() {
+        private CursorPublisher.Subscription subscription;
+
+        @Override
+        public void onSubscribe(CursorPublisher.Subscription subscription) {
+          this.subscription = subscription;
+          subscription.request(1);
+        }
+
+        @Override
+        public void onNext(User item) {
+          names.add(item.getName());
+          subscription.request(1);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+          names.add(throwable.toString());
+          completed.countDown();
+        }
+
+        @Override
+        public void onComplete() {
+          completed.countDown();
+        }
+      });
+
+      Assertions.assertTrue(completed.await(10, TimeUnit.SECONDS));
+      Assertions.assertEquals(Arrays.asList("User2", "User3", "User4"), names);
+    }
+  }
+
 }
@@ -16,9 +16,13 @@
 package org.apache.ibatis.submitted.cursor_simple;
 
 import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.cursor.CursorPublisher;
+import org.apache.ibatis.session.RowBounds;
 
 public interface Mapper {
 
   Cursor<User> getAllUsers();
 
+  CursorPublisher<User> publishAllUsers(RowBounds rowBounds);
+
 }
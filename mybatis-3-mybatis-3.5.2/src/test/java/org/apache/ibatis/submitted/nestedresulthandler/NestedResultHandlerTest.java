@@ -16,6 +16,7 @@
 package org.apache.ibatis.submitted.nestedresulthandler;
 
 import java.io.Reader;
+import java.util.ArrayList;
 import java.util.List;
 
 import org.apache.ibatis.BaseDataTest;
@@ -94,6 +95,26 @@ class NestedResultHandlerTest {
     }
   }
 
+  @Test
+  void testOrderedGetPersonDropsPreviousPersons() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      List<Person> persons = new ArrayList<>();
+      sqlSession.select("getPersonsStreamedByItem", context -> persons.add((Person) context.getResultObject()));
+
+      // each person is handed over as soon as the next row belongs to another one and is not merged again afterwards
+      Assertions.assertEquals(4, persons.size());
+      Assertions.assertEquals("grandma", persons.get(0).getName());
+      Assertions.assertEquals(1, persons.get(0).getItems().size());
+      Assertions.assertTrue(persons.get(0).owns("book"));
+      Assertions.assertEquals("sister", persons.get(2).getName());
+      Assertions.assertEquals(2, persons.get(2).getItems().size());
+      Assertions.assertEquals("grandma", persons.get(3).getName());
+      Assertions.assertNotSame(persons.get(0), persons.get(3));
+      Assertions.assertTrue(persons.get(3).owns("tv"));
+      Assertions.assertEquals(1, persons.get(3).getItems().size());
+    }
+  }
+
   /**
    * Fix bug caused by issue #542, see new issue #22 on github If we order by a
    * nested result map attribute we can miss some records and end up with
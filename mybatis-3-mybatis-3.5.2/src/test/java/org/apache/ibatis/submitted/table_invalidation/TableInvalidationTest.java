@@ -0,0 +1,126 @@
+/**
+ *    Copyright ${license.git.copyrightYears} the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.table_invalidation;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.Reader;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class TableInvalidationTest {
+
+  private static final String USER_MAPPER = "org.apache.ibatis.submitted.table_invalidation.UserMapper.";
+  private static final String ITEM_MAPPER = "org.apache.ibatis.submitted.table_invalidation.ItemMapper.";
+  private static final String WRITE_MAPPER = "org.apache.ibatis.submitted.table_invalidation.WriteMapper.";
+
+  private SqlSessionFactory sqlSessionFactory;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    // create a SqlSessionFactory
+    try (Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/table_invalidation/mybatis-config.xml")) {
+      sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    }
+
+    // populate in-memory database
+    BaseDataTest.runScript(sqlSessionFactory.getConfiguration().getEnvironment().getDataSource(),
+            "org/apache/ibatis/submitted/table_invalidation/CreateDB.sql");
+  }
+
+  @Test
+  void shouldInvalidateOnlyEntriesReadFromTheWrittenTable() {
+    Object user = select(USER_MAPPER + "getUser");
+    Object userWithItem = select(USER_MAPPER + "getUserWithItem");
+    Object item = select(ITEM_MAPPER + "getItem");
+    update(WRITE_MAPPER + "renameItem", "Item2");
+    assertSame(user, select(USER_MAPPER + "getUser"));
+    assertNotSame(userWithItem, select(USER_MAPPER + "getUserWithItem"));
+    Map<?, ?> newItem = (Map<?, ?>) select(ITEM_MAPPER + "getItem");
+    assertNotSame(item, newItem);
+    assertEquals("Item2", newItem.get("NAME"));
+  }
+
+  @Test
+  void shouldKeepOtherTablesWhenTheNamespaceIsWritten() {
+    Object user = select(USER_MAPPER + "getUser");
+    Object userWithItem = select(USER_MAPPER + "getUserWithItem");
+    Object item = select(ITEM_MAPPER + "getItem");
+    update(USER_MAPPER + "renameUser", "User2");
+    assertEquals("User2", ((Map<?, ?>) select(USER_MAPPER + "getUser")).get("NAME"));
+    assertNotSame(user, select(USER_MAPPER + "getUser"));
+    assertNotSame(userWithItem, select(USER_MAPPER + "getUserWithItem"));
+    assertSame(item, select(ITEM_MAPPER + "getItem"));
+  }
+
+  @Test
+  void shouldUseTheDeclaredTables() {
+    assertEquals(Collections.singleton("items"),
+        sqlSessionFactory.getConfiguration().getMappedStatement(WRITE_MAPPER + "renameItemDeclared").getTables());
+    Object user = select(USER_MAPPER + "getUser");
+    Object item = select(ITEM_MAPPER + "getItem");
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Map<String, Object> param = new HashMap<>();
+      param.put("id", 1);
+      param.put("name", "Item2");
+      param.put("table", "items");
+      sqlSession.update(WRITE_MAPPER + "renameItemDeclared", param);
+      sqlSession.commit();
+    }
+    assertSame(user, select(USER_MAPPER + "getUser"));
+    assertNotSame(item, select(ITEM_MAPPER + "getItem"));
+  }
+
+  @Test
+  void shouldNotReadInvalidatedEntriesInTheWritingTransaction() {
+    select(ITEM_MAPPER + "getItem");
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Map<String, Object> param = new HashMap<>();
+      param.put("id", 1);
+      param.put("name", "Item2");
+      sqlSession.update(WRITE_MAPPER + "renameItem", param);
+      assertEquals("Item2", ((Map<?, ?>) sqlSession.selectOne(ITEM_MAPPER + "getItem", 1)).get("NAME"));
+      sqlSession.rollback();
+    }
+    assertEquals("Item1", ((Map<?, ?>) select(ITEM_MAPPER + "getItem")).get("NAME"));
+  }
+
+  private Object select(String statement) {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      return sqlSession.selectOne(statement, 1);
+    }
+  }
+
+  private void update(String statement, String name) {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Map<String, Object> param = new HashMap<>();
+      param.put("id", 1);
+      param.put("name", name);
+      sqlSession.update(statement, param);
+      sqlSession.commit();
+    }
+  }
+
+}